@@ -4,6 +4,7 @@ plugins {
     id("io.spring.dependency-management") version "1.1.7"
     id("com.github.ben-manes.versions") version "0.52.0"
     id("org.owasp.dependencycheck") version "12.1.0"
+    id("me.champeau.jmh") version "0.7.3"
     checkstyle
 }
 
@@ -25,6 +26,20 @@ repositories {
     mavenCentral()
 }
 
+// STOMP load-generation harness; runs against a live backend, see README
+sourceSets {
+    create("loadtest")
+}
+
+configurations {
+    named("loadtestImplementation") {
+        extendsFrom(configurations.implementation.get())
+    }
+    named("loadtestRuntimeOnly") {
+        extendsFrom(configurations.runtimeOnly.get())
+    }
+}
+
 dependencies {
     implementation("org.springframework.boot:spring-boot-starter-web")
     implementation("org.springframework.boot:spring-boot-starter-data-jpa")
@@ -45,6 +60,9 @@ dependencies {
     runtimeOnly("io.jsonwebtoken:jjwt-impl:0.12.6")
     runtimeOnly("io.jsonwebtoken:jjwt-jackson:0.12.6")
     
+    // CBOR encoding for WebSocket frames (negotiated per session)
+    implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-cbor")
+    
     // PostgreSQL driver
     runtimeOnly("org.postgresql:postgresql")
     
@@ -84,6 +102,21 @@ tasks.withType<Test> {
     maxHeapSize = "2g"
 }
 
+tasks.register<JavaExec>("loadTest") {
+    group = "verification"
+    description = "Run the STOMP load-generation harness against a running backend"
+    classpath = sourceSets["loadtest"].runtimeClasspath
+    mainClass = "io.xquti.mdb.loadtest.StompLoadTest"
+    maxHeapSize = "4g"
+}
+
+// Microbenchmarks in src/jmh; run with ./gradlew jmh
+jmh {
+    warmupIterations = 3
+    iterations = 5
+    fork = 1
+}
+
 tasks.withType<JavaCompile> {
     options.compilerArgs.addAll(listOf(
         "-Xlint:deprecation",
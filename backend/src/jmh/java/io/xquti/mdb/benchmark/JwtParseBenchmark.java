@@ -0,0 +1,92 @@
+package io.xquti.mdb.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.xquti.mdb.service.JwtService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import javax.crypto.SecretKey;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of verifying one access token.
+ *
+ * {@code perCallKeyAndParser} repeats what every parse used to do: run the
+ * secret checks, hash the secret into a key and build a parser.
+ * {@code cachedKeyAndParser} goes through {@link JwtService}, which does that
+ * work once at startup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(4)
+public class JwtParseBenchmark {
+
+    private static final String SECRET = "b7Xq2M9vT4kLp8Rz1Wn6Yc3Hd5Jf0Gs7Ae2Ku9Io4Pl1Ns6Bm3Vx8Cz5Qw0Er7Ty2Ui9Op4As1Df6Gh3Jk8Lz5Xc";
+    private static final String ISSUER = "mdb-platform";
+    private static final String AUDIENCE = "mdb-users";
+
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        jwtService = new JwtService();
+        set("secret", SECRET);
+        set("expiration", 3_600_000L);
+        set("refreshExpiration", 604_800_000L);
+        set("issuer", ISSUER);
+        set("audience", AUDIENCE);
+        set("previousSecrets", List.of());
+        jwtService.init();
+        token = jwtService.generateToken("benchmark-user");
+    }
+
+    @Benchmark
+    public String cachedKeyAndParser() {
+        return jwtService.extractUsername(token);
+    }
+
+    @Benchmark
+    public String perCallKeyAndParser() throws Exception {
+        Claims claims = Jwts.parser()
+                .verifyWith(legacySigningKey())
+                .requireIssuer(ISSUER)
+                .requireAudience(AUDIENCE)
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+        return claims.getSubject();
+    }
+
+    private static SecretKey legacySigningKey() throws Exception {
+        if (SECRET.trim().isEmpty() || SECRET.length() < 64) {
+            throw new IllegalStateException("weak secret");
+        }
+        if (SECRET.contains("please-change-this") || SECRET.contains("super-secret")
+                || SECRET.contains("CHANGE_THIS") || SECRET.equals("default")
+                || SECRET.matches("^[a-zA-Z0-9]{1,20}$")) {
+            throw new IllegalStateException("weak secret");
+        }
+        byte[] hash = MessageDigest.getInstance("SHA-256").digest(SECRET.getBytes(StandardCharsets.UTF_8));
+        return Keys.hmacShaKeyFor(hash);
+    }
+
+    private void set(String name, Object value) throws ReflectiveOperationException {
+        Field field = JwtService.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(jwtService, value);
+    }
+}
@@ -0,0 +1,61 @@
+package io.xquti.mdb.loadtest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with 100µs buckets up to 30s, which is plenty
+ * of resolution for delivery latencies and cheap enough to record from every
+ * client's receive thread.
+ */
+final class LatencyHistogram {
+
+    private static final long BUCKET_NANOS = 100_000L;
+    private static final int BUCKETS = 300_000;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS + 1);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long nanos) {
+        long bucket = Math.max(0, nanos) / BUCKET_NANOS;
+        counts.incrementAndGet((int) Math.min(bucket, BUCKETS));
+        total.incrementAndGet();
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    long count() {
+        return total.get();
+    }
+
+    double maxMillis() {
+        return max.get() / 1_000_000.0;
+    }
+
+    /**
+     * Upper bound of the bucket holding the given percentile, in milliseconds.
+     */
+    double percentileMillis(double percentile) {
+        long samples = total.get();
+        if (samples == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(samples * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i <= BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return (i + 1) * BUCKET_NANOS / 1_000_000.0;
+            }
+        }
+        return maxMillis();
+    }
+
+    void reset() {
+        for (int i = 0; i <= BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.set(0);
+        max.set(0);
+    }
+}
@@ -0,0 +1,382 @@
+package io.xquti.mdb.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Load generator for forum real-time delivery.
+ *
+ * Opens many STOMP sessions against {@code /ws-native}, spreads them across
+ * thread topics, then creates posts over REST at a fixed rate. Each post
+ * carries its send time in its content, so every delivery to every session
+ * yields an end-to-end latency sample (commit, event pipeline, broker fan-out
+ * and socket write). Reports delivery latency percentiles, frames/sec,
+ * deliveries against the number expected, and the server's heap growth per
+ * connected session as seen by its metrics endpoint.
+ *
+ * <pre>
+ * ./gradlew loadTest --args="--token=&lt;jwt&gt; --clients=10000 --threads=100 --rate=50 --duration=2m"
+ * </pre>
+ */
+public final class StompLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(StompLoadTest.class);
+    private static final Pattern SENT_AT = Pattern.compile("lt=(\\d+)");
+    private static final String THREAD_TOPIC_PREFIX = "/topic/forum/thread/";
+
+    private final Options options;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong frames = new AtomicLong();
+    private final AtomicLong deliveries = new AtomicLong();
+    private final AtomicLong postsSent = new AtomicLong();
+    private final AtomicLong postsFailed = new AtomicLong();
+    private final AtomicInteger disconnects = new AtomicInteger();
+    private final Queue<StompSession> sessions = new ConcurrentLinkedQueue<>();
+    private final Map<Long, AtomicInteger> subscribersByThread = new HashMap<>();
+
+    private StompLoadTest(Options options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new StompLoadTest(Options.parse(args)).run();
+    }
+
+    private void run() throws Exception {
+        List<Long> threadIds = options.threadIds.isEmpty() ? createThreads(options.threads) : options.threadIds;
+        threadIds.forEach(id -> subscribersByThread.put(id, new AtomicInteger()));
+
+        double heapBefore = serverMetric("jvm.memory.used", "area:heap");
+        double subscriptionsBefore = serverMetric("mdb.websocket.subscriptions", null);
+
+        StandardWebSocketClient webSocketClient = new StandardWebSocketClient();
+        WebSocketStompClient stompClient = new WebSocketStompClient(webSocketClient);
+        try {
+            connectClients(stompClient, threadIds);
+
+            // Let the server settle before sampling its heap
+            Thread.sleep(options.settle.toMillis());
+            double heapAfter = serverMetric("jvm.memory.used", "area:heap");
+            double subscriptionsAfter = serverMetric("mdb.websocket.subscriptions", null);
+
+            ScheduledExecutorService poster = Executors.newSingleThreadScheduledExecutor();
+            AtomicLong postCounter = new AtomicLong();
+            long periodMicros = Math.max(1, 1_000_000L / options.rate);
+            poster.scheduleAtFixedRate(
+                () -> sendPost(threadIds.get((int) (postCounter.getAndIncrement() % threadIds.size()))),
+                0, periodMicros, TimeUnit.MICROSECONDS);
+
+            logger.info("Warming up for {}", options.warmup);
+            Thread.sleep(options.warmup.toMillis());
+            resetCounters();
+
+            logger.info("Measuring for {}", options.duration);
+            long measureStart = System.nanoTime();
+            Thread.sleep(options.duration.toMillis());
+            poster.shutdownNow();
+            long postsInWindow = postsSent.get();
+            long expected = expectedDeliveries(postsInWindow);
+
+            // Posts sent at the end of the window are still in flight
+            Thread.sleep(options.drain.toMillis());
+            double elapsedSeconds = (System.nanoTime() - measureStart) / 1e9;
+
+            report(heapBefore, heapAfter, subscriptionsBefore, subscriptionsAfter,
+                postsInWindow, expected, elapsedSeconds);
+        } finally {
+            sessions.forEach(session -> {
+                try {
+                    session.disconnect();
+                } catch (Exception e) {
+                    // Already gone
+                }
+            });
+            stompClient.stop();
+        }
+    }
+
+    private List<Long> createThreads(int count) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String body = objectMapper.writeValueAsString(Map.of(
+                "title", "Load test thread " + i,
+                "content", "Created by the STOMP load test"));
+            HttpResponse<String> response = http.send(post("/api/forums/threads", body), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() / 100 != 2) {
+                throw new IllegalStateException("Creating a thread failed with HTTP " + response.statusCode()
+                    + ": " + response.body());
+            }
+            ids.add(objectMapper.readTree(response.body()).get("id").asLong());
+        }
+        logger.info("Created {} threads", ids.size());
+        return ids;
+    }
+
+    private void connectClients(WebSocketStompClient stompClient, List<Long> threadIds) throws Exception {
+        WebSocketHttpHeaders handshakeHeaders = new WebSocketHttpHeaders();
+        handshakeHeaders.setBearerAuth(options.token);
+        String url = options.url.replaceFirst("^http", "ws") + "/ws-native";
+
+        List<CompletableFuture<StompSession>> pending = new ArrayList<>();
+        long pauseNanos = 1_000_000_000L / options.connectRate;
+        for (int i = 0; i < options.clients; i++) {
+            long threadId = threadIds.get(i % threadIds.size());
+            pending.add(stompClient.connectAsync(url, handshakeHeaders, new StompHeaders(), new ClientHandler(threadId)));
+            TimeUnit.NANOSECONDS.sleep(pauseNanos);
+            if ((i + 1) % 1000 == 0) {
+                logger.info("Opened {} connections", i + 1);
+            }
+        }
+
+        int failed = 0;
+        for (CompletableFuture<StompSession> future : pending) {
+            try {
+                future.get(30, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                failed++;
+            }
+        }
+        logger.info("Connected {} sessions ({} failed)", sessions.size(), failed);
+    }
+
+    private void sendPost(long threadId) {
+        String content;
+        try {
+            content = objectMapper.writeValueAsString(Map.of(
+                "content", "Load test post lt=" + System.nanoTime()));
+        } catch (Exception e) {
+            postsFailed.incrementAndGet();
+            return;
+        }
+        http.sendAsync(post("/api/forums/threads/" + threadId + "/posts", content), HttpResponse.BodyHandlers.discarding())
+            .whenComplete((response, error) -> {
+                if (error == null && response.statusCode() / 100 == 2) {
+                    postsSent.incrementAndGet();
+                } else {
+                    postsFailed.incrementAndGet();
+                }
+            });
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(options.url + path))
+            .timeout(Duration.ofSeconds(10))
+            .header("Authorization", "Bearer " + options.token)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json))
+            .build();
+    }
+
+    private void onFrame(byte[] payload) {
+        long receivedAt = System.nanoTime();
+        frames.incrementAndGet();
+        try {
+            JsonNode body = objectMapper.readTree(payload);
+            // The coalescer sends a JSON array when several posts land in one window
+            Iterable<JsonNode> events = body.isArray() ? body : List.of(body);
+            for (JsonNode event : events) {
+                Matcher matcher = SENT_AT.matcher(event.path("content").asText());
+                if (matcher.find()) {
+                    deliveries.incrementAndGet();
+                    latency.record(receivedAt - Long.parseLong(matcher.group(1)));
+                }
+            }
+        } catch (Exception e) {
+            logger.debug("Unreadable frame: {}", e.getMessage());
+        }
+    }
+
+    private long expectedDeliveries(long posts) {
+        // Posts go round-robin over the threads, so each thread gets an equal share
+        double perThread = (double) posts / subscribersByThread.size();
+        double total = 0;
+        for (AtomicInteger subscribers : subscribersByThread.values()) {
+            total += perThread * subscribers.get();
+        }
+        return Math.round(total);
+    }
+
+    private void resetCounters() {
+        latency.reset();
+        frames.set(0);
+        deliveries.set(0);
+        postsSent.set(0);
+        postsFailed.set(0);
+    }
+
+    private void report(double heapBefore, double heapAfter, double subscriptionsBefore, double subscriptionsAfter,
+                        long posts, long expected, double elapsedSeconds) {
+        int connected = sessions.size();
+        System.out.println();
+        System.out.println("=== STOMP load test ===");
+        System.out.printf("sessions            %d connected, %d dropped during the run%n", connected, disconnects.get());
+        System.out.printf("server subscriptions %.0f -> %.0f%n", subscriptionsBefore, subscriptionsAfter);
+        if (connected > 0 && !Double.isNaN(heapBefore) && !Double.isNaN(heapAfter)) {
+            System.out.printf("server heap          %.1f MB -> %.1f MB, ~%.1f KB per session%n",
+                heapBefore / 1_048_576, heapAfter / 1_048_576, (heapAfter - heapBefore) / 1024 / connected);
+        }
+        System.out.printf("posts               %d ok, %d failed (%.1f/s)%n", posts, postsFailed.get(), posts / elapsedSeconds);
+        System.out.printf("frames received     %d (%.0f/s)%n", frames.get(), frames.get() / elapsedSeconds);
+        System.out.printf("deliveries          %d of %d expected (%.2f%%)%n",
+            deliveries.get(), expected, expected == 0 ? 0 : 100.0 * deliveries.get() / expected);
+        System.out.printf("latency ms          p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f%n",
+            latency.percentileMillis(50), latency.percentileMillis(90), latency.percentileMillis(99),
+            latency.percentileMillis(99.9), latency.maxMillis());
+        System.out.printf("server drops        %.0f frames, %.0f slow consumers%n",
+            serverMetric("mdb.websocket.frames.dropped", null), serverMetric("mdb.websocket.slow.consumers", null));
+    }
+
+    /**
+     * Read a single measurement from the backend's metrics endpoint; NaN if it is unavailable.
+     */
+    private double serverMetric(String name, String tag) {
+        String path = "/actuator/metrics/" + name + (tag != null ? "?tag=" + tag : "");
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(options.url + path))
+                .timeout(Duration.ofSeconds(5))
+                .header("Authorization", "Bearer " + options.token)
+                .GET()
+                .build();
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return Double.NaN;
+            }
+            JsonNode measurements = objectMapper.readTree(response.body()).path("measurements");
+            for (JsonNode measurement : measurements) {
+                String statistic = measurement.path("statistic").asText();
+                if ("VALUE".equals(statistic) || "COUNT".equals(statistic)) {
+                    return measurement.path("value").asDouble();
+                }
+            }
+        } catch (Exception e) {
+            logger.debug("Metric {} unavailable: {}", name, e.getMessage());
+        }
+        return Double.NaN;
+    }
+
+    private final class ClientHandler extends StompSessionHandlerAdapter {
+        private final long threadId;
+
+        ClientHandler(long threadId) {
+            this.threadId = threadId;
+        }
+
+        @Override
+        public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
+            session.subscribe(THREAD_TOPIC_PREFIX + threadId, new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return byte[].class;
+                }
+
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    onFrame((byte[]) payload);
+                }
+            });
+            subscribersByThread.get(threadId).incrementAndGet();
+            sessions.add(session);
+        }
+
+        @Override
+        public void handleTransportError(StompSession session, Throwable exception) {
+            if (sessions.remove(session)) {
+                subscribersByThread.get(threadId).decrementAndGet();
+                disconnects.incrementAndGet();
+            }
+        }
+    }
+
+    private static final class Options {
+        String url = "http://localhost:8080";
+        String token = System.getenv("LOADTEST_TOKEN");
+        int clients = 10_000;
+        int threads = 100;
+        List<Long> threadIds = List.of();
+        int rate = 20;
+        int connectRate = 500;
+        Duration warmup = Duration.ofSeconds(10);
+        Duration duration = Duration.ofSeconds(60);
+        Duration settle = Duration.ofSeconds(5);
+        Duration drain = Duration.ofSeconds(3);
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (String arg : args) {
+                String[] pair = arg.replaceFirst("^--", "").split("=", 2);
+                String value = pair.length > 1 ? pair[1] : "";
+                switch (pair[0]) {
+                    case "url" -> options.url = value.replaceAll("/$", "");
+                    case "token" -> options.token = value;
+                    case "clients" -> options.clients = Integer.parseInt(value);
+                    case "threads" -> options.threads = Integer.parseInt(value);
+                    case "thread-ids" -> options.threadIds = Arrays.stream(value.split(","))
+                        .map(String::trim).map(Long::valueOf).toList();
+                    case "rate" -> options.rate = Integer.parseInt(value);
+                    case "connect-rate" -> options.connectRate = Integer.parseInt(value);
+                    case "warmup" -> options.warmup = duration(value);
+                    case "duration" -> options.duration = duration(value);
+                    case "settle" -> options.settle = duration(value);
+                    case "drain" -> options.drain = duration(value);
+                    default -> throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            }
+            if (options.token == null || options.token.isBlank()) {
+                throw new IllegalArgumentException("An access token is required (--token=... or LOADTEST_TOKEN)");
+            }
+            if (options.clients < 1 || options.rate < 1 || options.connectRate < 1) {
+                throw new IllegalArgumentException("clients, rate and connect-rate must be positive");
+            }
+            return options;
+        }
+
+        /**
+         * Accepts "90s", "2m", "500ms" or a plain number of seconds.
+         */
+        private static Duration duration(String value) {
+            if (value.endsWith("ms")) {
+                return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+            }
+            if (value.endsWith("m")) {
+                return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+            }
+            if (value.endsWith("s")) {
+                return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+            }
+            return Duration.ofSeconds(Long.parseLong(value));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package io.xquti.mdb.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Identity of this backend replica within a multi-node deployment.
+ * Used to tag cluster-wide messages so a node can ignore its own echoes.
+ */
+@Component
+public class ClusterNode {
+
+    private final String nodeId;
+
+    public ClusterNode(@Value("${app.cluster.node-id:}") String configuredNodeId) {
+        this.nodeId = configuredNodeId != null && !configuredNodeId.isBlank()
+            ? configuredNodeId.trim()
+            : UUID.randomUUID().toString();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+}
\ No newline at end of file
@@ -1,10 +1,25 @@
 package io.xquti.mdb.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import io.xquti.mdb.ratelimit.RateLimitProperties;
+import io.xquti.mdb.ratelimit.RateLimitResult;
+import io.xquti.mdb.ratelimit.RateLimitRule;
+import io.xquti.mdb.ratelimit.RateLimitRules;
+import io.xquti.mdb.ratelimit.ClientIpResolver;
+import io.xquti.mdb.ratelimit.LeasedRateLimiter;
+import io.xquti.mdb.ratelimit.LocalRateLimiter;
+import io.xquti.mdb.ratelimit.RateLimitMetrics;
+import io.xquti.mdb.ratelimit.RedisHealthMonitor;
+import io.xquti.mdb.service.ValidatedToken;
 
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
@@ -14,17 +29,40 @@ import jakarta.servlet.ServletResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.time.Duration;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
 
+/**
+ * Rate limiting for every request, driven by the rule table in {@link RateLimitRules}.
+ * The filter runs after Spring Security, so rules keyed by user see the authenticated principal.
+ */
 @Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
 public class RateLimitConfig {
 
     private static final Logger logger = LoggerFactory.getLogger(RateLimitConfig.class);
-    private final RedisTemplate<String, String> redisTemplate;
 
-    public RateLimitConfig(RedisTemplate<String, String> redisTemplate) {
-        this.redisTemplate = redisTemplate;
+    private final LeasedRateLimiter rateLimiter;
+    private final LocalRateLimiter fallbackLimiter;
+    private final RedisHealthMonitor redisHealth;
+    private final ClientIpResolver clientIpResolver;
+    private final RateLimitRules rules;
+    private final RateLimitMetrics metrics;
+    private final ObjectMapper objectMapper;
+
+    // Only switched off for local load tests, which post far faster than any user
+    @Value("${app.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    public RateLimitConfig(LeasedRateLimiter rateLimiter, LocalRateLimiter fallbackLimiter,
+                           RedisHealthMonitor redisHealth, ClientIpResolver clientIpResolver,
+                           RateLimitRules rules, RateLimitMetrics metrics, ObjectMapper objectMapper) {
+        this.rateLimiter = rateLimiter;
+        this.fallbackLimiter = fallbackLimiter;
+        this.redisHealth = redisHealth;
+        this.clientIpResolver = clientIpResolver;
+        this.rules = rules;
+        this.metrics = metrics;
+        this.objectMapper = objectMapper;
     }
 
     @Bean
@@ -34,39 +72,29 @@ public class RateLimitConfig {
             public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
                     throws IOException, ServletException {
                 
+                if (!enabled) {
+                    chain.doFilter(request, response);
+                    return;
+                }
+
                 HttpServletRequest httpRequest = (HttpServletRequest) request;
                 HttpServletResponse httpResponse = (HttpServletResponse) response;
                 
-                String clientIp = getClientIpAddress(httpRequest);
-                String requestUri = httpRequest.getRequestURI();
-                
-                // SECURITY: Apply strict rate limiting to authentication endpoints
-                if (requestUri.startsWith("/oauth2/") || requestUri.startsWith("/api/auth/")) {
-                    if (!isRequestAllowed(clientIp, "auth", 5, 60)) { // Reduced to 5 requests per minute for security
-                        httpResponse.setStatus(429);
-                        httpResponse.setContentType("application/json");
-                        httpResponse.addHeader("Retry-After", "60");
-                        httpResponse.getWriter().write("{\"error\":\"Too many authentication requests. Please try again later.\"}");
-                        return;
-                    }
-                }
-                
-                // SECURITY: Apply rate limiting to API endpoints with different limits
-                if (requestUri.startsWith("/api/forums/") && "POST".equals(httpRequest.getMethod())) {
-                    // Stricter limits for forum posting to prevent spam
-                    if (!isRequestAllowed(clientIp, "forum_post", 10, 300)) { // 10 posts per 5 minutes
-                        httpResponse.setStatus(429);
-                        httpResponse.setContentType("application/json");
-                        httpResponse.addHeader("Retry-After", "300");
-                        httpResponse.getWriter().write("{\"error\":\"Too many posts. Please wait before posting again.\"}");
-                        return;
-                    }
-                } else if (requestUri.startsWith("/api/")) {
-                    if (!isRequestAllowed(clientIp, "api", 60, 60)) { // Reduced from 100 to 60 requests per minute
+                RateLimitRule rule = rules.match(httpRequest.getMethod(), httpRequest.getRequestURI());
+                if (rule != null) {
+                    String clientIp = clientIpResolver.resolve(httpRequest);
+                    String clientKey = clientKey(rule, clientIp);
+                    RateLimitResult result = checkLimit(rule, clientKey, clientIp);
+                    metrics.record(rule, clientKey, result);
+                    // Quota from the same decision, so clients can pace themselves without extra calls
+                    httpResponse.setHeader("X-RateLimit-Limit", Integer.toString(result.limit()));
+                    httpResponse.setHeader("X-RateLimit-Remaining", Long.toString(result.remaining()));
+                    httpResponse.setHeader("X-RateLimit-Reset", Long.toString(result.resetAfterSeconds()));
+                    if (!result.allowed()) {
                         httpResponse.setStatus(429);
                         httpResponse.setContentType("application/json");
-                        httpResponse.addHeader("Retry-After", "60");
-                        httpResponse.getWriter().write("{\"error\":\"Too many API requests. Please slow down.\"}");
+                        httpResponse.addHeader("Retry-After", Long.toString(result.retryAfterSeconds()));
+                        httpResponse.getWriter().write(objectMapper.writeValueAsString(Map.of("error", rule.message())));
                         return;
                     }
                 }
@@ -76,113 +104,58 @@ public class RateLimitConfig {
         };
     }
 
-    private String getClientIpAddress(HttpServletRequest request) {
-        // SECURITY: Get the actual remote address first (most reliable)
-        String remoteAddr = request.getRemoteAddr();
-        
-        // SECURITY: Only trust proxy headers if we're behind a known proxy
-        String trustedProxies = System.getenv("TRUSTED_PROXIES");
-        boolean trustProxyHeaders = trustedProxies != null && !trustedProxies.trim().isEmpty();
-        
-        if (trustProxyHeaders) {
-            // SECURITY: Validate that the request is coming from a trusted proxy
-            if (isTrustedProxy(remoteAddr, trustedProxies)) {
-                String xForwardedFor = request.getHeader("X-Forwarded-For");
-                if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-                    // SECURITY: Take the first IP (original client) and validate strictly
-                    String clientIp = xForwardedFor.split(",")[0].trim();
-                    
-                    // SECURITY: Strict validation to prevent header injection attacks
-                    if (isValidIpAddress(clientIp) && !isPrivateOrReservedIp(clientIp)) {
-                        return clientIp;
+    /**
+     * The identity a rule counts against; user and token rules fall back to the address when anonymous.
+     */
+    private String clientKey(RateLimitRule rule, String clientIp) {
+        switch (rule.key()) {
+            case USER -> {
+                Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+                if (authentication != null && authentication.isAuthenticated()
+                        && !(authentication instanceof AnonymousAuthenticationToken)) {
+                    // The verified user id, so renaming the account does not reset its quota
+                    if (authentication.getCredentials() instanceof ValidatedToken token && token.hasIdentity()) {
+                        return "user:" + token.userId();
                     }
+                    // Tokens issued before identity claims were added
+                    return "user:" + authentication.getName();
                 }
-                
-                String xRealIp = request.getHeader("X-Real-IP");
-                if (xRealIp != null && !xRealIp.isEmpty() && 
-                    isValidIpAddress(xRealIp) && !isPrivateOrReservedIp(xRealIp)) {
-                    return xRealIp;
-                }
-            }
-        }
-        
-        return remoteAddr;
-    }
-    
-    private boolean isTrustedProxy(String remoteAddr, String trustedProxies) {
-        String[] proxies = trustedProxies.split(",");
-        for (String proxy : proxies) {
-            if (remoteAddr.equals(proxy.trim())) {
-                return true;
             }
-        }
-        return false;
-    }
-    
-    private boolean isValidIpAddress(String ip) {
-        // SECURITY: Strict IP validation to prevent header injection
-        if (ip == null || ip.trim().isEmpty() || ip.length() > 45) {
-            return false;
-        }
-        
-        // IPv4 validation with range checking
-        if (ip.matches("^(?:[0-9]{1,3}\\.){3}[0-9]{1,3}$")) {
-            String[] parts = ip.split("\\.");
-            for (String part : parts) {
-                int num = Integer.parseInt(part);
-                if (num < 0 || num > 255) {
-                    return false;
+            case TOKEN -> {
+                // Only a token the JWT filter verified; a made-up bearer value would get a fresh quota each time
+                Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+                if (authentication != null && authentication.getCredentials() instanceof ValidatedToken token) {
+                    return "token:" + token.id();
                 }
             }
-            return true;
-        }
-        
-        // IPv6 validation (simplified)
-        if (ip.matches("^([0-9a-fA-F]{1,4}:){7}[0-9a-fA-F]{1,4}$")) {
-            return true;
-        }
-        
-        return false;
-    }
-    
-    private boolean isPrivateOrReservedIp(String ip) {
-        // SECURITY: Reject private/reserved IPs that could be spoofed
-        if (ip.startsWith("10.") || 
-            ip.startsWith("192.168.") || 
-            ip.matches("^172\\.(1[6-9]|2[0-9]|3[0-1])\\..*") ||
-            ip.startsWith("127.") ||
-            ip.equals("0.0.0.0") ||
-            ip.startsWith("169.254.") ||
-            ip.startsWith("::1") ||
-            ip.startsWith("fc00:") ||
-            ip.startsWith("fe80:")) {
-            return true;
+            case IP -> {
+                // Address below
+            }
         }
-        return false;
+        return "ip:" + clientIp;
     }
 
-    private boolean isRequestAllowed(String clientIp, String endpoint, int maxRequests, int windowSeconds) {
+    private RateLimitResult checkLimit(RateLimitRule rule, String clientKey, String clientIp) {
+        String key = rule.name() + ":" + clientKey;
+        if (!redisHealth.isRedisHealthy()) {
+            return checkLocalLimit(rule, key);
+        }
         try {
-            String key = "rate_limit:" + endpoint + ":" + clientIp;
-            String currentCount = redisTemplate.opsForValue().get(key);
-            
-            if (currentCount == null) {
-                redisTemplate.opsForValue().set(key, "1", Duration.ofSeconds(windowSeconds));
-                return true;
-            }
-            
-            int count = Integer.parseInt(currentCount);
-            if (count >= maxRequests) {
-                return false;
-            }
-            
-            redisTemplate.opsForValue().increment(key);
-            return true;
+            // Decided from a local lease when the client has headroom, otherwise one atomic round trip
+            return rateLimiter.tryAcquire(key, rule.limit(), rule.window());
         } catch (Exception e) {
-            // SECURITY: Always fail secure to prevent abuse when Redis is down
-            // This prevents rate limit bypass attacks via Redis DoS
-            logger.error("Rate limiting failed for endpoint {} and IP {}: {}", endpoint, clientIp, e.getMessage());
-            return false;
+            redisHealth.recordFailure();
+            logger.warn("Rate limiting via Redis failed for rule {} and IP {}: {}", rule.name(), clientIp, e.getMessage());
+            return checkLocalLimit(rule, key);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * SECURITY: Without Redis, still limit every client, to this node's share of the cluster-wide quota.
+     * Failing open would let a Redis outage disable limits; failing closed would turn it into an API outage.
+     */
+    private RateLimitResult checkLocalLimit(RateLimitRule rule, String key) {
+        int nodeShare = Math.max(1, rule.limit() / Math.max(1, redisHealth.getLiveNodes()));
+        return fallbackLimiter.tryAcquire(key, nodeShare, rule.window());
+    }
+}
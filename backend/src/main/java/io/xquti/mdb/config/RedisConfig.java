@@ -7,10 +7,13 @@ import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.util.concurrent.Executors;
+
 /**
- * Redis Configuration for JWT token blacklisting and rate limiting
+ * Redis Configuration for JWT token revocation and rate limiting
  * 
  * Configures Redis connection and RedisTemplate with secure settings
  * following Spring Data Redis best practices.
@@ -68,4 +71,22 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
+
+    /**
+     * Shared pub/sub listener container for cluster-wide notifications
+     * (WebSocket fan-out and cache invalidation between backend replicas).
+     * Messages are dispatched on a single thread in the order they arrive,
+     * which sequenced WebSocket frames rely on.
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "redis-listener");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        return container;
+    }
 }
\ No newline at end of file
@@ -91,8 +91,13 @@ public class SecurityConfig {
             .requestMatchers("/api/tutorials/**").permitAll()
             .requestMatchers(HttpMethod.GET, "/api/forums/threads").permitAll()
             .requestMatchers(HttpMethod.GET, "/api/forums/threads/*/posts").permitAll()
+            .requestMatchers(HttpMethod.GET, "/api/forums/threads/*/related").permitAll()
+            .requestMatchers(HttpMethod.GET, "/api/forums/threads/*/presence").permitAll()
+            .requestMatchers(HttpMethod.GET, "/api/forums/threads/*/events").permitAll()
+            .requestMatchers(HttpMethod.GET, "/api/forums/threads/*/stream", "/api/forums/stream").permitAll()
             .requestMatchers("/oauth2/**", "/login/**").permitAll()
             .requestMatchers("/actuator/health").permitAll()
+            .requestMatchers("/actuator/ratelimit").hasRole("ADMIN")
             .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
             
             // Auth endpoints - handle authentication internally
@@ -59,7 +59,8 @@ public class CorsSecurityConfig {
         ));
         
         // SECURITY: Restrict exposed headers
-        configuration.setExposedHeaders(Arrays.asList("X-Total-Count", "X-Page-Count"));
+        configuration.setExposedHeaders(Arrays.asList("X-Total-Count", "X-Page-Count",
+            "X-RateLimit-Limit", "X-RateLimit-Remaining", "X-RateLimit-Reset", "Retry-After"));
         
         // SECURITY: Enable credentials for authenticated requests but with strict origin validation
         configuration.setAllowCredentials(true);
@@ -1,8 +1,8 @@
 package io.xquti.mdb.config.security;
 
-import io.xquti.mdb.model.User;
 import io.xquti.mdb.service.JwtService;
 import io.xquti.mdb.service.UserService;
+import io.xquti.mdb.service.ValidatedToken;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -19,6 +19,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * JWT Authentication Filter for validating JWT tokens in requests
@@ -54,12 +55,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 return;
             }
 
-            String jwt = authHeader.substring(BEARER_PREFIX.length());
-            String username = jwtService.extractUsername(jwt);
+            // The only signature verification for this request; everything after reads the result
+            ValidatedToken token = jwtService.validate(authHeader.substring(BEARER_PREFIX.length()));
 
-            // Validate token and authenticate user if not already authenticated
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                authenticateUser(request, jwt, username);
+            // Authenticate user if not already authenticated
+            if (token.subject() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                authenticateUser(request, token);
             }
 
         } catch (Exception e) {
@@ -72,47 +73,47 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     }
 
     /**
-     * Authenticate user with JWT token validation
-     * Following Spring Security best practices for token validation
+     * Authenticate the user named by an already validated token.
+     * The token is kept as the credentials so {@link io.xquti.mdb.util.AuthUtils} can reuse it.
      */
-    private void authenticateUser(HttpServletRequest request, String jwt, String username) {
+    private void authenticateUser(HttpServletRequest request, ValidatedToken token) {
+        String username = token.subject();
         try {
-            // Find user by username
-            var userOptional = userService.findByUsername(username);
-            if (userOptional.isEmpty()) {
-                logger.warn("User not found: {}", username);
-                return;
+            List<String> roles;
+            if (token.hasIdentity()) {
+                // Id, roles and version are signed claims; role changes retire old tokens via the version
+                roles = token.roles();
+            } else {
+                // Tokens issued before identity claims: load the user for its roles
+                var principal = userService.findPrincipalByUsername(username);
+                if (principal.isEmpty()) {
+                    logger.warn("User not found: {}", username);
+                    return;
+                }
+                roles = principal.get().roles().stream().map(Enum::name).toList();
             }
             
-            User user = userOptional.get();
+            // Create authorities from user roles
+            var authorities = roles.stream()
+                .map(role -> new org.springframework.security.core.authority.SimpleGrantedAuthority("ROLE_" + role))
+                .toList();
             
-            // Validate token against username
-            if (jwtService.validateToken(jwt, username)) {
-                // Create authorities from user roles
-                var authorities = user.getRoles().stream()
-                    .map(role -> new org.springframework.security.core.authority.SimpleGrantedAuthority("ROLE_" + role.name()))
-                    .toList();
-                
-                // Create UserDetails from User entity
-                UserDetails userDetails = org.springframework.security.core.userdetails.User.builder()
-                    .username(user.getUsername())
-                    .password("") // No password for OAuth2 users
-                    .authorities(authorities)
-                    .build();
-                
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                    userDetails,
-                    null,
-                    authorities
-                );
-                
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-                
-                logger.debug("Successfully authenticated user: {}", username);
-            } else {
-                logger.warn("Invalid or blacklisted JWT token for user: {}", username);
-            }
+            UserDetails userDetails = org.springframework.security.core.userdetails.User.builder()
+                .username(username)
+                .password("") // No password for OAuth2 users
+                .authorities(authorities)
+                .build();
+            
+            UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                userDetails,
+                token,
+                authorities
+            );
+            
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
+            
+            logger.debug("Successfully authenticated user: {}", username);
             
         } catch (Exception e) {
             logger.warn("Failed to authenticate user {}: {}", username, e.getMessage());
@@ -135,6 +136,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                path.startsWith("/swagger-ui/") ||
                path.startsWith("/v3/api-docs/") ||
                (path.startsWith("/api/tutorials/") && "GET".equals(request.getMethod())) ||
-               (path.startsWith("/api/forums/threads") && "GET".equals(request.getMethod()));
+               (path.startsWith("/api/forums/threads") && "GET".equals(request.getMethod())) ||
+               (path.equals("/api/forums/stream") && "GET".equals(request.getMethod()));
     }
 }
\ No newline at end of file
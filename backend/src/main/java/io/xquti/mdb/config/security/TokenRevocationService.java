@@ -0,0 +1,210 @@
+package io.xquti.mdb.config.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.xquti.mdb.service.ValidatedToken;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The one place tokens are revoked and checked, keyed by the token's {@code jti}.
+ *
+ * Redis is the source of truth: a key per revoked token and a sorted set
+ * indexing them by expiry. Each node keeps a Bloom filter of that index, fed
+ * by pub/sub as revocations happen, so the usual answer, "not revoked", needs
+ * no network call. Only filter hits are confirmed in Redis, and the answer is
+ * memoized for a moment so a burst of requests with the same flagged token
+ * costs one round trip. Logging a user out everywhere is not a revocation:
+ * it bumps the user's token version (see {@link TokenVersionService}). The filter is
+ * rebuilt from the index periodically, which drops expired entries and
+ * repairs any missed pub/sub messages.
+ */
+@Service
+public class TokenRevocationService implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+    private static final String REVOKED_PREFIX = "jwt:revoked:";
+    private static final String INDEX_KEY = "jwt:revocations";
+    private static final String CHANNEL = "jwt:revocations:changed";
+    private static final String TOKEN_ENTRY = "token:";
+    private static final int MAX_MEMO_ENTRIES = 10_000;
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+    private final long memoTtlMillis;
+    private final Counter filtered;
+    private final Counter confirmed;
+    private final Counter memoized;
+    // Redis answers by token id; cleared whenever a revocation arrives
+    private final Map<String, Memo> memo = new ConcurrentHashMap<>();
+    private final AtomicLong revocations = new AtomicLong();
+
+    private volatile BloomFilter filter;
+    private volatile BloomFilter building;
+    // Until the first load succeeds the filter proves nothing, so every check goes to Redis
+    private volatile boolean loaded;
+
+    @Autowired
+    public TokenRevocationService(RedisTemplate<String, String> redisTemplate,
+                                  RedisMessageListenerContainer listenerContainer,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${jwt.revocation.expected-entries:100000}") int expectedEntries,
+                                  @Value("${jwt.revocation.false-positive-rate:0.01}") double falsePositiveRate,
+                                  @Value("${jwt.revocation.memo-ttl:1s}") Duration memoTtl) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.memoTtlMillis = memoTtl.toMillis();
+        this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+        this.filtered = Counter.builder("mdb.auth.revocation.checks")
+            .tag("source", "filter")
+            .description("Revocation checks answered by the local Bloom filter")
+            .register(meterRegistry);
+        this.confirmed = Counter.builder("mdb.auth.revocation.checks")
+            .tag("source", "redis")
+            .description("Revocation checks that needed Redis")
+            .register(meterRegistry);
+        this.memoized = Counter.builder("mdb.auth.revocation.checks")
+            .tag("source", "memo")
+            .description("Revocation checks answered by a recent Redis result")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        rebuild();
+    }
+
+    /**
+     * Revoke one token until it expires.
+     */
+    public void revoke(ValidatedToken token) {
+        long ttlMillis = Duration.between(Instant.now(), token.expiresAt()).toMillis();
+        if (ttlMillis <= 0) {
+            logger.debug("Token already expired, not revoking");
+            return;
+        }
+        publish(TOKEN_ENTRY + token.id(), REVOKED_PREFIX + token.id(), "revoked", ttlMillis);
+        logger.info("Token revoked with TTL: {} seconds", ttlMillis / 1000);
+    }
+
+    public boolean isRevoked(ValidatedToken token) {
+        BloomFilter current = filter;
+        boolean ready = loaded;
+        boolean flagged = current.mightContain(TOKEN_ENTRY + token.id());
+        if (ready && !flagged) {
+            filtered.increment();
+            return false;
+        }
+
+        long now = System.currentTimeMillis();
+        Memo recent = memo.get(token.id());
+        if (recent != null && now - recent.checkedAt() < memoTtlMillis) {
+            memoized.increment();
+            return recent.revoked();
+        }
+
+        long generation = revocations.get();
+        confirmed.increment();
+        try {
+            boolean revoked = Boolean.TRUE.equals(redisTemplate.hasKey(REVOKED_PREFIX + token.id()));
+            remember(token.id(), revoked, now, generation);
+            return revoked;
+        } catch (Exception e) {
+            logger.error("Failed to check token revocation: {}", e.getMessage());
+            // SECURITY: Fail closed for tokens the filter flagged; failing closed for everyone
+            // would let a Redis outage log out every user
+            return flagged;
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        add(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reload the filter from the Redis index, dropping entries whose tokens have all expired.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.rebuild-interval:5m}",
+               initialDelayString = "${jwt.revocation.rebuild-interval:5m}")
+    public void rebuild() {
+        BloomFilter next = new BloomFilter(expectedEntries, falsePositiveRate);
+        // Revocations published while the index is read are added here too
+        building = next;
+        try {
+            long now = System.currentTimeMillis();
+            redisTemplate.opsForZSet().removeRangeByScore(INDEX_KEY, Double.NEGATIVE_INFINITY, now);
+            Set<String> entries = redisTemplate.opsForZSet().rangeByScore(INDEX_KEY, now, Double.POSITIVE_INFINITY);
+            if (entries != null) {
+                entries.forEach(next::add);
+            }
+            filter = next;
+            loaded = true;
+            logger.debug("Revocation filter rebuilt with {} entries", entries != null ? entries.size() : 0);
+        } catch (Exception e) {
+            logger.warn("Failed to rebuild revocation filter, keeping the current one: {}", e.getMessage());
+        } finally {
+            building = null;
+        }
+    }
+
+    private void publish(String entry, String key, String value, long ttlMillis) {
+        add(entry);
+        try {
+            redisTemplate.opsForValue().set(key, value, Duration.ofMillis(ttlMillis));
+            redisTemplate.opsForZSet().add(INDEX_KEY, entry, System.currentTimeMillis() + ttlMillis);
+            redisTemplate.convertAndSend(CHANNEL, entry);
+        } catch (Exception e) {
+            logger.error("Failed to store token revocation: {}", e.getMessage());
+            // SECURITY: Only this node knows about the revocation now
+            logger.error("SECURITY ALERT: Token revocation failed - manual intervention required");
+        }
+    }
+
+    private void remember(String tokenId, boolean revoked, long now, long generation) {
+        if (memo.size() >= MAX_MEMO_ENTRIES) {
+            memo.clear();
+        }
+        memo.put(tokenId, new Memo(revoked, now));
+        // A revocation that arrived during the lookup may not be in the answer
+        if (revocations.get() != generation) {
+            memo.remove(tokenId);
+        }
+    }
+
+    private void add(String entry) {
+        // A new revocation may contradict a memoized "not revoked"
+        revocations.incrementAndGet();
+        memo.clear();
+        filter.add(entry);
+        BloomFilter next = building;
+        if (next != null) {
+            next.add(entry);
+        }
+    }
+
+    private record Memo(boolean revoked, long checkedAt) { }
+}
@@ -0,0 +1,162 @@
+package io.xquti.mdb.config.security;
+
+import io.xquti.mdb.event.TokenVersionChangedEvent;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Current token version of users whose version has ever been bumped.
+ *
+ * Access tokens carry the user's {@code token_version} so the hot path can
+ * trust their id and roles without loading the user. When roles change, the
+ * user logs out everywhere or is deleted, the version is bumped, and tokens
+ * carrying an older one are rejected. Only recently bumped users are tracked:
+ * the versions live in a Redis hash, every node keeps a copy that pub/sub
+ * keeps current, and a user absent from it has no token older than their
+ * version. A bump is forgotten once the longest-lived token issued before it
+ * has expired.
+ */
+@Service
+public class TokenVersionService implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenVersionService.class);
+    private static final String VERSIONS_KEY = "jwt:user-versions";
+    private static final String CHANNEL = "jwt:user-versions:changed";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final RedisScript<Long> pruneScript;
+    private final long maxTokenLifetimeMillis;
+    private final Map<Long, Version> versions = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TokenVersionService(RedisTemplate<String, String> redisTemplate,
+                               RedisMessageListenerContainer listenerContainer,
+                               @Value("${jwt.refresh-expiration:604800000}") long refreshExpiration) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.maxTokenLifetimeMillis = refreshExpiration;
+
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setLocation(new ClassPathResource("scripts/hdel-if-unchanged.lua"));
+        script.setResultType(Long.class);
+        this.pruneScript = script;
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        reload();
+    }
+
+    /**
+     * @return true if a token carrying {@code tokenVersion} was issued before the user's latest bump
+     */
+    public boolean isStale(long userId, long tokenVersion) {
+        Version current = versions.get(userId);
+        return current != null && tokenVersion < current.version();
+    }
+
+    /**
+     * Announce a user's new version to every node, once the bump is committed.
+     * Publishing a version that then rolled back would lock the user out.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onVersionChanged(TokenVersionChangedEvent event) {
+        long userId = event.userId();
+        long version = event.version();
+        // Every token issued before the bump has expired by then
+        long expiresAt = System.currentTimeMillis() + maxTokenLifetimeMillis;
+        apply(userId, new Version(version, expiresAt));
+        try {
+            redisTemplate.opsForHash().put(VERSIONS_KEY, Long.toString(userId), version + ":" + expiresAt);
+            redisTemplate.convertAndSend(CHANNEL, userId + ":" + version);
+        } catch (Exception e) {
+            logger.error("Failed to publish token version {} for user {}: {}", version, userId, e.getMessage());
+            // SECURITY: Other nodes keep accepting the old tokens until the next reload
+            logger.error("SECURITY ALERT: Token version change not propagated - manual intervention required");
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(':');
+        try {
+            apply(Long.parseLong(body.substring(0, separator)),
+                new Version(Long.parseLong(body.substring(separator + 1)),
+                    System.currentTimeMillis() + maxTokenLifetimeMillis));
+        } catch (RuntimeException e) {
+            logger.warn("Ignoring malformed token version message: {}", body);
+        }
+    }
+
+    /**
+     * Re-read every version from Redis, picking up any change whose message was missed,
+     * and forget bumps that no unexpired token can predate.
+     */
+    @Scheduled(fixedDelayString = "${jwt.versions.reload-interval:5m}",
+               initialDelayString = "${jwt.versions.reload-interval:5m}")
+    public void reload() {
+        long now = System.currentTimeMillis();
+        versions.values().removeIf(version -> version.expiresAt() <= now);
+        try {
+            Map<Object, Object> stored = redisTemplate.opsForHash().entries(VERSIONS_KEY);
+            List<String> expired = new ArrayList<>();
+            stored.forEach((userId, value) -> {
+                String field = userId.toString();
+                String entry = value.toString();
+                int separator = entry.indexOf(':');
+                Version version = new Version(Long.parseLong(entry.substring(0, separator)),
+                    Long.parseLong(entry.substring(separator + 1)));
+                if (version.expiresAt() <= now) {
+                    expired.add(field);
+                    expired.add(entry);
+                } else {
+                    apply(Long.parseLong(field), version);
+                }
+            });
+            if (!expired.isEmpty()) {
+                // A user bumped again since the read keeps the new entry
+                redisTemplate.execute(pruneScript, List.of(VERSIONS_KEY), expired.toArray());
+            }
+            logger.debug("Loaded token versions for {} users, pruned {}", stored.size() - expired.size() / 2,
+                expired.size() / 2);
+        } catch (Exception e) {
+            logger.warn("Failed to load token versions, keeping the current ones: {}", e.getMessage());
+        }
+    }
+
+    private void apply(long userId, Version version) {
+        // Versions only move forward, so late or replayed messages are harmless
+        versions.merge(userId, version, (current, next) ->
+            next.version() > current.version()
+                || next.version() == current.version() && next.expiresAt() > current.expiresAt() ? next : current);
+    }
+
+    /**
+     * A user's token version and when the last token issued before it expires.
+     */
+    private record Version(long version, long expiresAt) { }
+}
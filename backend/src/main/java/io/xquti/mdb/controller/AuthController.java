@@ -1,9 +1,12 @@
 package io.xquti.mdb.controller;
 
 import io.xquti.mdb.dto.UserDto;
+import io.xquti.mdb.model.User;
 import io.xquti.mdb.service.JwtService;
+import io.xquti.mdb.service.UserService;
+import io.xquti.mdb.service.ValidatedToken;
 import io.xquti.mdb.util.AuthUtils;
-import io.xquti.mdb.config.security.TokenBlacklistService;
+import io.xquti.mdb.config.security.TokenRevocationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -27,7 +30,10 @@ public class AuthController {
     private JwtService jwtService;
     
     @Autowired
-    private TokenBlacklistService tokenBlacklistService;
+    private TokenRevocationService tokenRevocationService;
+    
+    @Autowired
+    private UserService userService;
 
     @GetMapping("/me")
     public ResponseEntity<UserDto> getCurrentUser(@RequestHeader(value = "Authorization", required = false) String authHeader) {
@@ -50,29 +56,28 @@ public class AuthController {
             jakarta.servlet.http.HttpServletRequest request) {
         logger.info("User logout requested");
         
-        // SECURITY: Blacklist both access and refresh tokens
+        // SECURITY: Revoke both access and refresh tokens
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            String token = authHeader.substring(7);
-            try {
-                java.time.Instant expiration = jwtService.extractExpiration(token).toInstant();
-                tokenBlacklistService.blacklistToken(token, expiration);
-                logger.info("JWT access token blacklisted successfully");
-            } catch (Exception e) {
-                logger.warn("Failed to blacklist access token during logout: {}", e.getMessage());
+            ValidatedToken token = authUtils.getToken(authHeader);
+            if (token != null) {
+                tokenRevocationService.revoke(token);
+                logger.info("JWT access token revoked successfully");
+            } else {
+                logger.warn("Failed to revoke access token during logout: token is not valid");
             }
         }
         
-        // SECURITY: Also check for token in cookies and blacklist
+        // SECURITY: Also check for token in cookies and revoke
         jakarta.servlet.http.Cookie[] cookies = request.getCookies();
         if (cookies != null) {
             for (jakarta.servlet.http.Cookie cookie : cookies) {
                 if ("auth_token".equals(cookie.getName()) || "refresh_token".equals(cookie.getName())) {
                     try {
-                        java.time.Instant expiration = jwtService.extractExpiration(cookie.getValue()).toInstant();
-                        tokenBlacklistService.blacklistToken(cookie.getValue(), expiration);
-                        logger.info("JWT {} blacklisted successfully", cookie.getName());
+                        ValidatedToken token = jwtService.validate(cookie.getValue());
+                        tokenRevocationService.revoke(token);
+                        logger.info("JWT {} revoked successfully", cookie.getName());
                     } catch (Exception e) {
-                        logger.warn("Failed to blacklist {} during logout: {}", cookie.getName(), e.getMessage());
+                        logger.warn("Failed to revoke {} during logout: {}", cookie.getName(), e.getMessage());
                     }
                 }
             }
@@ -89,6 +94,31 @@ public class AuthController {
         return ResponseEntity.ok(responseBody);
     }
     
+    /**
+     * Log out from every session. Tokens issued to the user so far stop being
+     * accepted on every replica; the ones sent with this request are also
+     * revoked and their cookies cleared.
+     */
+    @PostMapping("/logout-all")
+    public ResponseEntity<Map<String, String>> logoutAll(
+            @RequestHeader(value = "Authorization", required = false) String authHeader,
+            HttpServletResponse response,
+            jakarta.servlet.http.HttpServletRequest request) {
+        logger.info("Logout from all sessions requested");
+        
+        Long userId = authUtils.getCurrentUserId(authHeader);
+        if (userId == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "Authentication required"));
+        }
+        
+        userService.retireTokens(userId);
+        // Tokens issued before version claims are not retired by the bump; revoke the ones presented here
+        logout(authHeader, response, request);
+        
+        logger.info("Logged out from all sessions for user: {}", userId);
+        return ResponseEntity.ok(Map.of("message", "Logged out from all sessions"));
+    }
+    
     @PostMapping("/refresh")
     public ResponseEntity<Map<String, String>> refreshToken(
             jakarta.servlet.http.HttpServletRequest request,
@@ -114,10 +144,12 @@ public class AuthController {
         
         try {
             // SECURITY: Validate refresh token
-            String username = jwtService.extractUsername(refreshToken);
-            if (jwtService.validateToken(refreshToken, username)) {
-                // SECURITY: Generate new access token
-                String newAccessToken = jwtService.generateToken(username, false);
+            ValidatedToken token = validateQuietly(refreshToken);
+            User user = token != null ? userService.findByUsername(token.subject()).orElse(null) : null;
+            if (user != null) {
+                String username = user.getUsername();
+                // SECURITY: Generate new access token with the user's current id, roles and token version
+                String newAccessToken = jwtService.generateToken(user, false);
                 
                 // SECURITY: Set new access token in cookie
                 response.addHeader("Set-Cookie", 
@@ -135,4 +167,12 @@ public class AuthController {
             return ResponseEntity.status(401).body(Map.of("error", "Token refresh failed"));
         }
     }
+    
+    private ValidatedToken validateQuietly(String token) {
+        try {
+            return jwtService.validate(token);
+        } catch (io.jsonwebtoken.JwtException e) {
+            return null;
+        }
+    }
 }
\ No newline at end of file
@@ -7,9 +7,10 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.xquti.mdb.dto.ForumPostDto;
 import io.xquti.mdb.dto.ForumThreadDto;
-import io.xquti.mdb.dto.UserDto;
 import io.xquti.mdb.service.ForumService;
+import io.xquti.mdb.service.PresenceService;
 import io.xquti.mdb.util.AuthUtils;
+import io.xquti.mdb.websocket.TopicReplayBuffer;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -22,6 +23,8 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/forums")
 @Tag(name = "Forum", description = "Forum management API for threads and posts")
@@ -35,6 +38,12 @@ public class ForumController {
     @Autowired
     private AuthUtils authUtils;
 
+    @Autowired
+    private PresenceService presenceService;
+
+    @Autowired
+    private TopicReplayBuffer replayBuffer;
+
     @GetMapping("/threads")
     @Operation(summary = "Get all forum threads with pagination and optional category filtering")
     @ApiResponses(value = {
@@ -68,15 +77,15 @@ public class ForumController {
         
         logger.debug("Creating new forum thread: {}", request.getTitle());
         
-        UserDto user = authUtils.getCurrentUser(authHeader);
-        if (user == null) {
+        Long userId = authUtils.getCurrentUserId(authHeader);
+        if (userId == null) {
             logger.warn("Unauthorized attempt to create forum thread");
             return ResponseEntity.status(401).build();
         }
         
-        ForumThreadDto thread = forumService.createThread(request.getTitle(), request.getContent(), user.id());
+        ForumThreadDto thread = forumService.createThread(request.getTitle(), request.getContent(), userId);
         
-        logger.info("Created forum thread with ID: {} by user: {}", thread.getId(), user.email());
+        logger.info("Created forum thread with ID: {} by user: {}", thread.getId(), userId);
         return ResponseEntity.ok(thread);
     }
 
@@ -93,6 +102,51 @@ public class ForumController {
         return ResponseEntity.ok(thread);
     }
 
+    @GetMapping("/threads/{threadId}/related")
+    @Operation(summary = "Get threads similar to a specific forum thread")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved related threads"),
+        @ApiResponse(responseCode = "404", description = "Thread not found")
+    })
+    public ResponseEntity<List<ForumThreadDto>> getRelatedThreads(
+            @Parameter(description = "Thread ID") @PathVariable Long threadId) {
+        
+        logger.debug("Getting related threads for thread: {}", threadId);
+        
+        List<ForumThreadDto> related = forumService.getRelatedThreads(threadId);
+        
+        logger.debug("Retrieved {} related threads for thread: {}", related.size(), threadId);
+        return ResponseEntity.ok(related);
+    }
+
+    @GetMapping("/threads/{threadId}/presence")
+    @Operation(summary = "Get the users currently viewing and typing in a forum thread")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Successfully retrieved thread presence")
+    })
+    public ResponseEntity<PresenceService.PresenceSnapshot> getThreadPresence(
+            @Parameter(description = "Thread ID") @PathVariable Long threadId) {
+        
+        logger.debug("Getting presence for thread: {}", threadId);
+        
+        return ResponseEntity.ok(presenceService.getPresence(threadId));
+    }
+
+    @GetMapping("/threads/{threadId}/events")
+    @Operation(summary = "Get the real-time frames a reconnecting client missed on a thread topic")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Frames after the given sequence; complete=false means reload the thread")
+    })
+    public ResponseEntity<TopicReplayBuffer.Replay> getThreadEvents(
+            @Parameter(description = "Thread ID") @PathVariable Long threadId,
+            @Parameter(description = "Last sequence number the client received") @RequestParam(defaultValue = "0") long after) {
+        
+        TopicReplayBuffer.Replay replay = replayBuffer.replay("/topic/forum/thread/" + threadId, after);
+        
+        logger.debug("Replaying {} frames for thread: {} after seq: {}", replay.events().size(), threadId, after);
+        return ResponseEntity.ok(replay);
+    }
+
     @GetMapping("/threads/{threadId}/posts")
     @Operation(summary = "Get all posts in a specific forum thread")
     @ApiResponses(value = {
@@ -133,19 +187,19 @@ public class ForumController {
         
         logger.debug("Creating post in thread: {}", threadId);
         
-        UserDto user = authUtils.getCurrentUser(authHeader);
-        if (user == null) {
+        Long userId = authUtils.getCurrentUserId(authHeader);
+        if (userId == null) {
             logger.warn("Unauthorized attempt to create forum post");
             return ResponseEntity.status(401).build();
         }
         
-        ForumPostDto post = forumService.createPost(threadId, request.getContent(), user.id());
+        ForumPostDto post = forumService.createPost(threadId, request.getContent(), userId);
         if (post == null) {
             logger.warn("Failed to create post - thread not found or locked: {}", threadId);
             return ResponseEntity.badRequest().build();
         }
         
-        logger.info("Created forum post in thread: {} by user: {}", threadId, user.email());
+        logger.info("Created forum post in thread: {} by user: {}", threadId, userId);
         return ResponseEntity.ok(post);
     }
 
@@ -0,0 +1,75 @@
+package io.xquti.mdb.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import io.xquti.mdb.websocket.SseStreamHub;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+/**
+ * Server-sent event streams for readers that only consume forum updates.
+ */
+@RestController
+@RequestMapping("/api/forums")
+@Tag(name = "Forum Streams", description = "Read-only server-sent event streams of forum updates")
+public class ForumStreamController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ForumStreamController.class);
+
+    @Autowired
+    private SseStreamHub sseStreamHub;
+
+    @GetMapping(value = "/threads/{threadId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream new posts in a forum thread")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Event stream opened"),
+        @ApiResponse(responseCode = "503", description = "Stream limit reached on this node")
+    })
+    public ResponseEntity<SseEmitter> streamThread(
+            @Parameter(description = "Thread ID") @PathVariable Long threadId,
+            @Parameter(description = "Id of the last event received, to resume") @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        
+        logger.debug("Opening event stream for thread: {} (resume from: {})", threadId, lastEventId);
+        
+        return open(List.of("/topic/forum/thread/" + threadId), lastEventId);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream new threads and posts across the forum")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Event stream opened"),
+        @ApiResponse(responseCode = "503", description = "Stream limit reached on this node")
+    })
+    public ResponseEntity<SseEmitter> streamForum(
+            @Parameter(description = "Id of the last event received, to resume") @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        
+        logger.debug("Opening global forum event stream (resume from: {})", lastEventId);
+        
+        return open(List.of("/topic/forum/threads", "/topic/forum/posts"), lastEventId);
+    }
+
+    private ResponseEntity<SseEmitter> open(List<String> destinations, String lastEventId) {
+        SseEmitter emitter = sseStreamHub.open(destinations, lastEventId);
+        if (emitter == null) {
+            logger.warn("Rejected event stream: stream limit reached");
+            return ResponseEntity.status(503).build();
+        }
+        return ResponseEntity.ok()
+            .header("X-Accel-Buffering", "no") // Let reverse proxies flush events immediately
+            .body(emitter);
+    }
+}
\ No newline at end of file
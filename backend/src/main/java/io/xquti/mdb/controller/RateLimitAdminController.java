@@ -0,0 +1,83 @@
+package io.xquti.mdb.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import io.xquti.mdb.ratelimit.RateLimitRule;
+import io.xquti.mdb.ratelimit.RateLimitRules;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runtime tuning of the rate-limit table (ADMIN only, see SecurityConfig).
+ */
+@RestController
+@RequestMapping("/api/admin/rate-limits")
+@Tag(name = "Rate Limits", description = "Inspect and replace the rate-limit rule table")
+public class RateLimitAdminController {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitAdminController.class);
+
+    @Autowired
+    private RateLimitRules rateLimitRules;
+
+    @GetMapping
+    @Operation(summary = "Get the active rate-limit rules")
+    public ResponseEntity<RuleTable> getRules() {
+        return ResponseEntity.ok(new RuleTable(rateLimitRules.isOverridden(), rateLimitRules.getRules()));
+    }
+
+    @PutMapping
+    @Operation(summary = "Replace the rate-limit rules on every replica")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Rules replaced"),
+        @ApiResponse(responseCode = "400", description = "Rules are invalid; nothing was changed")
+    })
+    public ResponseEntity<?> replaceRules(@RequestBody List<RateLimitRule> rules) {
+        try {
+            rateLimitRules.replace(rules);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected rate-limit table: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Failed to store rate-limit table: {}", e.getMessage());
+            return ResponseEntity.internalServerError().build();
+        }
+        return ResponseEntity.ok(new RuleTable(true, rateLimitRules.getRules()));
+    }
+
+    @DeleteMapping
+    @Operation(summary = "Return every replica to the configured default rules")
+    public ResponseEntity<RuleTable> resetRules() {
+        rateLimitRules.reset();
+        return ResponseEntity.ok(new RuleTable(false, rateLimitRules.getRules()));
+    }
+
+    /**
+     * Rules are checked as they are read, so an invalid row fails while the body is parsed.
+     */
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<Map<String, String>> handleUnreadableRules(HttpMessageNotReadableException e) {
+        Throwable cause = e.getMostSpecificCause();
+        logger.warn("Rejected rate-limit table: {}", cause.getMessage());
+        String error = cause instanceof IllegalArgumentException ? cause.getMessage() : "Malformed rate-limit table";
+        return ResponseEntity.badRequest().body(Map.of("error", error));
+    }
+
+    public record RuleTable(boolean overridden, List<RateLimitRule> rules) {
+    }
+}
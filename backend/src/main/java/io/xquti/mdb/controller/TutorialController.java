@@ -2,6 +2,7 @@ package io.xquti.mdb.controller;
 
 import io.xquti.mdb.dto.TutorialLessonDto;
 import io.xquti.mdb.dto.TutorialModuleDto;
+import io.xquti.mdb.search.CodeSymbolIndex;
 import io.xquti.mdb.service.TutorialService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -70,4 +71,14 @@ public class TutorialController {
         
         return ResponseEntity.ok(lesson);
     }
+
+    @GetMapping("/symbols/{symbol}")
+    public ResponseEntity<List<CodeSymbolIndex.SymbolPosting>> findSymbolUsages(@PathVariable String symbol) {
+        logger.debug("Finding lessons using code symbol: {}", symbol);
+        
+        List<CodeSymbolIndex.SymbolPosting> usages = tutorialService.findSymbolUsages(symbol);
+        
+        logger.debug("Found {} usages of code symbol: {}", usages.size(), symbol);
+        return ResponseEntity.ok(usages);
+    }
 }
\ No newline at end of file
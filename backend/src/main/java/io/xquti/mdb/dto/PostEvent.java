@@ -0,0 +1,45 @@
+package io.xquti.mdb.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+
+/**
+ * Compact real-time event for a new forum post.
+ * Carries only the author's id and handle; the fuller {@link AuthorProfile}
+ * travels in a frame header and is sent to each session once per author.
+ */
+public record PostEvent(
+    Long id,
+    Long threadId,
+    Long authorId,
+    String author,
+    String content,
+    LocalDateTime createdAt,
+    LocalDateTime updatedAt,
+    @JsonIgnore AuthorProfile profile
+) {
+
+    public static PostEvent from(ForumPostDto post) {
+        UserDto user = post.getAuthor();
+        AuthorProfile profile = user != null
+            ? new AuthorProfile(user.id(), user.username(), user.avatarUrl())
+            : null;
+        return new PostEvent(
+            post.getId(),
+            post.getThreadId(),
+            profile != null ? profile.id() : null,
+            profile != null ? profile.username() : null,
+            post.getContent(),
+            post.getCreatedAt(),
+            post.getUpdatedAt(),
+            profile
+        );
+    }
+
+    /**
+     * Public author details shown next to a post; no email, roles or provider.
+     */
+    public record AuthorProfile(Long id, String username, String avatarUrl) {
+    }
+}
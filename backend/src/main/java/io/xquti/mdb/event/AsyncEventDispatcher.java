@@ -0,0 +1,122 @@
+package io.xquti.mdb.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs side effects of forum events off the request path.
+ *
+ * Each consumer (search indexing, recommendations, WebSocket fan-out) gets
+ * its own executor with a bounded queue and virtual worker threads, so a
+ * slow consumer cannot hold up the others. When a consumer's queue is full
+ * the task runs on the publishing thread instead, which slows producers down
+ * rather than growing the backlog. Per consumer, the dispatcher records task
+ * latency, failures, caller-runs events and queue depth.
+ */
+@Component
+public class AsyncEventDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncEventDispatcher.class);
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Consumer> consumers = new ConcurrentHashMap<>();
+
+    @Value("${app.events.concurrency:4}")
+    private int concurrency;
+
+    @Value("${app.events.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Autowired
+    public AsyncEventDispatcher(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Run {@code task} on the named consumer's executor.
+     */
+    public void dispatch(String consumer, Runnable task) {
+        consumers.computeIfAbsent(consumer, this::createConsumer).submit(task);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (Consumer consumer : consumers.values()) {
+            consumer.executor.shutdown();
+        }
+        for (Consumer consumer : consumers.values()) {
+            consumer.executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private Consumer createConsumer(String name) {
+        Consumer consumer = new Consumer(name);
+        Gauge.builder("mdb.events.queue.depth", consumer.executor, executor -> executor.getQueue().size())
+            .tag("consumer", name)
+            .description("Forum event tasks waiting for a worker")
+            .register(meterRegistry);
+        return consumer;
+    }
+
+    private final class Consumer {
+        private final String name;
+        private final ThreadPoolExecutor executor;
+        private final Timer latency;
+        private final Counter failures;
+        private final Counter callerRuns;
+
+        Consumer(String name) {
+            this.name = name;
+            this.latency = Timer.builder("mdb.events.handled")
+                .tag("consumer", name)
+                .description("Time to handle a forum event, including queueing")
+                .register(meterRegistry);
+            this.failures = Counter.builder("mdb.events.failed")
+                .tag("consumer", name)
+                .description("Forum event handlers that threw")
+                .register(meterRegistry);
+            this.callerRuns = Counter.builder("mdb.events.backpressure")
+                .tag("consumer", name)
+                .description("Forum event tasks run on the publishing thread because the queue was full")
+                .register(meterRegistry);
+            this.executor = new ThreadPoolExecutor(
+                concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofVirtual().name("events-" + name + "-", 0).factory(),
+                (task, pool) -> {
+                    callerRuns.increment();
+                    if (!pool.isShutdown()) {
+                        task.run();
+                    }
+                });
+        }
+
+        void submit(Runnable task) {
+            long queuedAt = System.nanoTime();
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    failures.increment();
+                    logger.warn("Forum event consumer {} failed: {}", name, e.getMessage());
+                } finally {
+                    latency.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                }
+            });
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,57 @@
+package io.xquti.mdb.event;
+
+import io.xquti.mdb.search.RelatedThreadsService;
+import io.xquti.mdb.search.SearchService;
+import io.xquti.mdb.websocket.ForumWebSocketController;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Fans committed forum changes out to search, recommendations and WebSocket
+ * subscribers. Nothing runs for a transaction that rolls back, and none of
+ * it runs on the request thread unless a consumer is saturated.
+ */
+@Component
+public class ForumEventListener {
+
+    static final String SEARCH = "search";
+    static final String RELATED = "related";
+    static final String WEBSOCKET = "websocket";
+
+    private final AsyncEventDispatcher dispatcher;
+    private final SearchService searchService;
+    private final RelatedThreadsService relatedThreadsService;
+    private final ForumWebSocketController webSocketController;
+
+    @Autowired
+    public ForumEventListener(AsyncEventDispatcher dispatcher,
+                              SearchService searchService,
+                              RelatedThreadsService relatedThreadsService,
+                              ForumWebSocketController webSocketController) {
+        this.dispatcher = dispatcher;
+        this.searchService = searchService;
+        this.relatedThreadsService = relatedThreadsService;
+        this.webSocketController = webSocketController;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onThreadCreated(ThreadCreatedEvent event) {
+        dispatcher.dispatch(SEARCH, () -> searchService.indexThread(event.thread()));
+        dispatcher.dispatch(RELATED, () -> relatedThreadsService.threadSaved(event.thread()));
+        dispatcher.dispatch(WEBSOCKET, () -> webSocketController.broadcastNewThread(event.dto()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPostCreated(PostCreatedEvent event) {
+        dispatcher.dispatch(SEARCH, () -> searchService.indexPost(event.post()));
+        dispatcher.dispatch(RELATED, () -> relatedThreadsService.postSaved(event.post()));
+        dispatcher.dispatch(WEBSOCKET, () -> webSocketController.broadcastNewPost(event.dto()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onThreadDeleted(ThreadDeletedEvent event) {
+        dispatcher.dispatch(RELATED, () -> relatedThreadsService.threadDeleted(event.threadId()));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,7 @@
+package io.xquti.mdb.event;
+
+/**
+ * Published when a tutorial lesson is deleted; handled after the transaction commits.
+ */
+public record LessonDeletedEvent(Long lessonId) {
+}
@@ -0,0 +1,9 @@
+package io.xquti.mdb.event;
+
+import io.xquti.mdb.model.TutorialLesson;
+
+/**
+ * Published when a tutorial lesson is created or updated; handled after the transaction commits.
+ */
+public record LessonSavedEvent(TutorialLesson lesson) {
+}
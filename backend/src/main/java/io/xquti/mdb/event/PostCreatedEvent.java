@@ -0,0 +1,10 @@
+package io.xquti.mdb.event;
+
+import io.xquti.mdb.dto.ForumPostDto;
+import io.xquti.mdb.model.ForumPost;
+
+/**
+ * Published when a forum post is saved; handled after the transaction commits.
+ */
+public record PostCreatedEvent(ForumPost post, ForumPostDto dto) {
+}
\ No newline at end of file
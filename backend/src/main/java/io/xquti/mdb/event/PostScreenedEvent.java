@@ -0,0 +1,8 @@
+package io.xquti.mdb.event;
+
+/**
+ * Published when a new post passes duplicate screening and is remembered;
+ * if the transaction rolls back, the post is forgotten again.
+ */
+public record PostScreenedEvent(Long threadId, Long userId, String entry) {
+}
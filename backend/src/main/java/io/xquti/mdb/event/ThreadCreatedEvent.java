@@ -0,0 +1,10 @@
+package io.xquti.mdb.event;
+
+import io.xquti.mdb.dto.ForumThreadDto;
+import io.xquti.mdb.model.ForumThread;
+
+/**
+ * Published when a forum thread is saved; handled after the transaction commits.
+ */
+public record ThreadCreatedEvent(ForumThread thread, ForumThreadDto dto) {
+}
\ No newline at end of file
@@ -0,0 +1,7 @@
+package io.xquti.mdb.event;
+
+/**
+ * Published when a forum thread is deleted; handled after the transaction commits.
+ */
+public record ThreadDeletedEvent(Long threadId) {
+}
\ No newline at end of file
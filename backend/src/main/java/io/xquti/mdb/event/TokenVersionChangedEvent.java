@@ -0,0 +1,7 @@
+package io.xquti.mdb.event;
+
+/**
+ * Published when a user's token version is bumped; handled after the transaction commits.
+ */
+public record TokenVersionChangedEvent(Long userId, long version) {
+}
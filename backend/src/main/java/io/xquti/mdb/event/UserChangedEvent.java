@@ -0,0 +1,7 @@
+package io.xquti.mdb.event;
+
+/**
+ * Published when a user is created, updated or deleted; handled after the transaction commits.
+ */
+public record UserChangedEvent(Long userId) {
+}
@@ -0,0 +1,12 @@
+package io.xquti.mdb.exception;
+
+public class DuplicatePostException extends RuntimeException {
+    
+    public DuplicatePostException(String message) {
+        super(message);
+    }
+    
+    public DuplicatePostException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
\ No newline at end of file
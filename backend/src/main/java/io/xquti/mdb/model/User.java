@@ -41,6 +41,10 @@ public class User {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Embedded in access tokens; bumping it invalidates every token issued before
+    @Column(name = "token_version", nullable = false)
+    private long tokenVersion;
+    
     public enum Role {
         USER, ADMIN
     }
@@ -132,6 +136,14 @@ public class User {
         this.updatedAt = updatedAt;
     }
     
+    public long getTokenVersion() {
+        return tokenVersion;
+    }
+    
+    public void setTokenVersion(long tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
+    
     @PreUpdate
     public void preUpdate() {
         this.updatedAt = LocalDateTime.now();
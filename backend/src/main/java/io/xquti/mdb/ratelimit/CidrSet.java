@@ -0,0 +1,131 @@
+package io.xquti.mdb.ratelimit;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable set of IPv4/IPv6 networks, answered by a binary prefix trie.
+ *
+ * Built once from CIDR strings ({@code 10.0.0.0/8}, {@code fd00::/8}, or a
+ * bare address for a single host). Nodes live in flat int arrays, so a lookup
+ * walks at most 128 bits without allocating. IPv4 networks are stored in the
+ * IPv4-mapped range, matching {@link IpAddresses}.
+ */
+final class CidrSet {
+
+    private static final CidrSet EMPTY = new CidrSet();
+
+    // Node 0 is the root; a child index of 0 means "no child"
+    private int[] zero = new int[16];
+    private int[] one = new int[16];
+    private boolean[] terminal = new boolean[16];
+    private int nodes = 1;
+
+    private CidrSet() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if an entry is not a valid address or network
+     */
+    static CidrSet of(List<String> cidrs) {
+        if (cidrs.isEmpty()) {
+            return EMPTY;
+        }
+        CidrSet set = new CidrSet();
+        long[] address = new long[2];
+        for (String cidr : cidrs) {
+            set.add(cidr.trim(), address);
+        }
+        return set;
+    }
+
+    /**
+     * Parse a comma-separated list, ignoring blank entries.
+     */
+    static CidrSet parse(String commaSeparated) {
+        if (commaSeparated == null || commaSeparated.isBlank()) {
+            return EMPTY;
+        }
+        return of(Arrays.stream(commaSeparated.split(",")).filter(entry -> !entry.isBlank()).toList());
+    }
+
+    boolean isEmpty() {
+        return nodes == 1 && !terminal[0];
+    }
+
+    boolean contains(long hi, long lo) {
+        int node = 0;
+        for (int bit = 0; bit < 128; bit++) {
+            if (terminal[node]) {
+                return true;
+            }
+            node = bitAt(hi, lo, bit) == 0 ? zero[node] : one[node];
+            if (node == 0) {
+                return false;
+            }
+        }
+        return terminal[node];
+    }
+
+    /**
+     * Parse and look up {@code text[from, to)}; false for anything that is not a valid address.
+     */
+    boolean contains(CharSequence text, int from, int to, long[] scratch) {
+        return IpAddresses.parse(text, from, to, scratch) && contains(scratch[0], scratch[1]);
+    }
+
+    private void add(String cidr, long[] address) {
+        int slash = cidr.indexOf('/');
+        int end = slash < 0 ? cidr.length() : slash;
+        if (!IpAddresses.parse(cidr, 0, end, address)) {
+            throw new IllegalArgumentException("Invalid network address: " + cidr);
+        }
+        boolean ipv4 = cidr.indexOf(':') < 0;
+        int maxPrefix = ipv4 ? 32 : 128;
+        int prefix;
+        try {
+            prefix = slash < 0 ? maxPrefix : Integer.parseInt(cidr.substring(slash + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid network prefix: " + cidr);
+        }
+        if (prefix < 0 || prefix > maxPrefix) {
+            throw new IllegalArgumentException("Invalid network prefix: " + cidr);
+        }
+        insert(address[0], address[1], ipv4 ? prefix + 96 : prefix);
+    }
+
+    private void insert(long hi, long lo, int prefix) {
+        int node = 0;
+        for (int bit = 0; bit < prefix; bit++) {
+            if (terminal[node]) {
+                return; // Already covered by a shorter network
+            }
+            boolean right = bitAt(hi, lo, bit) == 1;
+            int child = right ? one[node] : zero[node];
+            if (child == 0) {
+                child = newNode(); // May grow the arrays, so index them afterwards
+                if (right) {
+                    one[node] = child;
+                } else {
+                    zero[node] = child;
+                }
+            }
+            node = child;
+        }
+        terminal[node] = true;
+    }
+
+    private int newNode() {
+        if (nodes == terminal.length) {
+            int capacity = nodes * 2;
+            zero = Arrays.copyOf(zero, capacity);
+            one = Arrays.copyOf(one, capacity);
+            terminal = Arrays.copyOf(terminal, capacity);
+        }
+        return nodes++;
+    }
+
+    private static int bitAt(long hi, long lo, int bit) {
+        return bit < 64 ? (int) (hi >>> (63 - bit)) & 1 : (int) (lo >>> (127 - bit)) & 1;
+    }
+}
@@ -0,0 +1,79 @@
+package io.xquti.mdb.ratelimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Resolves the client address used as the rate-limit key.
+ *
+ * Proxy headers are only honoured when the direct peer is in the trusted-proxy
+ * set, and only for public addresses, so clients cannot pick their own key.
+ * Both the trusted proxies and the private/reserved ranges are compiled into
+ * {@link CidrSet}s at startup. The per-request path parses addresses in place
+ * into a per-thread scratch buffer, so it does not allocate unless the
+ * forwarded address has to be cut out of a longer header.
+ */
+@Component
+public class ClientIpResolver {
+
+    // SECURITY: Forwarded addresses in these ranges are spoofable and never used as the key
+    private static final CidrSet PRIVATE_OR_RESERVED = CidrSet.of(List.of(
+        "0.0.0.0/32", "10.0.0.0/8", "127.0.0.0/8", "169.254.0.0/16", "172.16.0.0/12", "192.168.0.0/16",
+        "::/128", "::1/128", "fc00::/7", "fe80::/10"));
+
+    private static final ThreadLocal<long[]> SCRATCH = ThreadLocal.withInitial(() -> new long[2]);
+
+    private final CidrSet trustedProxies;
+
+    @Autowired
+    public ClientIpResolver(@Value("${app.rate-limit.trusted-proxies:}") String trustedProxies) {
+        this.trustedProxies = CidrSet.parse(trustedProxies);
+    }
+
+    public String resolve(HttpServletRequest request) {
+        // SECURITY: Get the actual remote address first (most reliable)
+        String remoteAddr = request.getRemoteAddr();
+        if (trustedProxies.isEmpty() || remoteAddr == null) {
+            return remoteAddr;
+        }
+
+        long[] scratch = SCRATCH.get();
+        if (!trustedProxies.contains(remoteAddr, 0, remoteAddr.length(), scratch)) {
+            return remoteAddr;
+        }
+
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        if (forwardedFor != null && !forwardedFor.isEmpty()) {
+            // SECURITY: Take the first address (original client) and validate strictly
+            int end = forwardedFor.indexOf(',');
+            if (end < 0) {
+                end = forwardedFor.length();
+            }
+            int start = 0;
+            while (start < end && Character.isWhitespace(forwardedFor.charAt(start))) {
+                start++;
+            }
+            while (end > start && Character.isWhitespace(forwardedFor.charAt(end - 1))) {
+                end--;
+            }
+            if (isPublicAddress(forwardedFor, start, end, scratch)) {
+                return start == 0 && end == forwardedFor.length() ? forwardedFor : forwardedFor.substring(start, end);
+            }
+        }
+
+        String realIp = request.getHeader("X-Real-IP");
+        if (realIp != null && isPublicAddress(realIp, 0, realIp.length(), scratch)) {
+            return realIp;
+        }
+
+        return remoteAddr;
+    }
+
+    static boolean isPublicAddress(CharSequence text, int from, int to, long[] scratch) {
+        return IpAddresses.parse(text, from, to, scratch) && !PRIVATE_OR_RESERVED.contains(scratch[0], scratch[1]);
+    }
+}
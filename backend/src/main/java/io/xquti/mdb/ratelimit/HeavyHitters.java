@@ -0,0 +1,112 @@
+package io.xquti.mdb.ratelimit;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Approximate top-k counter over an unbounded key stream.
+ *
+ * Counts live in a Count-Min sketch with conservative update, so memory is
+ * fixed however many distinct clients are seen, and estimates only ever
+ * overcount. Alongside it, at most {@code k} candidate keys are tracked with
+ * their latest estimate; a new key replaces the smallest candidate once its
+ * estimate is larger. {@link #decay()} halves everything, so the ranking
+ * follows recent traffic rather than all-time totals.
+ */
+final class HeavyHitters {
+
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    private final int[][] counts;
+    private final int mask;
+    private final int capacity;
+    private final Map<String, Integer> candidates = new HashMap<>();
+
+    /**
+     * @param depth    rows in the sketch; more rows tighten the error bound
+     * @param width    counters per row, rounded up to a power of two
+     * @param capacity number of top keys to keep
+     */
+    HeavyHitters(int depth, int width, int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, width - 1)) << 1;
+        this.counts = new int[depth][size];
+        this.mask = size - 1;
+        this.capacity = capacity;
+    }
+
+    record Entry(String key, long estimate) { }
+
+    /**
+     * Count one occurrence of {@code key}.
+     *
+     * @return the key's estimated count after the update
+     */
+    synchronized int add(String key) {
+        long hash = mix(key.hashCode());
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < counts.length; row++) {
+            min = Math.min(min, counts[row][(h1 + row * h2) & mask]);
+        }
+        // Conservative update: only raise the counters that hold the minimum
+        int estimate = min + 1;
+        for (int row = 0; row < counts.length; row++) {
+            int slot = (h1 + row * h2) & mask;
+            if (counts[row][slot] < estimate) {
+                counts[row][slot] = estimate;
+            }
+        }
+
+        if (candidates.containsKey(key) || candidates.size() < capacity) {
+            candidates.put(key, estimate);
+        } else {
+            Map.Entry<String, Integer> smallest = null;
+            for (Map.Entry<String, Integer> candidate : candidates.entrySet()) {
+                if (smallest == null || candidate.getValue() < smallest.getValue()) {
+                    smallest = candidate;
+                }
+            }
+            if (smallest != null && estimate > smallest.getValue()) {
+                candidates.remove(smallest.getKey());
+                candidates.put(key, estimate);
+            }
+        }
+        return estimate;
+    }
+
+    /**
+     * @return up to {@code limit} keys, highest estimate first
+     */
+    synchronized List<Entry> top(int limit) {
+        List<Entry> entries = new ArrayList<>(candidates.size());
+        candidates.forEach((key, estimate) -> entries.add(new Entry(key, estimate)));
+        entries.sort(Comparator.comparingLong(Entry::estimate).reversed().thenComparing(Entry::key));
+        return List.copyOf(entries.subList(0, Math.min(limit, entries.size())));
+    }
+
+    /**
+     * Halve every count; candidates that reach zero are dropped.
+     */
+    synchronized void decay() {
+        for (int[] row : counts) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>>= 1;
+            }
+        }
+        candidates.replaceAll((key, estimate) -> estimate >>> 1);
+        candidates.values().removeIf(estimate -> estimate == 0);
+    }
+
+    private static long mix(long value) {
+        // SplitMix64 finaliser: spreads String.hashCode() over both halves
+        long z = value * SEED;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,204 @@
+package io.xquti.mdb.ratelimit;
+
+/**
+ * Hand-written IPv4/IPv6 address parsing that does not allocate.
+ *
+ * Addresses are parsed into 128 bits held as two longs; IPv4 addresses become
+ * IPv4-mapped IPv6 addresses ({@code ::ffff:a.b.c.d}) so both families share
+ * one representation. Accepts every RFC 4291 text form: full, {@code ::}
+ * compressed, embedded dotted-quad and a trailing {@code %zone}, which is ignored.
+ */
+final class IpAddresses {
+
+    /** Low 64 bits of {@code ::ffff:0.0.0.0}. */
+    static final long IPV4_MAPPED_LO = 0x0000_ffff_0000_0000L;
+
+    private static final int MAX_LENGTH = 45;
+
+    private IpAddresses() {
+    }
+
+    /**
+     * Parse {@code text[from, to)} into {@code out[0]} (high bits) and {@code out[1]} (low bits).
+     *
+     * @return false if the range is not a valid address; {@code out} is then unspecified
+     */
+    static boolean parse(CharSequence text, int from, int to, long[] out) {
+        if (from >= to) {
+            return false;
+        }
+        int colon = indexOf(text, ':', from, to);
+        if (colon < 0) {
+            if (to - from > 15) {
+                return false;
+            }
+            long ipv4 = parseIpv4(text, from, to);
+            if (ipv4 < 0) {
+                return false;
+            }
+            out[0] = 0L;
+            out[1] = IPV4_MAPPED_LO | ipv4;
+            return true;
+        }
+        int zone = indexOf(text, '%', from, to);
+        if (zone >= 0) {
+            if (zone == to - 1) {
+                return false;
+            }
+            to = zone;
+        }
+        return to - from <= MAX_LENGTH && parseIpv6(text, from, to, out);
+    }
+
+    /**
+     * @return the address as an unsigned 32-bit value, or -1 if invalid
+     */
+    static long parseIpv4(CharSequence text, int from, int to) {
+        long address = 0;
+        int octets = 0;
+        int i = from;
+        while (true) {
+            int value = 0;
+            int digits = 0;
+            while (i < to) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                if (++digits > 3) {
+                    return -1;
+                }
+                value = value * 10 + (c - '0');
+                i++;
+            }
+            if (digits == 0 || value > 255) {
+                return -1;
+            }
+            address = (address << 8) | value;
+            octets++;
+            if (i == to) {
+                return octets == 4 ? address : -1;
+            }
+            if (text.charAt(i) != '.' || octets == 4) {
+                return -1;
+            }
+            i++;
+        }
+    }
+
+    private static boolean parseIpv6(CharSequence text, int from, int to, long[] out) {
+        // Groups before "::" go into head, groups after it into tail
+        long headHi = 0;
+        long headLo = 0;
+        long tailHi = 0;
+        long tailLo = 0;
+        int headGroups = 0;
+        int tailGroups = 0;
+        boolean compressed = false;
+
+        int i = from;
+        if (text.charAt(i) == ':') {
+            if (i + 1 >= to || text.charAt(i + 1) != ':') {
+                return false;
+            }
+            compressed = true;
+            i += 2;
+        }
+
+        while (i < to) {
+            int start = i;
+            int value = 0;
+            int digits = 0;
+            int nibble;
+            while (i < to && (nibble = hexValue(text.charAt(i))) >= 0) {
+                if (++digits > 4) {
+                    return false;
+                }
+                value = (value << 4) | nibble;
+                i++;
+            }
+
+            int groups = 1;
+            long ipv4 = -1;
+            if (i < to && text.charAt(i) == '.') {
+                // Embedded dotted quad, only allowed as the last 32 bits
+                ipv4 = parseIpv4(text, start, to);
+                if (ipv4 < 0) {
+                    return false;
+                }
+                groups = 2;
+                i = to;
+            } else if (digits == 0) {
+                return false;
+            }
+
+            if (headGroups + tailGroups + groups > 8) {
+                return false;
+            }
+            for (int g = groups - 1; g >= 0; g--) {
+                long group = groups == 2 ? (ipv4 >>> (16 * g)) & 0xffff : value;
+                if (compressed) {
+                    tailHi = (tailHi << 16) | (tailLo >>> 48);
+                    tailLo = (tailLo << 16) | group;
+                    tailGroups++;
+                } else {
+                    headHi = (headHi << 16) | (headLo >>> 48);
+                    headLo = (headLo << 16) | group;
+                    headGroups++;
+                }
+            }
+
+            if (i == to) {
+                break;
+            }
+            if (text.charAt(i) != ':') {
+                return false;
+            }
+            i++;
+            if (i < to && text.charAt(i) == ':') {
+                if (compressed) {
+                    return false;
+                }
+                compressed = true;
+                i++;
+            } else if (i == to) {
+                return false; // A single trailing colon
+            }
+        }
+
+        int total = headGroups + tailGroups;
+        if (compressed ? total > 7 : total != 8) {
+            return false;
+        }
+        // Move the head groups to the top; "::" fills the gap with zeros
+        for (int shift = 8 - headGroups; shift > 0; shift--) {
+            headHi = (headHi << 16) | (headLo >>> 48);
+            headLo <<= 16;
+        }
+        out[0] = headHi | tailHi;
+        out[1] = headLo | tailLo;
+        return true;
+    }
+
+    private static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static int indexOf(CharSequence text, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
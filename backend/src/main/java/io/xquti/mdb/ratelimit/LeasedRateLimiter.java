@@ -0,0 +1,260 @@
+package io.xquti.mdb.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Node-local token buckets in front of {@link RedisRateLimiter}.
+ *
+ * A bucket leases a small chunk of a client's cluster-wide quota from Redis
+ * and spends it locally, so a busy client well under its limit is decided in
+ * memory. A client's first request in a while takes only its own token; a
+ * chunk is leased once a second request follows within {@code ttl}, so an
+ * occasional client costs one Redis call and leaves nothing to give back.
+ * The next chunk is fetched in the background when the bucket runs
+ * low. Chunks shrink as the quota Redis reports shrinks; near the limit they
+ * are a single token, so every request there is decided by Redis. A denial is
+ * remembered until the retry time Redis gave.
+ *
+ * Leased tokens are already spent in Redis, so nodes never admit more than the
+ * limit in total; while a lease is outstanding the limit is slightly stricter.
+ * A lease is only good for {@code ttl}; a timer running at the same period
+ * gives unused tokens back, so idle clients do not hold quota and spending an
+ * old lease cannot push a window past the limit by more than one chunk per node.
+ */
+@Component
+public class LeasedRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeasedRateLimiter.class);
+
+    private final RedisRateLimiter redisLimiter;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    // Buckets whose lease has not lapsed yet, including ones already dropped from the map
+    private final Set<Bucket> leased = ConcurrentHashMap.newKeySet();
+    private final ExecutorService refills = Executors.newVirtualThreadPerTaskExecutor();
+    private final Counter localDecisions;
+    private final Counter syncLeases;
+    private final Counter backgroundLeases;
+
+    private final double chunkFraction;
+    private final int maxChunk;
+    private final long ttlMillis;
+    private final int maxBuckets;
+
+    @Autowired
+    public LeasedRateLimiter(RedisRateLimiter redisLimiter,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.rate-limit.lease.chunk-fraction:0.1}") double chunkFraction,
+                             @Value("${app.rate-limit.lease.max-chunk:50}") int maxChunk,
+                             @Value("${app.rate-limit.lease.ttl:1s}") Duration ttl,
+                             @Value("${app.rate-limit.lease.max-buckets:100000}") int maxBuckets) {
+        this.redisLimiter = redisLimiter;
+        this.chunkFraction = chunkFraction;
+        this.maxChunk = maxChunk;
+        this.ttlMillis = ttl.toMillis();
+        this.maxBuckets = maxBuckets;
+        this.localDecisions = Counter.builder("mdb.ratelimit.decisions")
+            .tag("source", "local")
+            .description("Rate-limit decisions made from a node-local lease")
+            .register(meterRegistry);
+        this.syncLeases = Counter.builder("mdb.ratelimit.decisions")
+            .tag("source", "redis")
+            .description("Rate-limit decisions that waited for Redis")
+            .register(meterRegistry);
+        this.backgroundLeases = Counter.builder("mdb.ratelimit.leases.background")
+            .description("Quota chunks fetched from Redis off the request path")
+            .register(meterRegistry);
+        Gauge.builder("mdb.ratelimit.buckets", buckets, Map::size)
+            .description("Clients with a node-local rate-limit bucket")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Take one request from {@code key}'s cluster-wide quota of {@code limit} per {@code window}.
+     * Redis failures on the synchronous path propagate to the caller.
+     */
+    public RateLimitResult tryAcquire(String key, int limit, Duration window) {
+        Bucket bucket = buckets.get(key);
+        if (bucket != null && (bucket.limit != limit || !bucket.window.equals(window))) {
+            buckets.remove(key, bucket); // The rule changed; start over with the new quota
+            bucket = null;
+        }
+        if (bucket == null) {
+            if (buckets.size() >= maxBuckets) {
+                syncLeases.increment();
+                return redisLimiter.tryAcquire(key, limit, window);
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new Bucket(k, limit, window));
+        }
+        return bucket.acquire();
+    }
+
+    /**
+     * Give back the unused tokens of lapsed leases. Each return runs under its
+     * bucket's lock, so it cannot interleave with a new lease for that client.
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.lease.ttl:1s}")
+    public void expireLeases() {
+        long now = System.currentTimeMillis();
+        for (Bucket bucket : leased) {
+            if (now >= bucket.leaseExpiresAt) {
+                refills.execute(() -> bucket.lapse(System.currentTimeMillis()));
+            }
+        }
+    }
+
+    /**
+     * Drop buckets with nothing worth keeping: no live lease and no remembered denial.
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.lease.sweep-interval:30s}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        buckets.values().removeIf(bucket -> bucket.expire(now));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refills.shutdownNow();
+    }
+
+    int chunkSize(int limit, long lastRemaining) {
+        long chunk = Math.min(maxChunk, Math.min((long) (limit * chunkFraction), lastRemaining / 2));
+        return (int) Math.max(1, chunk);
+    }
+
+    private final class Bucket {
+        private final String key;
+        private final int limit;
+        private final Duration window;
+        private int tokens;
+        private volatile long leaseExpiresAt;
+        private long lastRequestAt;
+        private long deniedUntil;
+        private long lastRemaining;
+        private long lastResetAt;
+        private boolean refilling;
+
+        Bucket(String key, int limit, Duration window) {
+            this.key = key;
+            this.limit = limit;
+            this.window = window;
+            this.lastRemaining = limit;
+        }
+
+        synchronized RateLimitResult acquire() {
+            long now = System.currentTimeMillis();
+            if (now < deniedUntil) {
+                localDecisions.increment();
+                return new RateLimitResult(false, limit, 0, deniedUntil - now, Math.max(0, lastResetAt - now));
+            }
+            expireLease(now);
+            boolean busy = now - lastRequestAt < ttlMillis;
+            lastRequestAt = now;
+            if (tokens > 0) {
+                tokens--;
+                localDecisions.increment();
+                refillInBackground();
+                return allowed(now);
+            }
+
+            syncLeases.increment();
+            int chunk = busy ? chunkSize(limit, lastRemaining) : 1;
+            RedisRateLimiter.Grant grant = redisLimiter.acquire(key, limit, window, chunk);
+            now = System.currentTimeMillis();
+            apply(grant, now);
+            if (tokens > 0) {
+                tokens--;
+                return allowed(now);
+            }
+            deniedUntil = now + grant.result().retryAfterMillis();
+            return grant.result();
+        }
+
+        private RateLimitResult allowed(long now) {
+            return new RateLimitResult(true, limit, lastRemaining + tokens, 0, Math.max(0, lastResetAt - now));
+        }
+
+        private void apply(RedisRateLimiter.Grant grant, long now) {
+            if (grant.granted() > 0) {
+                tokens += grant.granted();
+                leaseExpiresAt = now + ttlMillis;
+                leased.add(this);
+            }
+            lastRemaining = grant.result().remaining();
+            lastResetAt = now + grant.result().resetAfterMillis();
+        }
+
+        /**
+         * Fetch the next chunk before this one runs out, while the client still has headroom.
+         */
+        private void refillInBackground() {
+            int chunk = chunkSize(limit, lastRemaining);
+            if (refilling || chunk <= 1 || tokens > chunk / 2) {
+                return;
+            }
+            refilling = true;
+            refills.execute(() -> {
+                RedisRateLimiter.Grant grant = null;
+                try {
+                    grant = redisLimiter.acquire(key, limit, window, chunk);
+                    backgroundLeases.increment();
+                } catch (Exception e) {
+                    logger.debug("Background rate-limit lease for {} failed: {}", key, e.getMessage());
+                }
+                synchronized (this) {
+                    if (grant != null) {
+                        apply(grant, System.currentTimeMillis());
+                    }
+                    refilling = false;
+                }
+            });
+        }
+
+        /**
+         * Return the unused part of a lapsed lease to Redis, before any new lease is taken.
+         */
+        private void expireLease(long now) {
+            if (now < leaseExpiresAt) {
+                return;
+            }
+            leased.remove(this);
+            if (tokens == 0) {
+                return;
+            }
+            int unused = tokens;
+            tokens = 0;
+            try {
+                redisLimiter.release(key, limit, window, unused);
+            } catch (Exception e) {
+                logger.debug("Returning unused rate-limit tokens for {} failed: {}", key, e.getMessage());
+            }
+        }
+
+        synchronized void lapse(long now) {
+            expireLease(now);
+        }
+
+        /**
+         * Lapse the lease if it is due; true when nothing is left worth keeping the bucket for.
+         */
+        synchronized boolean expire(long now) {
+            expireLease(now);
+            return !refilling && tokens == 0 && now >= deniedUntil;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package io.xquti.mdb.ratelimit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory rate limiter for when Redis cannot be used.
+ *
+ * Same algorithm as the Redis script (GCRA, one timestamp per key), but only
+ * this replica's requests are counted, so callers pass a per-node share of
+ * the cluster limit. When the key table is full, new clients are denied
+ * rather than admitted, which keeps memory bounded under an address-spraying
+ * attack.
+ */
+@Component
+public class LocalRateLimiter {
+
+    private final Map<String, long[]> arrivalTimes = new ConcurrentHashMap<>();
+    private final int maxKeys;
+
+    @Autowired
+    public LocalRateLimiter(@Value("${app.rate-limit.fallback.max-keys:100000}") int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    public RateLimitResult tryAcquire(String key, int limit, Duration window) {
+        long now = System.currentTimeMillis();
+        long windowMillis = window.toMillis();
+        double interval = (double) windowMillis / limit;
+
+        long[] tat = arrivalTimes.get(key);
+        if (tat == null) {
+            if (arrivalTimes.size() >= maxKeys) {
+                return new RateLimitResult(false, limit, 0, windowMillis, windowMillis);
+            }
+            tat = arrivalTimes.computeIfAbsent(key, k -> new long[1]);
+        }
+
+        synchronized (tat) {
+            long start = Math.max(tat[0], now);
+            long next = (long) Math.ceil(start + interval);
+            if (next - windowMillis > now) {
+                long retryAfter = (long) Math.ceil(start + interval - windowMillis - now);
+                return new RateLimitResult(false, limit, 0, Math.max(1, retryAfter), start - now);
+            }
+            tat[0] = next;
+            long remaining = (long) Math.floor((windowMillis - (next - now)) / interval + 1e-9);
+            return new RateLimitResult(true, limit, Math.max(0, remaining), 0, next - now);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.fallback.sweep-interval:30s}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        arrivalTimes.values().removeIf(tat -> {
+            synchronized (tat) {
+                return tat[0] <= now;
+            }
+        });
+    }
+}
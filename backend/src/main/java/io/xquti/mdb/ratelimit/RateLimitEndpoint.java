@@ -0,0 +1,37 @@
+package io.xquti.mdb.ratelimit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code /actuator/ratelimit}: this replica's rate-limit mode and per-rule usage.
+ *
+ * Counts are per replica; the Micrometer counters are the place to sum them
+ * across the cluster. Offender keys identify clients, so the endpoint is
+ * restricted to admins.
+ */
+@Component
+@Endpoint(id = "ratelimit")
+public class RateLimitEndpoint {
+
+    private final RateLimitMetrics metrics;
+    private final RedisHealthMonitor redisHealth;
+
+    @Autowired
+    public RateLimitEndpoint(RateLimitMetrics metrics, RedisHealthMonitor redisHealth) {
+        this.metrics = metrics;
+        this.redisHealth = redisHealth;
+    }
+
+    public record Report(String mode, int liveNodes, List<RateLimitMetrics.RuleUsage> rules) { }
+
+    @ReadOperation
+    public Report report() {
+        return new Report(redisHealth.isRedisHealthy() ? "redis" : "local", redisHealth.getLiveNodes(),
+            metrics.getUsage());
+    }
+}
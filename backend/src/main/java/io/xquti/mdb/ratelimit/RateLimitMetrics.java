@@ -0,0 +1,95 @@
+package io.xquti.mdb.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Usage of each rate-limit rule.
+ *
+ * Every decision increments {@code mdb.ratelimit.requests{rule, outcome}}.
+ * Denied clients are also fed into a per-rule {@link HeavyHitters} sketch,
+ * which ranks the clients hitting the limit hardest in fixed memory. The
+ * sketches are halved every {@code decay-interval}, so the ranking reflects
+ * recent traffic.
+ */
+@Component
+public class RateLimitMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RuleStats> stats = new ConcurrentHashMap<>();
+    private final int sketchDepth;
+    private final int sketchWidth;
+    private final int topOffenders;
+
+    @Autowired
+    public RateLimitMetrics(MeterRegistry meterRegistry,
+                            @Value("${app.rate-limit.metrics.sketch-depth:4}") int sketchDepth,
+                            @Value("${app.rate-limit.metrics.sketch-width:2048}") int sketchWidth,
+                            @Value("${app.rate-limit.metrics.top-offenders:20}") int topOffenders) {
+        this.meterRegistry = meterRegistry;
+        this.sketchDepth = sketchDepth;
+        this.sketchWidth = sketchWidth;
+        this.topOffenders = topOffenders;
+    }
+
+    public record Offender(String client, long denials) { }
+
+    public record RuleUsage(String rule, long allowed, long denied, List<Offender> topOffenders) { }
+
+    public void record(RateLimitRule rule, String clientKey, RateLimitResult result) {
+        RuleStats ruleStats = stats.computeIfAbsent(rule.name(), this::newStats);
+        if (result.allowed()) {
+            ruleStats.allowed.increment();
+        } else {
+            ruleStats.denied.increment();
+            ruleStats.offenders.add(clientKey);
+        }
+    }
+
+    /**
+     * Counts since startup and the current top offenders, for every rule that has seen traffic.
+     */
+    public List<RuleUsage> getUsage() {
+        return stats.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey())
+            .map(entry -> {
+                RuleStats ruleStats = entry.getValue();
+                List<Offender> offenders = ruleStats.offenders.top(topOffenders).stream()
+                    .map(hitter -> new Offender(hitter.key(), hitter.estimate()))
+                    .toList();
+                return new RuleUsage(entry.getKey(), (long) ruleStats.allowed.count(),
+                    (long) ruleStats.denied.count(), offenders);
+            })
+            .toList();
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.metrics.decay-interval:1m}")
+    public void decay() {
+        stats.values().forEach(ruleStats -> ruleStats.offenders.decay());
+    }
+
+    private RuleStats newStats(String rule) {
+        return new RuleStats(
+            Counter.builder("mdb.ratelimit.requests")
+                .tag("rule", rule)
+                .tag("outcome", "allowed")
+                .description("Requests admitted by a rate-limit rule")
+                .register(meterRegistry),
+            Counter.builder("mdb.ratelimit.requests")
+                .tag("rule", rule)
+                .tag("outcome", "denied")
+                .description("Requests rejected with 429 by a rate-limit rule")
+                .register(meterRegistry),
+            new HeavyHitters(sketchDepth, sketchWidth, topOffenders));
+    }
+
+    private record RuleStats(Counter allowed, Counter denied, HeavyHitters offenders) { }
+}
@@ -0,0 +1,17 @@
+package io.xquti.mdb.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+
+/**
+ * Default rate-limit table from {@code app.rate-limit.rules}. Operators can
+ * replace it at runtime through {@link RateLimitRules}.
+ */
+@ConfigurationProperties(prefix = "app.rate-limit")
+public record RateLimitProperties(List<RateLimitRule> rules) {
+
+    public RateLimitProperties {
+        rules = rules == null ? List.of() : List.copyOf(rules);
+    }
+}
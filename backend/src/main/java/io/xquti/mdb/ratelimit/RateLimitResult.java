@@ -0,0 +1,27 @@
+package io.xquti.mdb.ratelimit;
+
+/**
+ * Outcome of one rate-limit decision.
+ *
+ * @param allowed          whether the request may proceed
+ * @param limit            requests allowed per window for the rule
+ * @param remaining        requests still allowed right now
+ * @param retryAfterMillis how long a denied client should wait; 0 when allowed
+ * @param resetAfterMillis time until the client's quota is fully restored
+ */
+public record RateLimitResult(boolean allowed, int limit, long remaining, long retryAfterMillis, long resetAfterMillis) {
+
+    /**
+     * Whole seconds to wait before retrying, rounded up, for a {@code Retry-After} header.
+     */
+    public long retryAfterSeconds() {
+        return Math.max(1, (retryAfterMillis + 999) / 1000);
+    }
+
+    /**
+     * Whole seconds until the quota is fully restored, rounded up, for an {@code X-RateLimit-Reset} header.
+     */
+    public long resetAfterSeconds() {
+        return Math.max(0, (resetAfterMillis + 999) / 1000);
+    }
+}
@@ -0,0 +1,47 @@
+package io.xquti.mdb.ratelimit;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * One row of the rate-limit table.
+ *
+ * {@code path} is a pattern of literal segments, {@code *} for exactly one
+ * segment and a trailing {@code **} for any remainder. {@code method} is
+ * optional; without it the rule applies to every method. Rules that share a
+ * {@code name} share one quota per key, so they must agree on limit and window.
+ *
+ * @param name    quota name, part of the limiter key
+ * @param path    route pattern, e.g. {@code /api/forums/**}
+ * @param method  HTTP method, or null for any
+ * @param key     what identifies a client for this rule
+ * @param limit   requests allowed per window
+ * @param window  window length
+ * @param message error text returned with a 429
+ */
+public record RateLimitRule(String name, String path, String method, KeyType key, int limit, Duration window,
+                            String message) {
+
+    /**
+     * What a quota is counted against. USER and TOKEN fall back to the client
+     * address for requests that are not authenticated.
+     */
+    public enum KeyType {
+        IP, USER, TOKEN
+    }
+
+    public RateLimitRule {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Rate-limit rule needs a name");
+        }
+        if (path == null || !path.startsWith("/")) {
+            throw new IllegalArgumentException("Rate-limit rule " + name + " needs a path starting with /");
+        }
+        if (limit < 1 || window == null || window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("Rate-limit rule " + name + " needs a positive limit and window");
+        }
+        method = method == null || method.isBlank() ? null : method.trim().toUpperCase(Locale.ROOT);
+        key = key == null ? KeyType.IP : key;
+        message = message == null || message.isBlank() ? "Too many requests. Please slow down." : message;
+    }
+}
@@ -0,0 +1,135 @@
+package io.xquti.mdb.ratelimit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.xquti.mdb.config.ClusterNode;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * The live rate-limit table.
+ *
+ * Starts from {@code app.rate-limit.rules}. An operator can replace the table
+ * at runtime; the override is stored in Redis so new replicas pick it up, and
+ * a pub/sub notice makes every running replica reload it. Each version of the
+ * table is compiled into a {@link RouteTrie} and swapped in atomically, so
+ * requests never see a half-applied table.
+ */
+@Component
+public class RateLimitRules implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitRules.class);
+    private static final String OVERRIDE_KEY = "rate_limit:rules";
+    private static final String CHANNEL = "rate_limit:rules:changed";
+    private static final TypeReference<List<RateLimitRule>> RULE_LIST = new TypeReference<>() { };
+
+    private final RateLimitProperties properties;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final ClusterNode clusterNode;
+    private final RouteTrie defaults;
+
+    private volatile RouteTrie active;
+    private volatile boolean overridden;
+
+    @Autowired
+    public RateLimitRules(RateLimitProperties properties,
+                          RedisTemplate<String, String> redisTemplate,
+                          RedisMessageListenerContainer listenerContainer,
+                          ObjectMapper objectMapper,
+                          ClusterNode clusterNode) {
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+        this.clusterNode = clusterNode;
+        // Fails startup on a malformed default table
+        this.defaults = RouteTrie.compile(properties.rules());
+        this.active = defaults;
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        reload();
+    }
+
+    /**
+     * @return the rule for the request, or null if it is not rate limited
+     */
+    public RateLimitRule match(String method, String path) {
+        return active.match(method, path);
+    }
+
+    public List<RateLimitRule> getRules() {
+        return active.rules();
+    }
+
+    public boolean isOverridden() {
+        return overridden;
+    }
+
+    /**
+     * Replace the table on every replica.
+     *
+     * @throws IllegalArgumentException if the table does not compile; nothing is changed then
+     */
+    public void replace(List<RateLimitRule> rules) throws JsonProcessingException {
+        RouteTrie compiled = RouteTrie.compile(rules);
+        redisTemplate.opsForValue().set(OVERRIDE_KEY, objectMapper.writeValueAsString(rules));
+        apply(compiled, true);
+        redisTemplate.convertAndSend(CHANNEL, clusterNode.getNodeId());
+        logger.info("Rate-limit table replaced with {} rules", rules.size());
+    }
+
+    /**
+     * Drop the override and return every replica to the configured defaults.
+     */
+    public void reset() {
+        redisTemplate.delete(OVERRIDE_KEY);
+        apply(defaults, false);
+        redisTemplate.convertAndSend(CHANNEL, clusterNode.getNodeId());
+        logger.info("Rate-limit table reset to {} configured rules", properties.rules().size());
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String origin = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (!clusterNode.getNodeId().equals(origin)) {
+            reload();
+        }
+    }
+
+    private void reload() {
+        try {
+            String json = redisTemplate.opsForValue().get(OVERRIDE_KEY);
+            if (json == null) {
+                apply(defaults, false);
+                return;
+            }
+            apply(RouteTrie.compile(objectMapper.readValue(json, RULE_LIST)), true);
+            logger.info("Loaded rate-limit override with {} rules", active.rules().size());
+        } catch (Exception e) {
+            // Keep whatever table is active rather than dropping all limits
+            logger.warn("Failed to load rate-limit override, keeping current rules: {}", e.getMessage());
+        }
+    }
+
+    private void apply(RouteTrie trie, boolean override) {
+        this.active = trie;
+        this.overridden = override;
+    }
+}
@@ -0,0 +1,164 @@
+package io.xquti.mdb.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.xquti.mdb.config.ClusterNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides whether rate limiting can rely on Redis.
+ *
+ * A probe on its own thread sends a heartbeat script every {@code interval}.
+ * The heartbeat also counts the replicas that checked in recently. Redis is
+ * declared down after {@code failures-to-trip} consecutive failures, and up
+ * again only after {@code successes-to-recover} consecutive successes, so a
+ * flapping connection does not flip the mode on every probe. An error on the
+ * request path only brings the next probe forward, so an outage trips quickly
+ * but one slow request cannot switch every node to local limits.
+ */
+@Component
+public class RedisHealthMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisHealthMonitor.class);
+    private static final String NODES_KEY = "rate_limit:nodes";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ClusterNode clusterNode;
+    private final RedisScript<Long> heartbeat;
+    private final ScheduledExecutorService prober = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().name("redis-health-probe").daemon().factory());
+    private final Counter toLocal;
+    private final Counter toRedis;
+
+    private final long intervalMillis;
+    private final long nodeTtlMillis;
+    private final int failuresToTrip;
+    private final int successesToRecover;
+
+    private volatile boolean healthy = true;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicInteger consecutiveSuccesses = new AtomicInteger();
+    private final AtomicInteger liveNodes = new AtomicInteger(1);
+    private final AtomicBoolean probeRequested = new AtomicBoolean();
+
+    @Autowired
+    public RedisHealthMonitor(RedisTemplate<String, String> redisTemplate,
+                              ClusterNode clusterNode,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.rate-limit.fallback.probe-interval:1s}") Duration interval,
+                              @Value("${app.rate-limit.fallback.node-ttl:15s}") Duration nodeTtl,
+                              @Value("${app.rate-limit.fallback.failures-to-trip:3}") int failuresToTrip,
+                              @Value("${app.rate-limit.fallback.successes-to-recover:5}") int successesToRecover) {
+        this.redisTemplate = redisTemplate;
+        this.clusterNode = clusterNode;
+        this.intervalMillis = interval.toMillis();
+        this.nodeTtlMillis = nodeTtl.toMillis();
+        this.failuresToTrip = failuresToTrip;
+        this.successesToRecover = successesToRecover;
+
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setLocation(new ClassPathResource("scripts/node-heartbeat.lua"));
+        script.setResultType(Long.class);
+        this.heartbeat = script;
+
+        this.toLocal = Counter.builder("mdb.ratelimit.mode.changes")
+            .tag("to", "local")
+            .description("Switches to node-local rate limiting because Redis was unhealthy")
+            .register(meterRegistry);
+        this.toRedis = Counter.builder("mdb.ratelimit.mode.changes")
+            .tag("to", "redis")
+            .description("Switches back to Redis-backed rate limiting")
+            .register(meterRegistry);
+        Gauge.builder("mdb.ratelimit.mode", this, monitor -> monitor.healthy ? 0 : 1)
+            .description("Rate-limit mode: 0 = Redis, 1 = node-local fallback")
+            .register(meterRegistry);
+        Gauge.builder("mdb.ratelimit.nodes", liveNodes, AtomicInteger::get)
+            .description("Replicas seen by the rate-limit heartbeat")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        prober.scheduleWithFixedDelay(this::probe, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        prober.shutdownNow();
+    }
+
+    public boolean isRedisHealthy() {
+        return healthy;
+    }
+
+    /**
+     * Replicas alive at the last successful heartbeat; the count is kept while Redis is down.
+     */
+    public int getLiveNodes() {
+        return liveNodes.get();
+    }
+
+    /**
+     * A Redis call on the request path failed; probe now instead of waiting for the next interval.
+     * Requests failing together share one probe.
+     */
+    public void recordFailure() {
+        if (probeRequested.compareAndSet(false, true)) {
+            prober.execute(() -> {
+                probeRequested.set(false);
+                probe();
+            });
+        }
+    }
+
+    void probe() {
+        try {
+            Long nodes = redisTemplate.execute(heartbeat, List.of(NODES_KEY),
+                clusterNode.getNodeId(), Long.toString(nodeTtlMillis));
+            if (nodes != null && nodes > 0) {
+                liveNodes.set(nodes.intValue());
+            }
+            recordSuccess();
+        } catch (Exception e) {
+            logger.debug("Redis health probe failed: {}", e.getMessage());
+            recordProbeFailure();
+        }
+    }
+
+    private void recordProbeFailure() {
+        consecutiveSuccesses.set(0);
+        if (consecutiveFailures.incrementAndGet() >= failuresToTrip && healthy) {
+            healthy = false;
+            toLocal.increment();
+            logger.warn("Redis unhealthy; rate limiting falls back to node-local limits");
+        }
+    }
+
+    private void recordSuccess() {
+        consecutiveFailures.set(0);
+        if (consecutiveSuccesses.incrementAndGet() >= successesToRecover && !healthy) {
+            healthy = true;
+            toRedis.increment();
+            logger.info("Redis healthy again; rate limiting is cluster-wide");
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package io.xquti.mdb.ratelimit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Cluster-wide rate limiter backed by a Redis script.
+ *
+ * Uses the generic cell rate algorithm: each client and rule keeps a single
+ * timestamp, and the script checks and advances it atomically using Redis'
+ * own clock. A decision therefore costs one round trip (EVALSHA) and
+ * concurrent requests cannot overshoot the limit. The key expires as soon as
+ * the client's quota has fully recovered. {@link LeasedRateLimiter} takes
+ * several tokens per call so most requests never reach Redis.
+ */
+@Component
+public class RedisRateLimiter {
+
+    private static final String KEY_PREFIX = "rate_limit:";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisScript<List> script;
+
+    @Autowired
+    public RedisRateLimiter(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+        DefaultRedisScript<List> gcra = new DefaultRedisScript<>();
+        gcra.setLocation(new ClassPathResource("scripts/rate-limit-gcra.lua"));
+        gcra.setResultType(List.class);
+        this.script = gcra;
+    }
+
+    /**
+     * Take one request from {@code key}'s quota of {@code limit} per {@code window}.
+     * Redis failures propagate; the caller decides whether to fail open or closed.
+     */
+    public RateLimitResult tryAcquire(String key, int limit, Duration window) {
+        return acquire(key, limit, window, 1).result();
+    }
+
+    /**
+     * Take up to {@code tokens} requests from the quota at once, for local leasing.
+     */
+    Grant acquire(String key, int limit, Duration window, int tokens) {
+        List<?> reply = redisTemplate.execute(script, List.of(KEY_PREFIX + key),
+            Integer.toString(limit), Long.toString(window.toMillis()), Integer.toString(tokens));
+        if (reply == null || reply.size() < 4) {
+            throw new IllegalStateException("Unexpected rate limiter reply: " + reply);
+        }
+        int granted = (int) toLong(reply.get(0));
+        return new Grant(granted, new RateLimitResult(
+            granted > 0,
+            limit,
+            toLong(reply.get(1)),
+            toLong(reply.get(2)),
+            toLong(reply.get(3))));
+    }
+
+    /**
+     * Give back leased tokens that were never used.
+     */
+    void release(String key, int limit, Duration window, int tokens) {
+        redisTemplate.execute(script, List.of(KEY_PREFIX + key),
+            Integer.toString(limit), Long.toString(window.toMillis()), Integer.toString(-tokens));
+    }
+
+    /**
+     * Tokens taken from Redis; {@code result.remaining()} excludes them.
+     */
+    record Grant(int granted, RateLimitResult result) {
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : Long.parseLong(value.toString());
+    }
+}
@@ -0,0 +1,177 @@
+package io.xquti.mdb.ratelimit;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rate-limit rules compiled into a trie of path segments.
+ *
+ * A lookup walks the request path once, comparing segments in place, and
+ * returns the most specific rule: literal segments beat {@code *}, which beats
+ * a trailing {@code **}, and a rule for the request's method beats one for any
+ * method. When a more specific branch has no rule for the method, the lookup
+ * falls back to the broader rules above it.
+ */
+final class RouteTrie {
+
+    private final Node root = new Node();
+    private final List<RateLimitRule> rules;
+
+    private RouteTrie(List<RateLimitRule> rules) {
+        this.rules = List.copyOf(rules);
+    }
+
+    /**
+     * @throws IllegalArgumentException for malformed patterns or rules that share a name but not a quota
+     */
+    static RouteTrie compile(List<RateLimitRule> rules) {
+        Map<String, RateLimitRule> byName = new HashMap<>();
+        RouteTrie trie = new RouteTrie(rules);
+        for (RateLimitRule rule : rules) {
+            RateLimitRule other = byName.putIfAbsent(rule.name(), rule);
+            if (other != null && (other.limit() != rule.limit() || !other.window().equals(rule.window())
+                    || other.key() != rule.key())) {
+                throw new IllegalArgumentException("Rate-limit rules named " + rule.name()
+                    + " must share key, limit and window");
+            }
+            trie.insert(rule);
+        }
+        return trie;
+    }
+
+    List<RateLimitRule> rules() {
+        return rules;
+    }
+
+    /**
+     * @return the most specific rule for the request, or null if none applies
+     */
+    RateLimitRule match(String method, String path) {
+        return match(root, method, path, skipSlashes(path, 0));
+    }
+
+    private void insert(RateLimitRule rule) {
+        Node node = root;
+        String[] segments = Arrays.stream(rule.path().split("/")).filter(segment -> !segment.isEmpty())
+            .toArray(String[]::new);
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if ("**".equals(segment)) {
+                if (i != segments.length - 1) {
+                    throw new IllegalArgumentException("Rate-limit rule " + rule.name()
+                        + ": ** is only allowed as the last segment");
+                }
+                node.remainder = add(node.remainder, rule);
+                return;
+            }
+            if (segment.contains("*")) {
+                if (!"*".equals(segment)) {
+                    throw new IllegalArgumentException("Rate-limit rule " + rule.name()
+                        + ": wildcards must be whole segments");
+                }
+                if (node.wildcard == null) {
+                    node.wildcard = new Node();
+                }
+                node = node.wildcard;
+            } else {
+                node = node.child(segment);
+            }
+        }
+        node.exact = add(node.exact, rule);
+    }
+
+    private static RateLimitRule[] add(RateLimitRule[] rules, RateLimitRule rule) {
+        for (RateLimitRule existing : rules) {
+            if (existing.method() == null ? rule.method() == null : existing.method().equals(rule.method())) {
+                throw new IllegalArgumentException("Duplicate rate-limit route " + rule.path()
+                    + (rule.method() != null ? " " + rule.method() : ""));
+            }
+        }
+        RateLimitRule[] grown = Arrays.copyOf(rules, rules.length + 1);
+        grown[rules.length] = rule;
+        return grown;
+    }
+
+    private static RateLimitRule match(Node node, String method, String path, int pos) {
+        if (pos >= path.length()) {
+            RateLimitRule rule = pick(node.exact, method);
+            return rule != null ? rule : pick(node.remainder, method);
+        }
+
+        int end = path.indexOf('/', pos);
+        if (end < 0) {
+            end = path.length();
+        }
+        int next = skipSlashes(path, end);
+
+        Node literal = node.find(path, pos, end);
+        if (literal != null) {
+            RateLimitRule rule = match(literal, method, path, next);
+            if (rule != null) {
+                return rule;
+            }
+        }
+        if (node.wildcard != null) {
+            RateLimitRule rule = match(node.wildcard, method, path, next);
+            if (rule != null) {
+                return rule;
+            }
+        }
+        return pick(node.remainder, method);
+    }
+
+    private static RateLimitRule pick(RateLimitRule[] rules, String method) {
+        RateLimitRule anyMethod = null;
+        for (RateLimitRule rule : rules) {
+            if (rule.method() == null) {
+                anyMethod = rule;
+            } else if (rule.method().equalsIgnoreCase(method)) {
+                return rule;
+            }
+        }
+        return anyMethod;
+    }
+
+    private static int skipSlashes(String path, int pos) {
+        while (pos < path.length() && path.charAt(pos) == '/') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static final class Node {
+        private static final RateLimitRule[] NONE = new RateLimitRule[0];
+
+        private String[] names = new String[0];
+        private Node[] children = new Node[0];
+        private Node wildcard;
+        private RateLimitRule[] exact = NONE;
+        private RateLimitRule[] remainder = NONE;
+
+        Node child(String name) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name)) {
+                    return children[i];
+                }
+            }
+            names = Arrays.copyOf(names, names.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            names[names.length - 1] = name;
+            children[children.length - 1] = new Node();
+            return children[children.length - 1];
+        }
+
+        Node find(String path, int from, int to) {
+            int length = to - from;
+            for (int i = 0; i < names.length; i++) {
+                String name = names[i];
+                if (name.length() == length && path.regionMatches(from, name, 0, length)) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+    }
+}
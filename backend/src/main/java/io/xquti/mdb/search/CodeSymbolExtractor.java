@@ -0,0 +1,165 @@
+package io.xquti.mdb.search;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Extracts identifiers from fenced code blocks in lesson markdown.
+ * Comments, string/char literals and text blocks are skipped so that only
+ * identifiers actually used in code are reported, together with the
+ * 1-based line of the lesson on which they appear.
+ */
+class CodeSymbolExtractor {
+
+    private static final int MIN_SYMBOL_LENGTH = 2;
+
+    private static final Set<String> KEYWORDS = Set.of(
+        "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class",
+        "const", "continue", "default", "do", "double", "else", "enum", "extends", "final",
+        "finally", "float", "for", "goto", "if", "implements", "import", "instanceof", "int",
+        "interface", "long", "native", "new", "package", "private", "protected", "public",
+        "return", "short", "static", "strictfp", "super", "switch", "synchronized", "this",
+        "throw", "throws", "transient", "try", "void", "volatile", "while", "var", "record",
+        "yield", "sealed", "permits", "non", "true", "false", "null"
+    );
+
+    private enum State { CODE, BLOCK_COMMENT, TEXT_BLOCK }
+
+    /**
+     * @param markdown lesson content
+     * @return symbol -> ascending line numbers, in first-seen order
+     */
+    Map<String, List<Integer>> extract(String markdown) {
+        Map<String, List<Integer>> symbols = new LinkedHashMap<>();
+        if (markdown == null || markdown.isEmpty()) {
+            return symbols;
+        }
+
+        String[] lines = markdown.split("\r?\n", -1);
+        char fenceChar = 0;
+        int fenceLength = 0;
+        State state = State.CODE;
+
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i];
+            int fence = fenceLength(line);
+
+            if (fenceChar == 0) {
+                if (fence > 0) {
+                    fenceChar = line.stripLeading().charAt(0);
+                    fenceLength = fence;
+                    state = State.CODE;
+                }
+                continue;
+            }
+
+            if (fence >= fenceLength && line.stripLeading().charAt(0) == fenceChar
+                    && line.strip().length() == fence) {
+                fenceChar = 0;
+                continue;
+            }
+
+            state = scanLine(line, i + 1, state, symbols);
+        }
+        return symbols;
+    }
+
+    private static int fenceLength(String line) {
+        String stripped = line.stripLeading();
+        if (line.length() - stripped.length() > 3 || stripped.length() < 3) {
+            return 0;
+        }
+        char c = stripped.charAt(0);
+        if (c != '`' && c != '~') {
+            return 0;
+        }
+        int n = 0;
+        while (n < stripped.length() && stripped.charAt(n) == c) {
+            n++;
+        }
+        return n >= 3 ? n : 0;
+    }
+
+    private static State scanLine(String line, int lineNumber, State state, Map<String, List<Integer>> symbols) {
+        int length = line.length();
+        int i = 0;
+
+        while (i < length) {
+            if (state == State.BLOCK_COMMENT) {
+                int end = line.indexOf("*/", i);
+                if (end < 0) {
+                    return state;
+                }
+                i = end + 2;
+                state = State.CODE;
+                continue;
+            }
+            if (state == State.TEXT_BLOCK) {
+                int end = line.indexOf("\"\"\"", i);
+                if (end < 0) {
+                    return state;
+                }
+                i = end + 3;
+                state = State.CODE;
+                continue;
+            }
+
+            char c = line.charAt(i);
+            if (c == '/' && i + 1 < length && line.charAt(i + 1) == '/') {
+                return state;
+            }
+            if (c == '/' && i + 1 < length && line.charAt(i + 1) == '*') {
+                state = State.BLOCK_COMMENT;
+                i += 2;
+            } else if (c == '"' && line.startsWith("\"\"\"", i)) {
+                state = State.TEXT_BLOCK;
+                i += 3;
+            } else if (c == '"' || c == '\'') {
+                i = skipLiteral(line, i + 1, c);
+            } else if (Character.isDigit(c)) {
+                i++;
+                while (i < length && (Character.isLetterOrDigit(line.charAt(i)) || line.charAt(i) == '_'
+                        || line.charAt(i) == '.')) {
+                    i++;
+                }
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int start = i++;
+                while (i < length && Character.isJavaIdentifierPart(line.charAt(i))) {
+                    i++;
+                }
+                addSymbol(line.substring(start, i), lineNumber, symbols);
+            } else {
+                i++;
+            }
+        }
+        return state;
+    }
+
+    private static int skipLiteral(String line, int from, char quote) {
+        int i = from;
+        while (i < line.length()) {
+            char c = line.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return i;
+    }
+
+    private static void addSymbol(String symbol, int lineNumber, Map<String, List<Integer>> symbols) {
+        if (symbol.length() < MIN_SYMBOL_LENGTH || KEYWORDS.contains(symbol)) {
+            return;
+        }
+        List<Integer> lines = symbols.computeIfAbsent(symbol, k -> new ArrayList<>());
+        if (lines.isEmpty() || lines.get(lines.size() - 1) != lineNumber) {
+            lines.add(lineNumber);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,143 @@
+package io.xquti.mdb.search;
+
+import io.xquti.mdb.event.LessonDeletedEvent;
+import io.xquti.mdb.event.LessonSavedEvent;
+import io.xquti.mdb.model.TutorialLesson;
+import io.xquti.mdb.repository.TutorialLessonRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory inverted index from identifiers used in tutorial code blocks to
+ * the lessons and lines that use them.
+ * Readers get immutable posting lists without locking; the index is only
+ * rewritten when a lesson is saved or deleted.
+ */
+@Component
+public class CodeSymbolIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CodeSymbolIndex.class);
+
+    private final TutorialLessonRepository tutorialLessonRepository;
+    private final CodeSymbolExtractor extractor = new CodeSymbolExtractor();
+
+    private final Map<String, List<SymbolPosting>> postings = new ConcurrentHashMap<>();
+
+    // Guarded by this; lets a lesson be re-indexed without scanning every posting list
+    private final Map<Long, Set<String>> symbolsByLesson = new HashMap<>();
+
+    @Autowired
+    public CodeSymbolIndex(TutorialLessonRepository tutorialLessonRepository) {
+        this.tutorialLessonRepository = tutorialLessonRepository;
+    }
+
+    /**
+     * Build the index from all stored lessons once the application is up.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        List<TutorialLesson> lessons = tutorialLessonRepository.findAll();
+        lessons.forEach(this::indexLesson);
+        logger.info("Indexed code symbols for {} tutorial lessons ({} distinct symbols)",
+            lessons.size(), postings.size());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLessonSaved(LessonSavedEvent event) {
+        indexLesson(event.lesson());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLessonDeleted(LessonDeletedEvent event) {
+        removeLesson(event.lessonId());
+    }
+
+    /**
+     * Lessons that use the given identifier, ordered by lesson and line.
+     */
+    public List<SymbolPosting> lookup(String symbol) {
+        if (symbol == null) {
+            return List.of();
+        }
+        return postings.getOrDefault(symbol, List.of());
+    }
+
+    /**
+     * (Re)index a lesson after it has been saved. Unpublished lessons are
+     * removed from the index since lookups are served publicly.
+     */
+    public synchronized void indexLesson(TutorialLesson lesson) {
+        if (lesson == null || lesson.getId() == null) {
+            return;
+        }
+        removeLesson(lesson.getId());
+
+        if (!Boolean.TRUE.equals(lesson.getIsPublished())) {
+            return;
+        }
+
+        Map<String, List<Integer>> symbols = extractor.extract(lesson.getContent());
+        for (Map.Entry<String, List<Integer>> entry : symbols.entrySet()) {
+            List<SymbolPosting> added = new ArrayList<>(entry.getValue().size());
+            for (Integer line : entry.getValue()) {
+                added.add(new SymbolPosting(lesson.getId(), line));
+            }
+            postings.merge(entry.getKey(), List.copyOf(added), CodeSymbolIndex::mergePostings);
+        }
+        symbolsByLesson.put(lesson.getId(), Set.copyOf(symbols.keySet()));
+    }
+
+    /**
+     * Drop all postings that belong to a lesson.
+     */
+    public synchronized void removeLesson(Long lessonId) {
+        Set<String> symbols = symbolsByLesson.remove(lessonId);
+        if (symbols == null) {
+            return;
+        }
+        for (String symbol : symbols) {
+            postings.computeIfPresent(symbol, (key, current) -> {
+                List<SymbolPosting> remaining = current.stream()
+                    .filter(posting -> !posting.lessonId().equals(lessonId))
+                    .toList();
+                return remaining.isEmpty() ? null : remaining;
+            });
+        }
+    }
+
+    private static List<SymbolPosting> mergePostings(List<SymbolPosting> current, List<SymbolPosting> added) {
+        List<SymbolPosting> merged = new ArrayList<>(current.size() + added.size());
+        merged.addAll(current);
+        merged.addAll(added);
+        merged.sort(null);
+        return Collections.unmodifiableList(merged);
+    }
+
+    /**
+     * A single use of a symbol: the lesson and the 1-based line within its content.
+     */
+    public record SymbolPosting(Long lessonId, int line) implements Comparable<SymbolPosting> {
+
+        @Override
+        public int compareTo(SymbolPosting other) {
+            int byLesson = lessonId.compareTo(other.lessonId);
+            return byLesson != 0 ? byLesson : Integer.compare(line, other.line);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,101 @@
+package io.xquti.mdb.search;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Fixed-size MinHash signature over the word set of a document.
+ * Signatures can be updated incrementally: merging new text is an
+ * element-wise minimum, so a thread's signature absorbs each new post
+ * without revisiting earlier content.
+ */
+final class MinHashSignature {
+
+    private static final int MIN_TOKEN_LENGTH = 3;
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    private final int[] values;
+
+    MinHashSignature(int size) {
+        this.values = new int[size];
+        Arrays.fill(values, Integer.MAX_VALUE);
+    }
+
+    int size() {
+        return values.length;
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+
+    boolean isEmpty() {
+        return values.length == 0 || values[0] == Integer.MAX_VALUE;
+    }
+
+    /**
+     * Fold the words of {@code text} into this signature.
+     */
+    void add(String text) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int length = lower.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(lower.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            long tokenHash = 0;
+            while (i < length && Character.isLetterOrDigit(lower.charAt(i))) {
+                tokenHash = tokenHash * 31 + lower.charAt(i);
+                i++;
+            }
+            if (i - start >= MIN_TOKEN_LENGTH) {
+                addToken(tokenHash);
+            }
+        }
+    }
+
+    private void addToken(long tokenHash) {
+        for (int k = 0; k < values.length; k++) {
+            int h = (int) (mix(tokenHash + SEED * (k + 1)) >>> 33);
+            if (h < values[k]) {
+                values[k] = h;
+            }
+        }
+    }
+
+    /**
+     * Estimated Jaccard similarity: the fraction of matching slots.
+     */
+    double similarity(MinHashSignature other) {
+        int matches = 0;
+        for (int k = 0; k < values.length; k++) {
+            if (values[k] == other.values[k]) {
+                matches++;
+            }
+        }
+        return (double) matches / values.length;
+    }
+
+    /**
+     * Hash of one LSH band (a run of {@code rows} slots) combined with the band index.
+     */
+    long bandKey(int band, int rows) {
+        long h = band;
+        int from = band * rows;
+        for (int k = from; k < from + rows; k++) {
+            h = h * 0x100000001B3L ^ values[k];
+        }
+        return mix(h);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
\ No newline at end of file
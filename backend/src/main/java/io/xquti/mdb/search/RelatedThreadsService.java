@@ -0,0 +1,433 @@
+package io.xquti.mdb.search;
+
+import io.xquti.mdb.config.ClusterNode;
+import io.xquti.mdb.model.ForumPost;
+import io.xquti.mdb.model.ForumThread;
+import io.xquti.mdb.repository.ForumPostRepository;
+import io.xquti.mdb.repository.ForumThreadRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Offline "similar discussions" recommendations.
+ *
+ * Each thread keeps a MinHash signature over its title, body and posts,
+ * bucketed into an LSH index. A single background worker owns that state
+ * and refreshes the top-N neighbour lists incrementally as threads and
+ * posts are created; the lists are stored in Redis so serving them is one
+ * GET per view instead of a live search.
+ *
+ * Only one replica, the holder of a Redis lease, keeps the index and writes
+ * the lists. Every replica announces its changes on a channel so the owner
+ * sees all of them, and a replica that takes the lease over rebuilds from
+ * the database first.
+ */
+@Service
+public class RelatedThreadsService implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(RelatedThreadsService.class);
+    private static final String RELATED_PREFIX = "forum:related:";
+    private static final String OWNER_KEY = "forum:related:owner";
+    private static final String CHANNEL = "forum:related:changes";
+    private static final int REBUILD_PAGE_SIZE = 500;
+
+    private final ForumThreadRepository forumThreadRepository;
+    private final ForumPostRepository forumPostRepository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ClusterNode clusterNode;
+    private final RedisScript<Long> claimOwner;
+    private final int topN;
+    private final int signatureSize;
+    private final int bands;
+    private final double minSimilarity;
+    private final Duration ownerTtl;
+
+    private volatile boolean owner;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "related-threads");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // State below is confined to the worker thread
+    private final Map<Long, MinHashSignature> signatures = new HashMap<>();
+    private final Map<Long, long[]> bandKeysByThread = new HashMap<>();
+    private final Map<Long, Set<Long>> buckets = new HashMap<>();
+    private final Map<Long, List<Neighbour>> neighbours = new HashMap<>();
+
+    @Autowired
+    public RelatedThreadsService(ForumThreadRepository forumThreadRepository,
+                                 ForumPostRepository forumPostRepository,
+                                 RedisTemplate<String, String> redisTemplate,
+                                 RedisMessageListenerContainer listenerContainer,
+                                 ClusterNode clusterNode,
+                                 @Value("${app.forum.related.top-n:5}") int topN,
+                                 @Value("${app.forum.related.signature-size:64}") int signatureSize,
+                                 @Value("${app.forum.related.bands:16}") int bands,
+                                 @Value("${app.forum.related.min-similarity:0.2}") double minSimilarity,
+                                 @Value("${app.forum.related.owner-ttl:30s}") Duration ownerTtl) {
+        if (bands < 1 || signatureSize % bands != 0) {
+            // Otherwise the slots past the last full band would never be compared
+            throw new IllegalArgumentException("app.forum.related.signature-size (" + signatureSize
+                + ") must be a multiple of app.forum.related.bands (" + bands + ")");
+        }
+        this.forumThreadRepository = forumThreadRepository;
+        this.forumPostRepository = forumPostRepository;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.clusterNode = clusterNode;
+        this.topN = topN;
+        this.signatureSize = signatureSize;
+        this.bands = bands;
+        this.minSimilarity = minSimilarity;
+        this.ownerTtl = ownerTtl;
+
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setLocation(new ClassPathResource("scripts/claim-owner.lua"));
+        script.setResultType(Long.class);
+        this.claimOwner = script;
+    }
+
+    /**
+     * Ids of the threads most similar to the given one, best match first.
+     */
+    public List<Long> getRelatedThreadIds(Long threadId) {
+        String stored = redisTemplate.opsForValue().get(RELATED_PREFIX + threadId);
+        if (stored == null || stored.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>();
+        for (String id : stored.split(",")) {
+            ids.add(Long.parseLong(id));
+        }
+        return ids;
+    }
+
+    public void threadSaved(ForumThread thread) {
+        announce("thread:" + thread.getId());
+    }
+
+    public void postSaved(ForumPost post) {
+        announce("post:" + post.getId());
+    }
+
+    public void threadDeleted(Long threadId) {
+        announce("delete:" + threadId);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        if (!owner) {
+            return;
+        }
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(':');
+        String kind = separator > 0 ? body.substring(0, separator) : "";
+        Long id;
+        try {
+            id = Long.parseLong(body.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring malformed related-thread change: {}", body);
+            return;
+        }
+        switch (kind) {
+            case "thread" -> worker.execute(() -> safely(() -> forumThreadRepository.findById(id)
+                .ifPresent(thread -> update(thread.getId(), text(thread), true))));
+            case "post" -> worker.execute(() -> safely(() -> forumPostRepository.findById(id)
+                .ifPresent(post -> update(post.getThread().getId(), post.getContent(), true))));
+            case "delete" -> worker.execute(() -> safely(() -> remove(id)));
+            default -> logger.warn("Ignoring malformed related-thread change: {}", body);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        claimOwnership();
+    }
+
+    /**
+     * Take or renew the index lease. A node that gains it rebuilds the index
+     * from the database; a node that loses it drops its copy.
+     */
+    @Scheduled(fixedDelayString = "${app.forum.related.owner-renew-interval:10s}",
+               initialDelayString = "${app.forum.related.owner-renew-interval:10s}")
+    public void claimOwnership() {
+        boolean held;
+        try {
+            Long result = redisTemplate.execute(claimOwner, List.of(OWNER_KEY),
+                clusterNode.getNodeId(), Long.toString(ownerTtl.toMillis()));
+            held = result != null && result == 1L;
+        } catch (Exception e) {
+            // Another node may take the lease once it lapses; do not write alongside it
+            logger.warn("Failed to renew related-thread lease: {}", e.getMessage());
+            held = false;
+        }
+
+        if (held && !owner) {
+            owner = true;
+            logger.info("Took over the related-thread index");
+            worker.execute(() -> safely(() -> {
+                reset();
+                rebuildAll();
+            }));
+        } else if (!held && owner) {
+            owner = false;
+            logger.info("Handed off the related-thread index");
+            worker.execute(this::reset);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        worker.shutdown();
+        worker.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Recompute signatures and neighbour lists for every stored thread.
+     */
+    private void rebuildAll() {
+        long started = System.currentTimeMillis();
+
+        // A stable order, so rows are neither skipped nor repeated across pages
+        Page<ForumThread> threads;
+        int page = 0;
+        do {
+            threads = forumThreadRepository.findAll(PageRequest.of(page++, REBUILD_PAGE_SIZE, Sort.by("id")));
+            for (ForumThread thread : threads) {
+                update(thread.getId(), text(thread), false);
+            }
+        } while (threads.hasNext());
+
+        Page<ForumPost> posts;
+        page = 0;
+        do {
+            posts = forumPostRepository.findAll(PageRequest.of(page++, REBUILD_PAGE_SIZE, Sort.by("id")));
+            for (ForumPost post : posts) {
+                update(post.getThread().getId(), post.getContent(), false);
+            }
+        } while (posts.hasNext());
+
+        for (Map.Entry<Long, MinHashSignature> entry : signatures.entrySet()) {
+            rebucket(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<Long, MinHashSignature> entry : signatures.entrySet()) {
+            List<Neighbour> top = rank(entry.getKey(), entry.getValue(), new HashMap<>());
+            neighbours.put(entry.getKey(), top);
+            store(entry.getKey(), top);
+        }
+
+        logger.info("Rebuilt related-thread index for {} threads in {} ms",
+            signatures.size(), System.currentTimeMillis() - started);
+    }
+
+    private void reset() {
+        signatures.clear();
+        bandKeysByThread.clear();
+        buckets.clear();
+        neighbours.clear();
+    }
+
+    private void update(Long threadId, String text, boolean refresh) {
+        MinHashSignature signature = signatures.computeIfAbsent(threadId, id -> new MinHashSignature(signatureSize));
+        signature.add(text);
+        if (!refresh || signature.isEmpty()) {
+            return;
+        }
+
+        rebucket(threadId, signature);
+
+        Map<Long, Double> similarities = new HashMap<>();
+        List<Neighbour> top = rank(threadId, signature, similarities);
+        neighbours.put(threadId, top);
+        store(threadId, top);
+
+        // The changed thread may now belong in (or drop out of) its candidates' lists
+        for (Map.Entry<Long, Double> candidate : similarities.entrySet()) {
+            offer(candidate.getKey(), new Neighbour(threadId, candidate.getValue()));
+        }
+    }
+
+    private void remove(Long threadId) {
+        signatures.remove(threadId);
+        neighbours.remove(threadId);
+        Set<Long> bucketMates = new HashSet<>();
+        long[] keys = bandKeysByThread.remove(threadId);
+        if (keys != null) {
+            for (long key : keys) {
+                Set<Long> bucket = buckets.get(key);
+                if (bucket != null) {
+                    bucket.remove(threadId);
+                    bucketMates.addAll(bucket);
+                    if (bucket.isEmpty()) {
+                        buckets.remove(key);
+                    }
+                }
+            }
+        }
+        if (owner) {
+            redisTemplate.delete(RELATED_PREFIX + threadId);
+        }
+
+        // Lists naming the deleted thread are refilled from the remaining candidates, so they keep top-N entries
+        for (Long mate : bucketMates) {
+            List<Neighbour> current = neighbours.getOrDefault(mate, List.of());
+            if (current.stream().anyMatch(neighbour -> neighbour.threadId().equals(threadId))) {
+                List<Neighbour> top = rank(mate, signatures.get(mate), new HashMap<>());
+                neighbours.put(mate, top);
+                store(mate, top);
+            }
+        }
+    }
+
+    private void rebucket(Long threadId, MinHashSignature signature) {
+        int rows = signatureSize / bands;
+        long[] previous = bandKeysByThread.get(threadId);
+        long[] current = new long[bands];
+        for (int band = 0; band < bands; band++) {
+            current[band] = signature.bandKey(band, rows);
+        }
+
+        if (previous != null) {
+            for (int band = 0; band < bands; band++) {
+                if (previous[band] != current[band]) {
+                    Set<Long> bucket = buckets.get(previous[band]);
+                    if (bucket != null) {
+                        bucket.remove(threadId);
+                        if (bucket.isEmpty()) {
+                            buckets.remove(previous[band]);
+                        }
+                    }
+                }
+            }
+        }
+        for (long key : current) {
+            buckets.computeIfAbsent(key, k -> new HashSet<>()).add(threadId);
+        }
+        bandKeysByThread.put(threadId, current);
+    }
+
+    private List<Neighbour> rank(Long threadId, MinHashSignature signature, Map<Long, Double> similarities) {
+        long[] keys = bandKeysByThread.get(threadId);
+        if (keys == null) {
+            return List.of();
+        }
+
+        List<Neighbour> ranked = new ArrayList<>();
+        for (long key : keys) {
+            for (Long candidate : buckets.getOrDefault(key, Set.of())) {
+                if (candidate.equals(threadId) || similarities.containsKey(candidate)) {
+                    continue;
+                }
+                double similarity = signature.similarity(signatures.get(candidate));
+                similarities.put(candidate, similarity);
+                if (similarity >= minSimilarity) {
+                    ranked.add(new Neighbour(candidate, similarity));
+                }
+            }
+        }
+        ranked.sort(Neighbour.BY_SCORE);
+        return ranked.size() > topN ? List.copyOf(ranked.subList(0, topN)) : List.copyOf(ranked);
+    }
+
+    private void offer(Long threadId, Neighbour neighbour) {
+        List<Neighbour> current = neighbours.getOrDefault(threadId, List.of());
+        List<Neighbour> updated = new ArrayList<>(current.size() + 1);
+        for (Neighbour existing : current) {
+            if (!existing.threadId().equals(neighbour.threadId())) {
+                updated.add(existing);
+            }
+        }
+        if (neighbour.score() >= minSimilarity) {
+            updated.add(neighbour);
+            updated.sort(Neighbour.BY_SCORE);
+        }
+        if (updated.size() > topN) {
+            updated = updated.subList(0, topN);
+        }
+        if (!updated.equals(current)) {
+            List<Neighbour> top = List.copyOf(updated);
+            neighbours.put(threadId, top);
+            store(threadId, top);
+        }
+    }
+
+    private void store(Long threadId, List<Neighbour> top) {
+        if (!owner) {
+            return;
+        }
+        String key = RELATED_PREFIX + threadId;
+        if (top.isEmpty()) {
+            redisTemplate.delete(key);
+            return;
+        }
+        StringBuilder value = new StringBuilder();
+        for (Neighbour neighbour : top) {
+            if (!value.isEmpty()) {
+                value.append(',');
+            }
+            value.append(neighbour.threadId());
+        }
+        redisTemplate.opsForValue().set(key, value.toString());
+    }
+
+    private void announce(String change) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, change);
+        } catch (Exception e) {
+            // The index misses this change until the lease next changes hands and it is rebuilt
+            logger.warn("Failed to announce related-thread change {}: {}", change, e.getMessage());
+        }
+    }
+
+    private static String text(ForumThread thread) {
+        return thread.getTitle() + " " + (thread.getContent() != null ? thread.getContent() : "");
+    }
+
+    private static void safely(Runnable task) {
+        try {
+            task.run();
+        } catch (Exception e) {
+            logger.warn("Related-thread index update failed: {}", e.getMessage());
+        }
+    }
+
+    private record Neighbour(Long threadId, double score) {
+        static final Comparator<Neighbour> BY_SCORE =
+            Comparator.comparingDouble(Neighbour::score).reversed().thenComparing(Neighbour::threadId);
+    }
+}
\ No newline at end of file
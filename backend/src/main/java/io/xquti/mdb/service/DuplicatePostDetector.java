@@ -0,0 +1,159 @@
+package io.xquti.mdb.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.xquti.mdb.event.PostScreenedEvent;
+import io.xquti.mdb.exception.DuplicatePostException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Write-time near-duplicate screening for forum posts.
+ *
+ * Keeps the SimHash fingerprints of recent posts per thread and per user in
+ * small capped Redis lists, shared by every replica. Checking a post and
+ * remembering it is one script call, so two concurrent submits of the same
+ * post cannot both pass. A remembered post is forgotten again if its
+ * transaction rolls back.
+ *
+ * A repeat by the same author in the same thread is always matched. Any
+ * other match, across authors or across threads, needs both posts to be
+ * long, so short replies like "thanks!" are not mistaken for spam.
+ */
+@Component
+public class DuplicatePostDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(DuplicatePostDetector.class);
+    private static final String THREAD_PREFIX = "forum:recent:thread:";
+    private static final String USER_PREFIX = "forum:recent:user:";
+
+    public enum Mode { REJECT, FLAG, OFF }
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RedisScript<List> script;
+    private final Mode mode;
+    private final int maxDistance;
+    private final long windowMillis;
+    private final int ringSize;
+    private final int minCrossUserLength;
+
+    private final Counter rejected;
+    private final Counter flagged;
+
+    @Autowired
+    public DuplicatePostDetector(
+            RedisTemplate<String, String> redisTemplate,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${app.forum.duplicates.mode:reject}") String mode,
+            @Value("${app.forum.duplicates.max-distance:6}") int maxDistance,
+            @Value("${app.forum.duplicates.window:10m}") Duration window,
+            @Value("${app.forum.duplicates.ring-size:16}") int ringSize,
+            @Value("${app.forum.duplicates.min-cross-user-length:40}") int minCrossUserLength,
+            MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.eventPublisher = eventPublisher;
+        this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        this.maxDistance = maxDistance;
+        this.windowMillis = window.toMillis();
+        this.ringSize = ringSize;
+        this.minCrossUserLength = minCrossUserLength;
+
+        DefaultRedisScript<List> screen = new DefaultRedisScript<>();
+        screen.setLocation(new ClassPathResource("scripts/duplicate-post.lua"));
+        screen.setResultType(List.class);
+        this.script = screen;
+
+        this.rejected = Counter.builder("mdb.forum.duplicate.posts")
+            .tag("action", "rejected")
+            .description("Posts rejected as near-duplicates of recent posts")
+            .register(meterRegistry);
+        this.flagged = Counter.builder("mdb.forum.duplicate.posts")
+            .tag("action", "flagged")
+            .description("Posts flagged as near-duplicates of recent posts")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Check a post before it is inserted and remember it for later checks.
+     * Call inside the transaction that saves the post.
+     *
+     * @throws DuplicatePostException if the post is a near-duplicate and mode is REJECT
+     */
+    public void screen(Long threadId, Long userId, String content) {
+        if (mode == Mode.OFF) {
+            return;
+        }
+        long hash = SimHash.fingerprint(content);
+        if (hash == 0L) {
+            // No words to compare; every such post would match every other
+            return;
+        }
+        boolean longPost = content.length() >= minCrossUserLength;
+
+        List<?> reply;
+        try {
+            reply = redisTemplate.execute(script, List.of(THREAD_PREFIX + threadId, USER_PREFIX + userId),
+                UUID.randomUUID().toString(),
+                Integer.toString((int) (hash >>> 32)),
+                Integer.toString((int) hash),
+                userId.toString(),
+                threadId.toString(),
+                longPost ? "1" : "0",
+                Integer.toString(maxDistance),
+                Long.toString(windowMillis),
+                Integer.toString(ringSize),
+                mode == Mode.REJECT ? "1" : "0");
+        } catch (Exception e) {
+            // Screening is a spam guard, not a constraint; let the post through
+            logger.warn("Duplicate screening unavailable, accepting post: {}", e.getMessage());
+            return;
+        }
+        if (reply == null || reply.size() < 2) {
+            logger.warn("Unexpected duplicate screening reply: {}", reply);
+            return;
+        }
+
+        boolean duplicate = "1".equals(reply.get(0).toString());
+        String entry = reply.get(1).toString();
+        if (!entry.isEmpty()) {
+            eventPublisher.publishEvent(new PostScreenedEvent(threadId, userId, entry));
+        }
+        if (duplicate) {
+            if (mode == Mode.REJECT) {
+                rejected.increment();
+                throw new DuplicatePostException("This post is too similar to a recent post");
+            }
+            flagged.increment();
+            logger.warn("Near-duplicate post flagged in thread: {} by user: {}", threadId, userId);
+        }
+    }
+
+    /**
+     * Forget a post whose transaction rolled back, so it cannot block a retry.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+    public void onRolledBack(PostScreenedEvent event) {
+        try {
+            redisTemplate.opsForList().remove(THREAD_PREFIX + event.threadId(), 1, event.entry());
+            redisTemplate.opsForList().remove(USER_PREFIX + event.userId(), 1, event.entry());
+        } catch (Exception e) {
+            logger.warn("Failed to forget rolled-back post in thread {}: {}", event.threadId(), e.getMessage());
+        }
+    }
+}
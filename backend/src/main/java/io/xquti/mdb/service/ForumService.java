@@ -2,6 +2,9 @@ package io.xquti.mdb.service;
 
 import io.xquti.mdb.dto.ForumPostDto;
 import io.xquti.mdb.dto.ForumThreadDto;
+import io.xquti.mdb.event.PostCreatedEvent;
+import io.xquti.mdb.event.ThreadCreatedEvent;
+import io.xquti.mdb.event.ThreadDeletedEvent;
 import io.xquti.mdb.exception.EntityNotFoundException;
 import io.xquti.mdb.exception.ForbiddenException;
 import io.xquti.mdb.model.ForumPost;
@@ -10,11 +13,11 @@ import io.xquti.mdb.model.User;
 import io.xquti.mdb.repository.ForumPostRepository;
 import io.xquti.mdb.repository.ForumThreadRepository;
 import io.xquti.mdb.repository.UserRepository;
-import io.xquti.mdb.search.SearchService;
-import io.xquti.mdb.websocket.ForumWebSocketController;
+import io.xquti.mdb.search.RelatedThreadsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -22,6 +25,10 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Gatherers;
 
 @Service
@@ -39,14 +46,20 @@ public class ForumService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private UserService userService;
+    
     @Autowired
     private DtoMapper dtoMapper;
     
     @Autowired
-    private SearchService searchService;
+    private RelatedThreadsService relatedThreadsService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
     
     @Autowired
-    private ForumWebSocketController webSocketController;
+    private DuplicatePostDetector duplicatePostDetector;
     
     // Thread operations
     public Page<ForumThreadDto> getAllThreads(Pageable pageable, String category) {
@@ -108,6 +121,28 @@ public class ForumService {
             .toList();
     }
     
+    public List<ForumThreadDto> getRelatedThreads(Long threadId) {
+        logger.debug("Fetching related threads for thread: {}", threadId);
+        
+        if (!forumThreadRepository.existsById(threadId)) {
+            throw new EntityNotFoundException("ForumThread", threadId);
+        }
+        
+        List<Long> relatedIds = relatedThreadsService.getRelatedThreadIds(threadId);
+        if (relatedIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        // Keep the stored ranking; ids of threads deleted since the last refresh are skipped
+        Map<Long, ForumThread> threadsById = forumThreadRepository.findAllById(relatedIds).stream()
+            .collect(Collectors.toMap(ForumThread::getId, Function.identity()));
+        return relatedIds.stream()
+            .map(threadsById::get)
+            .filter(Objects::nonNull)
+            .map(dtoMapper::toForumThreadDto)
+            .toList();
+    }
+    
     public ForumThreadDto createThread(String title, String content, Long userId) {
         logger.info("Creating new forum thread: {} by user: {}", title, userId);
         
@@ -122,20 +157,9 @@ public class ForumService {
         ForumThread savedThread = forumThreadRepository.save(thread);
         logger.info("Successfully created forum thread: {}", savedThread.getId());
         
-        // Index thread for search
-        try {
-            searchService.indexThread(savedThread);
-        } catch (Exception e) {
-            logger.warn("Failed to index thread for search: {}", e.getMessage());
-        }
-        
-        // Broadcast new thread via WebSocket
+        // Search indexing, recommendations and WebSocket broadcast run asynchronously after commit
         ForumThreadDto threadDto = dtoMapper.toForumThreadDto(savedThread);
-        try {
-            webSocketController.broadcastNewThread(threadDto);
-        } catch (Exception e) {
-            logger.warn("Failed to broadcast new thread via WebSocket: {}", e.getMessage());
-        }
+        eventPublisher.publishEvent(new ThreadCreatedEvent(savedThread, threadDto));
         
         return threadDto;
     }
@@ -146,12 +170,12 @@ public class ForumService {
         ForumThread existingThread = forumThreadRepository.findById(id)
             .orElseThrow(() -> new EntityNotFoundException("ForumThread", id));
         
-        User user = userRepository.findByEmail(userEmail)
+        UserPrincipal user = userService.findPrincipalByEmail(userEmail)
             .orElseThrow(() -> new EntityNotFoundException("User", "email", userEmail));
         
         // Check if user is the author or admin
-        if (!existingThread.getAuthor().getId().equals(user.getId()) && 
-            !user.getRoles().contains(User.Role.ADMIN)) {
+        if (!existingThread.getAuthor().getId().equals(user.id()) && 
+            !user.roles().contains(User.Role.ADMIN)) {
             throw new ForbiddenException("You can only edit your own threads");
         }
         
@@ -171,16 +195,17 @@ public class ForumService {
         ForumThread thread = forumThreadRepository.findById(id)
             .orElseThrow(() -> new EntityNotFoundException("ForumThread", id));
         
-        User user = userRepository.findByEmail(userEmail)
+        UserPrincipal user = userService.findPrincipalByEmail(userEmail)
             .orElseThrow(() -> new EntityNotFoundException("User", "email", userEmail));
         
         // Check if user is the author or admin
-        if (!thread.getAuthor().getId().equals(user.getId()) && 
-            !user.getRoles().contains(User.Role.ADMIN)) {
+        if (!thread.getAuthor().getId().equals(user.id()) && 
+            !user.roles().contains(User.Role.ADMIN)) {
             throw new ForbiddenException("You can only delete your own threads");
         }
         
         forumThreadRepository.delete(thread);
+        eventPublisher.publishEvent(new ThreadDeletedEvent(id));
         logger.info("Successfully deleted forum thread: {}", id);
     }
     
@@ -210,25 +235,17 @@ public class ForumService {
         User author = userRepository.findById(userId)
             .orElseThrow(() -> new EntityNotFoundException("User", userId));
         
+        // Reject (or flag) near-duplicates before they reach the database, search index and WebSocket fan-out
+        duplicatePostDetector.screen(threadId, userId, content);
+        
         ForumPost post = new ForumPost(content, author, thread);
         ForumPost savedPost = forumPostRepository.save(post);
         
         logger.info("Successfully created forum post: {}", savedPost.getId());
         
-        // Index post for search
-        try {
-            searchService.indexPost(savedPost);
-        } catch (Exception e) {
-            logger.warn("Failed to index post for search: {}", e.getMessage());
-        }
-        
-        // Broadcast new post via WebSocket
+        // Search indexing, recommendations and WebSocket broadcast run asynchronously after commit
         ForumPostDto postDto = dtoMapper.toForumPostDto(savedPost);
-        try {
-            webSocketController.broadcastNewPost(postDto);
-        } catch (Exception e) {
-            logger.warn("Failed to broadcast new post via WebSocket: {}", e.getMessage());
-        }
+        eventPublisher.publishEvent(new PostCreatedEvent(savedPost, postDto));
         
         return postDto;
     }
@@ -239,12 +256,12 @@ public class ForumService {
         ForumPost existingPost = forumPostRepository.findById(postId)
             .orElseThrow(() -> new EntityNotFoundException("ForumPost", postId));
         
-        User user = userRepository.findByEmail(userEmail)
+        UserPrincipal user = userService.findPrincipalByEmail(userEmail)
             .orElseThrow(() -> new EntityNotFoundException("User", "email", userEmail));
         
         // Check if user is the author or admin
-        if (!existingPost.getAuthor().getId().equals(user.getId()) && 
-            !user.getRoles().contains(User.Role.ADMIN)) {
+        if (!existingPost.getAuthor().getId().equals(user.id()) && 
+            !user.roles().contains(User.Role.ADMIN)) {
             throw new ForbiddenException("You can only edit your own posts");
         }
         
@@ -262,12 +279,12 @@ public class ForumService {
         ForumPost post = forumPostRepository.findById(postId)
             .orElseThrow(() -> new EntityNotFoundException("ForumPost", postId));
         
-        User user = userRepository.findByEmail(userEmail)
+        UserPrincipal user = userService.findPrincipalByEmail(userEmail)
             .orElseThrow(() -> new EntityNotFoundException("User", "email", userEmail));
         
         // Check if user is the author or admin
-        if (!post.getAuthor().getId().equals(user.getId()) && 
-            !user.getRoles().contains(User.Role.ADMIN)) {
+        if (!post.getAuthor().getId().equals(user.id()) && 
+            !user.roles().contains(User.Role.ADMIN)) {
             throw new ForbiddenException("You can only delete your own posts");
         }
         
@@ -1,31 +1,44 @@
 package io.xquti.mdb.service;
 
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
+import io.xquti.mdb.config.security.TokenRevocationService;
+import io.xquti.mdb.config.security.TokenVersionService;
+import io.xquti.mdb.model.User;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.time.Duration;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
     
     private static final Logger logger = LoggerFactory.getLogger(JwtService.class);
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String ROLES_CLAIM = "roles";
+    private static final String USER_VERSION_CLAIM = "uver";
     
     @Value("${jwt.secret}")
     private String secret;
@@ -42,10 +55,61 @@ public class JwtService {
     @Value("${jwt.audience:mdb-users}")
     private String audience;
     
+    // Secrets retired by a rotation; tokens they signed stay valid until they expire
+    @Value("${jwt.previous-secrets:}")
+    private List<String> previousSecrets;
+    
     @Autowired
-    private RedisTemplate<String, String> redisTemplate;
+    private TokenRevocationService revocationService;
     
-    private SecretKey getSigningKey() {
+    @Autowired
+    private TokenVersionService versionService;
+    
+    // Derived once at startup; the parser is immutable and shared by all request threads
+    private SecretKey signingKey;
+    private String signingKeyId;
+    private Map<String, SecretKey> verificationKeys;
+    private JwtParser parser;
+    
+    @PostConstruct
+    public void init() {
+        Map<String, SecretKey> keys = new LinkedHashMap<>();
+        signingKey = deriveKey(secret);
+        signingKeyId = keyId(signingKey);
+        keys.put(signingKeyId, signingKey);
+        if (previousSecrets != null) {
+            for (String previous : previousSecrets) {
+                if (!previous.isBlank()) {
+                    SecretKey key = deriveKey(previous.trim());
+                    keys.putIfAbsent(keyId(key), key);
+                }
+            }
+        }
+        verificationKeys = Map.copyOf(keys);
+        
+        parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        String kid = header.getKeyId();
+                        // Tokens issued before key ids were added carry none; they were signed with the current secret
+                        if (kid == null) {
+                            return signingKey;
+                        }
+                        SecretKey key = verificationKeys.get(kid);
+                        if (key == null) {
+                            throw new JwtException("Unknown signing key id");
+                        }
+                        return key;
+                    }
+                })
+                .requireIssuer(issuer)
+                .requireAudience(audience)
+                .build();
+        logger.info("JWT signing key {} loaded, {} key(s) accepted for verification", signingKeyId, verificationKeys.size());
+    }
+    
+    private static SecretKey deriveKey(String secret) {
         // CRITICAL SECURITY: Validate JWT secret
         if (secret == null || secret.trim().isEmpty()) {
             throw new IllegalStateException("JWT_SECRET environment variable is required and cannot be empty");
@@ -72,6 +136,18 @@ public class JwtService {
         }
     }
     
+    /**
+     * Public identifier of a key: a truncated hash of the derived key, so it reveals nothing about the secret.
+     */
+    private static String keyId(SecretKey key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getEncoded());
+            return HexFormat.of().formatHex(hash, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 algorithm not available", e);
+        }
+    }
+    
     public String extractUsername(String token) {
         try {
             return extractClaim(token, Claims::getSubject);
@@ -92,13 +168,7 @@ public class JwtService {
     
     private Claims extractAllClaims(String token) {
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .requireIssuer(issuer)
-                    .requireAudience(audience)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            Claims claims = parser.parseSignedClaims(token).getPayload();
             
             // Additional security validations
             if (claims.getIssuedAt() == null) {
@@ -109,6 +179,10 @@ public class JwtService {
                 throw new JwtException("Token issued in the future");
             }
             
+            if (claims.getExpiration() == null) {
+                throw new JwtException("Token missing expiration claim");
+            }
+            
             return claims;
         } catch (SignatureException e) {
             logger.warn("JWT signature validation failed: {}", e.getMessage());
@@ -122,22 +196,59 @@ public class JwtService {
         }
     }
     
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    /**
+     * Verify a token once and capture its claims.
+     * The parser rejects expired tokens, so this covers signature, issuer, audience, lifetime and revocation.
+     *
+     * @throws JwtException if the token is invalid or has been revoked
+     */
+    public ValidatedToken validate(String token) {
+        Claims claims = extractAllClaims(token);
+        // Tokens issued before jti was added are identified by their hash
+        String id = claims.getId() != null ? claims.getId() : tokenHash(token);
+        Long userId = claims.get(USER_ID_CLAIM, Long.class);
+        Long userVersion = claims.get(USER_VERSION_CLAIM, Long.class);
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+        ValidatedToken validated = new ValidatedToken(token, id, claims.getSubject(), claims.get("type", String.class),
+                claims.getIssuedAt().toInstant(), claims.getExpiration().toInstant(),
+                userId, roles != null ? roles.stream().map(String::valueOf).toList() : List.of(),
+                userVersion != null ? userVersion : 0);
+        if (userId != null && versionService.isStale(userId, validated.userVersion())) {
+            throw new JwtException("Token predates a change to the user's roles");
+        }
+        if (revocationService.isRevoked(validated)) {
+            throw new JwtException("Token has been revoked");
+        }
+        return validated;
     }
     
     public String generateToken(String username) {
         return generateToken(username, false);
     }
     
+    /**
+     * Issue a token that also carries the user's id, roles and token version,
+     * so requests bearing it are authenticated without loading the user.
+     */
+    public String generateToken(User user, boolean isRefreshToken) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(USER_ID_CLAIM, user.getId());
+        claims.put(ROLES_CLAIM, user.getRoles().stream().map(Enum::name).sorted().toList());
+        claims.put(USER_VERSION_CLAIM, user.getTokenVersion());
+        return generateToken(user.getUsername(), isRefreshToken, claims);
+    }
+    
     public String generateToken(String username, boolean isRefreshToken) {
+        return generateToken(username, isRefreshToken, new HashMap<>());
+    }
+    
+    private String generateToken(String username, boolean isRefreshToken, Map<String, Object> claims) {
         logger.debug("Generating JWT token for user: {} (refresh: {})", username, isRefreshToken);
         
         if (username == null || username.trim().isEmpty()) {
             throw new IllegalArgumentException("Username cannot be null or empty");
         }
         
-        Map<String, Object> claims = new HashMap<>();
         claims.put("type", isRefreshToken ? "refresh" : "access");
         
         long tokenExpiration = isRefreshToken ? refreshExpiration : expiration;
@@ -152,34 +263,28 @@ public class JwtService {
         Date expiryDate = new Date(now.getTime() + expirationTime);
         
         return Jwts.builder()
+                .header().keyId(signingKeyId).and()
                 .claims(claims)
+                .id(UUID.randomUUID().toString())
                 .subject(subject)
                 .issuer(issuer)
                 .audience().add(audience).and()
                 .issuedAt(now)
                 .notBefore(now) // Token not valid before now
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
     
     public Boolean validateToken(String token, String username) {
         try {
-            // Check if token is blacklisted
-            if (isTokenBlacklisted(token)) {
-                logger.warn("Token is blacklisted for user: {}", username);
-                return false;
-            }
-            
-            final String extractedUsername = extractUsername(token);
+            final String extractedUsername = validate(token).subject();
             
             // SECURITY: Use constant-time comparison to prevent timing attacks
-            boolean usernameMatches = MessageDigest.isEqual(
+            boolean isValid = MessageDigest.isEqual(
                 extractedUsername.getBytes(StandardCharsets.UTF_8), 
                 username.getBytes(StandardCharsets.UTF_8)
             );
-            
-            boolean isValid = usernameMatches && !isTokenExpired(token);
             logger.debug("Token validation result for user {}: {}", username, isValid);
             return isValid;
         } catch (Exception e) {
@@ -188,35 +293,12 @@ public class JwtService {
         }
     }
     
-    /**
-     * Blacklist a token (for logout/revocation)
-     */
-    public void blacklistToken(String token) {
+    private static String tokenHash(String token) {
         try {
-            Date expiration = extractExpiration(token);
-            long ttl = expiration.getTime() - System.currentTimeMillis();
-            if (ttl > 0) {
-                String key = "blacklisted_token:" + token;
-                redisTemplate.opsForValue().set(key, "true", Duration.ofMillis(ttl));
-                logger.info("Token blacklisted successfully");
-            }
-        } catch (Exception e) {
-            logger.error("Failed to blacklist token: {}", e.getMessage());
-        }
-    }
-    
-    /**
-     * Check if token is blacklisted
-     */
-    private boolean isTokenBlacklisted(String token) {
-        try {
-            String key = "blacklisted_token:" + token;
-            return Boolean.TRUE.equals(redisTemplate.hasKey(key));
-        } catch (Exception e) {
-            logger.error("Failed to check token blacklist: {}", e.getMessage());
-            // Fail secure - if we can't check blacklist, assume token is valid
-            // This prevents Redis outages from blocking all authentication
-            return false;
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 algorithm not available", e);
         }
     }
 }
\ No newline at end of file
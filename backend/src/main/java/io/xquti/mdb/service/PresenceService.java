@@ -0,0 +1,189 @@
+package io.xquti.mdb.service;
+
+import io.xquti.mdb.websocket.ClusterBroadcaster;
+import io.xquti.mdb.websocket.SubscriptionRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-thread presence and typing indicators.
+ *
+ * Activity heartbeats are stored in Redis sorted sets scored by last-seen
+ * time, so every replica sees the same state and stale members age out
+ * after the TTL. Repeated events from the same user are throttled locally
+ * before they reach Redis. Subscribers do not get a frame per keystroke:
+ * each node compares the current state of the threads it has watchers for
+ * at a fixed cadence and sends only what changed.
+ */
+@Service
+public class PresenceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PresenceService.class);
+    private static final String ONLINE_PREFIX = "presence:thread:";
+    private static final String TYPING_PREFIX = "presence:typing:";
+    private static final Set<String> ACTIVITIES = Set.of("viewing", "typing", "idle", "left");
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ClusterBroadcaster broadcaster;
+    private final SubscriptionRegistry subscriptions;
+
+    private final long ttlMillis;
+    private final long typingTtlMillis;
+    private final long throttleMillis;
+
+    // "threadId:username" -> last accepted event, used to throttle repeats
+    private final Map<String, AcceptedActivity> lastAccepted = new ConcurrentHashMap<>();
+
+    // Only touched by the scheduled publisher
+    private final Map<Long, PresenceSnapshot> lastPublished = new HashMap<>();
+
+    @Autowired
+    public PresenceService(RedisTemplate<String, String> redisTemplate,
+                           ClusterBroadcaster broadcaster,
+                           SubscriptionRegistry subscriptions,
+                           @Value("${app.forum.presence.ttl:60s}") Duration ttl,
+                           @Value("${app.forum.presence.typing-ttl:6s}") Duration typingTtl,
+                           @Value("${app.forum.presence.throttle:2s}") Duration throttle) {
+        this.redisTemplate = redisTemplate;
+        this.broadcaster = broadcaster;
+        this.subscriptions = subscriptions;
+        this.ttlMillis = ttl.toMillis();
+        this.typingTtlMillis = typingTtl.toMillis();
+        this.throttleMillis = throttle.toMillis();
+    }
+
+    /**
+     * Record an activity event (viewing, typing, idle, left) from a user in a thread.
+     *
+     * @return false if the event was throttled or not recognised
+     */
+    public boolean recordActivity(Long threadId, String username, String activity) {
+        if (threadId == null || username == null || activity == null) {
+            return false;
+        }
+        String normalized = activity.trim().toLowerCase(Locale.ROOT);
+        if (!ACTIVITIES.contains(normalized)) {
+            return false;
+        }
+
+        long now = System.currentTimeMillis();
+        String throttleKey = threadId + ":" + username;
+        AcceptedActivity previous = lastAccepted.get(throttleKey);
+        if (previous != null && previous.activity().equals(normalized) && now - previous.at() < throttleMillis) {
+            return false;
+        }
+        lastAccepted.put(throttleKey, new AcceptedActivity(normalized, now));
+
+        String onlineKey = ONLINE_PREFIX + threadId;
+        String typingKey = TYPING_PREFIX + threadId;
+        try {
+            if ("left".equals(normalized)) {
+                redisTemplate.opsForZSet().remove(onlineKey, username);
+                redisTemplate.opsForZSet().remove(typingKey, username);
+                lastAccepted.remove(throttleKey);
+                return true;
+            }
+
+            redisTemplate.opsForZSet().add(onlineKey, username, now);
+            redisTemplate.opsForZSet().removeRangeByScore(onlineKey, 0, now - ttlMillis);
+            redisTemplate.expire(onlineKey, ttlMillis, TimeUnit.MILLISECONDS);
+
+            if ("typing".equals(normalized)) {
+                redisTemplate.opsForZSet().add(typingKey, username, now);
+                redisTemplate.expire(typingKey, typingTtlMillis, TimeUnit.MILLISECONDS);
+            } else {
+                redisTemplate.opsForZSet().remove(typingKey, username);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to record presence for thread {}: {}", threadId, e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * Users currently present in a thread and those typing, read from the shared state.
+     */
+    public PresenceSnapshot getPresence(Long threadId) {
+        long now = System.currentTimeMillis();
+        return new PresenceSnapshot(
+            members(ONLINE_PREFIX + threadId, now - ttlMillis),
+            members(TYPING_PREFIX + threadId, now - typingTtlMillis));
+    }
+
+    /**
+     * Send presence changes for every thread watched on this node.
+     * Each replica reads the shared Redis state and delivers to its own subscribers only.
+     */
+    @Scheduled(fixedRateString = "${app.forum.presence.publish-interval:2s}")
+    public void publishChanges() {
+        long now = System.currentTimeMillis();
+        lastAccepted.values().removeIf(accepted -> now - accepted.at() > ttlMillis);
+
+        Set<Long> watched = new HashSet<>();
+        for (long threadId : subscriptions.watchedThreadIds()) {
+            watched.add(threadId);
+            try {
+                publishChange(threadId);
+            } catch (Exception e) {
+                logger.warn("Failed to publish presence for thread {}: {}", threadId, e.getMessage());
+            }
+        }
+        lastPublished.keySet().retainAll(watched);
+    }
+
+    private void publishChange(long threadId) {
+        PresenceSnapshot current = getPresence(threadId);
+        PresenceSnapshot previous = lastPublished.getOrDefault(threadId, PresenceSnapshot.EMPTY);
+        if (current.equals(previous)) {
+            return;
+        }
+        lastPublished.put(threadId, current);
+
+        List<String> joined = new ArrayList<>(current.online());
+        joined.removeAll(previous.online());
+        List<String> left = new ArrayList<>(previous.online());
+        left.removeAll(current.online());
+
+        PresenceDiff diff = new PresenceDiff(threadId, joined, left, current.typing(), current.online().size());
+        broadcaster.broadcastLocal("/topic/forum/thread/" + threadId + "/presence", diff);
+    }
+
+    private List<String> members(String key, long minScore) {
+        Set<String> members = redisTemplate.opsForZSet().rangeByScore(key, minScore, Double.POSITIVE_INFINITY);
+        return members == null ? List.of() : List.copyOf(new TreeSet<>(members));
+    }
+
+    private record AcceptedActivity(String activity, long at) {
+    }
+
+    /**
+     * Everyone present in a thread, and the subset currently typing.
+     */
+    public record PresenceSnapshot(List<String> online, List<String> typing) {
+        static final PresenceSnapshot EMPTY = new PresenceSnapshot(List.of(), List.of());
+    }
+
+    /**
+     * Presence frame sent to {@code /topic/forum/thread/{id}/presence}.
+     */
+    public record PresenceDiff(Long threadId, List<String> joined, List<String> left,
+                               List<String> typing, int online) {
+    }
+}
\ No newline at end of file
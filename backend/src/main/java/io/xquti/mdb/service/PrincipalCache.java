@@ -0,0 +1,230 @@
+package io.xquti.mdb.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.xquti.mdb.event.UserChangedEvent;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Node-local cache of {@link UserPrincipal}s, addressable by id, email and username.
+ *
+ * One load fills all three keys. Entries live for at most {@code ttl} and are
+ * evicted least-recently-used beyond {@code max-entries}. When a user changes,
+ * the change is announced after commit and every node drops the entry. A load
+ * that overlaps an invalidation is not cached, so a stale row read just before
+ * the change cannot outlive it.
+ */
+@Component
+public class PrincipalCache implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrincipalCache.class);
+    private static final String CHANNEL = "users:changed";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final Counter hits;
+    private final Counter misses;
+
+    // All guarded by entries; access order gives LRU eviction
+    private final LinkedHashMap<Long, Entry> entries;
+    private final Map<String, Long> idsByEmail = new HashMap<>();
+    private final Map<String, Long> idsByUsername = new HashMap<>();
+    private long invalidations;
+
+    @Autowired
+    public PrincipalCache(RedisTemplate<String, String> redisTemplate,
+                          RedisMessageListenerContainer listenerContainer,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.users.cache.max-entries:10000}") int maxEntries,
+                          @Value("${app.users.cache.ttl:5m}") Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.ttlMillis = ttl.toMillis();
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > PrincipalCache.this.maxEntries) {
+                    unindex(eldest.getValue().principal());
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        this.hits = Counter.builder("mdb.users.cache.requests")
+            .tag("result", "hit")
+            .description("User lookups served from the principal cache")
+            .register(meterRegistry);
+        this.misses = Counter.builder("mdb.users.cache.requests")
+            .tag("result", "miss")
+            .description("User lookups that went to the database")
+            .register(meterRegistry);
+        Gauge.builder("mdb.users.cache.size", this, PrincipalCache::size)
+            .description("Users held in the principal cache")
+            .register(meterRegistry);
+        Gauge.builder("mdb.users.cache.hit.ratio", this, PrincipalCache::hitRatio)
+            .description("Share of user lookups served from the principal cache since startup")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    public Optional<UserPrincipal> getById(Long id, Supplier<Optional<UserPrincipal>> loader) {
+        synchronized (entries) {
+            UserPrincipal cached = live(id);
+            if (cached != null) {
+                hits.increment();
+                return Optional.of(cached);
+            }
+        }
+        return load(loader);
+    }
+
+    public Optional<UserPrincipal> getByEmail(String email, Supplier<Optional<UserPrincipal>> loader) {
+        return getByIndex(idsByEmail, email, loader);
+    }
+
+    public Optional<UserPrincipal> getByUsername(String username, Supplier<Optional<UserPrincipal>> loader) {
+        return getByIndex(idsByUsername, username, loader);
+    }
+
+    /**
+     * Drop a user on this node only.
+     */
+    public void evict(Long userId) {
+        synchronized (entries) {
+            invalidations++;
+            Entry entry = entries.remove(userId);
+            if (entry != null) {
+                unindex(entry.principal());
+            }
+        }
+    }
+
+    /**
+     * Drop a changed user on every node, once the change is committed.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        evict(event.userId());
+        try {
+            redisTemplate.convertAndSend(CHANNEL, event.userId().toString());
+        } catch (Exception e) {
+            // Other nodes serve the old entry until it expires
+            logger.warn("Failed to announce change of user {}: {}", event.userId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            evict(Long.parseLong(body));
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring malformed user change message: {}", body);
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private Optional<UserPrincipal> getByIndex(Map<String, Long> index, String key,
+                                               Supplier<Optional<UserPrincipal>> loader) {
+        synchronized (entries) {
+            Long id = index.get(key);
+            UserPrincipal cached = id != null ? live(id) : null;
+            if (cached != null) {
+                hits.increment();
+                return Optional.of(cached);
+            }
+        }
+        return load(loader);
+    }
+
+    private Optional<UserPrincipal> load(Supplier<Optional<UserPrincipal>> loader) {
+        misses.increment();
+        long generation;
+        synchronized (entries) {
+            generation = invalidations;
+        }
+
+        // Outside the lock: a database round trip must not block hits
+        Optional<UserPrincipal> loaded = loader.get();
+
+        loaded.ifPresent(principal -> {
+            synchronized (entries) {
+                if (generation != invalidations) {
+                    return;
+                }
+                Entry previous = entries.put(principal.id(), new Entry(principal, System.currentTimeMillis()));
+                if (previous != null) {
+                    unindex(previous.principal());
+                }
+                idsByEmail.put(principal.email(), principal.id());
+                idsByUsername.put(principal.username(), principal.id());
+            }
+        });
+        return loaded;
+    }
+
+    /**
+     * Caller holds the lock.
+     */
+    private UserPrincipal live(Long id) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - entry.loadedAt() >= ttlMillis) {
+            entries.remove(id);
+            unindex(entry.principal());
+            return null;
+        }
+        return entry.principal();
+    }
+
+    /**
+     * Caller holds the lock.
+     */
+    private void unindex(UserPrincipal principal) {
+        idsByEmail.remove(principal.email(), principal.id());
+        idsByUsername.remove(principal.username(), principal.id());
+    }
+
+    private record Entry(UserPrincipal principal, long loadedAt) { }
+}
@@ -0,0 +1,84 @@
+package io.xquti.mdb.service;
+
+import java.util.Locale;
+
+/**
+ * 64-bit SimHash over word unigrams and bigrams.
+ * Near-identical texts produce fingerprints that differ in only a few bits,
+ * so duplicates can be found by Hamming distance instead of text comparison.
+ */
+public final class SimHash {
+
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private SimHash() {
+    }
+
+    /**
+     * @return the fingerprint of {@code text}, or 0 when it contains no words
+     */
+    public static long fingerprint(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0L;
+        }
+
+        int[] weights = new int[64];
+        String lower = text.toLowerCase(Locale.ROOT);
+        int length = lower.length();
+        long previous = 0L;
+        boolean hasPrevious = false;
+        boolean hasFeature = false;
+
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(lower.charAt(i))) {
+                i++;
+            }
+            if (i >= length) {
+                break;
+            }
+            long token = FNV_OFFSET;
+            while (i < length && Character.isLetterOrDigit(lower.charAt(i))) {
+                token = (token ^ lower.charAt(i)) * FNV_PRIME;
+                i++;
+            }
+
+            accumulate(weights, mix(token));
+            if (hasPrevious) {
+                accumulate(weights, mix(previous * 31 + token));
+            }
+            previous = token;
+            hasPrevious = true;
+            hasFeature = true;
+        }
+
+        if (!hasFeature) {
+            return 0L;
+        }
+
+        long fingerprint = 0L;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    private static void accumulate(int[] weights, long featureHash) {
+        for (int bit = 0; bit < 64; bit++) {
+            weights[bit] += ((featureHash >>> bit) & 1L) != 0 ? 1 : -1;
+        }
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+}
\ No newline at end of file
@@ -2,14 +2,18 @@ package io.xquti.mdb.service;
 
 import io.xquti.mdb.dto.TutorialLessonDto;
 import io.xquti.mdb.dto.TutorialModuleDto;
+import io.xquti.mdb.event.LessonDeletedEvent;
+import io.xquti.mdb.event.LessonSavedEvent;
 import io.xquti.mdb.exception.EntityNotFoundException;
 import io.xquti.mdb.model.TutorialLesson;
 import io.xquti.mdb.model.TutorialModule;
 import io.xquti.mdb.repository.TutorialLessonRepository;
 import io.xquti.mdb.repository.TutorialModuleRepository;
+import io.xquti.mdb.search.CodeSymbolIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,6 +34,12 @@ public class TutorialService {
     @Autowired
     private DtoMapper dtoMapper;
     
+    @Autowired
+    private CodeSymbolIndex codeSymbolIndex;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     // Module operations
     public List<TutorialModuleDto> getAllModules() {
         logger.debug("Fetching all tutorial modules");
@@ -176,6 +186,9 @@ public class TutorialService {
         TutorialLesson savedLesson = tutorialLessonRepository.save(lesson);
         logger.info("Successfully created tutorial lesson: {}", savedLesson.getId());
         
+        // Indexed after commit, so a rolled-back save never reaches the symbol index
+        eventPublisher.publishEvent(new LessonSavedEvent(savedLesson));
+        
         return dtoMapper.toTutorialLessonDto(savedLesson);
     }
     
@@ -194,9 +207,17 @@ public class TutorialService {
         TutorialLesson savedLesson = tutorialLessonRepository.save(existingLesson);
         logger.info("Successfully updated tutorial lesson: {}", savedLesson.getId());
         
+        // Indexed after commit, so a rolled-back save never reaches the symbol index
+        eventPublisher.publishEvent(new LessonSavedEvent(savedLesson));
+        
         return dtoMapper.toTutorialLessonDto(savedLesson);
     }
     
+    public List<CodeSymbolIndex.SymbolPosting> findSymbolUsages(String symbol) {
+        logger.debug("Looking up tutorial code symbol: {}", symbol);
+        return codeSymbolIndex.lookup(symbol);
+    }
+    
     public void deleteLesson(Long id) {
         logger.info("Deleting tutorial lesson: {}", id);
         
@@ -205,6 +226,7 @@ public class TutorialService {
         }
         
         tutorialLessonRepository.deleteById(id);
+        eventPublisher.publishEvent(new LessonDeletedEvent(id));
         logger.info("Successfully deleted tutorial lesson: {}", id);
     }
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package io.xquti.mdb.service;
+
+import io.xquti.mdb.dto.UserDto;
+import io.xquti.mdb.model.User;
+
+import java.util.Set;
+
+/**
+ * Immutable snapshot of a user, safe to share between requests and threads.
+ *
+ * This is what {@link PrincipalCache} holds: the public profile plus the
+ * token version, detached from any persistence context.
+ *
+ * @param profile      the user as returned by the API, with its roles copied
+ * @param tokenVersion the user's current token version
+ */
+public record UserPrincipal(UserDto profile, long tokenVersion) {
+
+    public UserPrincipal {
+        // Entities hand out live collections; keep a private copy
+        profile = new UserDto(profile.id(), profile.username(), profile.email(), profile.avatarUrl(),
+            profile.provider(), profile.roles() != null ? Set.copyOf(profile.roles()) : Set.of(), profile.createdAt());
+    }
+
+    public Long id() {
+        return profile.id();
+    }
+
+    public String username() {
+        return profile.username();
+    }
+
+    public String email() {
+        return profile.email();
+    }
+
+    public Set<User.Role> roles() {
+        return profile.roles();
+    }
+}
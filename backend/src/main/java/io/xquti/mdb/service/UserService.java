@@ -1,17 +1,22 @@
 package io.xquti.mdb.service;
 
 import io.xquti.mdb.dto.UserDto;
+import io.xquti.mdb.event.TokenVersionChangedEvent;
+import io.xquti.mdb.event.UserChangedEvent;
 import io.xquti.mdb.exception.EntityNotFoundException;
 import io.xquti.mdb.model.User;
 import io.xquti.mdb.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Transactional
@@ -25,6 +30,12 @@ public class UserService {
     @Autowired
     private DtoMapper dtoMapper;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private PrincipalCache principalCache;
+    
     public Optional<User> findByEmail(String email) {
         logger.debug("Finding user by email: {}", email);
         return userRepository.findByEmail(email);
@@ -42,9 +53,21 @@ public class UserService {
     
     public UserDto findUserDtoById(Long id) {
         logger.debug("Finding user DTO by id: {}", id);
-        User user = userRepository.findById(id)
+        return findPrincipalById(id)
+            .map(UserPrincipal::profile)
             .orElseThrow(() -> new EntityNotFoundException("User", id));
-        return dtoMapper.toUserDto(user);
+    }
+    
+    public Optional<UserPrincipal> findPrincipalById(Long id) {
+        return principalCache.getById(id, () -> userRepository.findById(id).map(this::toPrincipal));
+    }
+    
+    public Optional<UserPrincipal> findPrincipalByEmail(String email) {
+        return principalCache.getByEmail(email, () -> userRepository.findByEmail(email).map(this::toPrincipal));
+    }
+    
+    public Optional<UserPrincipal> findPrincipalByUsername(String username) {
+        return principalCache.getByUsername(username, () -> userRepository.findByUsername(username).map(this::toPrincipal));
     }
     
     public List<UserDto> findAllUsers() {
@@ -70,6 +93,7 @@ public class UserService {
             user.setUsername(username);
             user.setAvatarUrl(avatarUrl);
             User savedUser = save(user);
+            eventPublisher.publishEvent(new UserChangedEvent(savedUser.getId()));
             logger.info("Updated existing user: {}", savedUser.getId());
             return savedUser;
         } else {
@@ -93,19 +117,59 @@ public class UserService {
         existingUser.setAvatarUrl(userDto.avatarUrl());
         
         User savedUser = save(existingUser);
+        eventPublisher.publishEvent(new UserChangedEvent(savedUser.getId()));
         logger.info("Successfully updated user: {}", savedUser.getId());
         
         return dtoMapper.toUserDto(savedUser);
     }
     
+    /**
+     * Replace a user's roles. Access tokens carry roles, so the token version is
+     * bumped and tokens issued with the old roles stop being accepted.
+     */
+    public UserDto updateRoles(Long id, Set<User.Role> roles) {
+        logger.info("Updating roles for user: {}", id);
+        
+        User existingUser = userRepository.findById(id)
+            .orElseThrow(() -> new EntityNotFoundException("User", id));
+        
+        existingUser.setRoles(new HashSet<>(roles));
+        existingUser.setTokenVersion(existingUser.getTokenVersion() + 1);
+        User savedUser = save(existingUser);
+        eventPublisher.publishEvent(new TokenVersionChangedEvent(savedUser.getId(), savedUser.getTokenVersion()));
+        eventPublisher.publishEvent(new UserChangedEvent(savedUser.getId()));
+        logger.info("Successfully updated roles for user: {}", savedUser.getId());
+        
+        return dtoMapper.toUserDto(savedUser);
+    }
+    
+    /**
+     * Log a user out of every session: the token version is bumped, so every
+     * token issued to them so far stops being accepted.
+     */
+    public void retireTokens(Long id) {
+        logger.info("Retiring all tokens for user: {}", id);
+        
+        User existingUser = userRepository.findById(id)
+            .orElseThrow(() -> new EntityNotFoundException("User", id));
+        
+        existingUser.setTokenVersion(existingUser.getTokenVersion() + 1);
+        User savedUser = save(existingUser);
+        eventPublisher.publishEvent(new TokenVersionChangedEvent(savedUser.getId(), savedUser.getTokenVersion()));
+        eventPublisher.publishEvent(new UserChangedEvent(savedUser.getId()));
+        logger.info("Successfully retired all tokens for user: {}", savedUser.getId());
+    }
+    
     public void deleteUser(Long id) {
         logger.info("Deleting user: {}", id);
         
-        if (!userRepository.existsById(id)) {
-            throw new EntityNotFoundException("User", id);
-        }
+        User existingUser = userRepository.findById(id)
+            .orElseThrow(() -> new EntityNotFoundException("User", id));
         
         userRepository.deleteById(id);
+        // SECURITY: Tokens are trusted without loading the user, so retire the deleted user's tokens explicitly
+        eventPublisher.publishEvent(new TokenVersionChangedEvent(id, existingUser.getTokenVersion() + 1));
+        eventPublisher.publishEvent(new UserChangedEvent(id));
         logger.info("Successfully deleted user: {}", id);
     }
     
@@ -119,7 +183,10 @@ public class UserService {
     
     public UserDto findByEmailDto(String email) {
         logger.debug("Finding user DTO by email: {}", email);
-        Optional<User> user = userRepository.findByEmail(email);
-        return user.map(dtoMapper::toUserDto).orElse(null);
+        return findPrincipalByEmail(email).map(UserPrincipal::profile).orElse(null);
+    }
+    
+    private UserPrincipal toPrincipal(User user) {
+        return new UserPrincipal(dtoMapper.toUserDto(user), user.getTokenVersion());
     }
 }
\ No newline at end of file
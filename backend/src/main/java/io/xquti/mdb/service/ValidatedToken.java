@@ -0,0 +1,43 @@
+package io.xquti.mdb.service;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A JWT whose signature, issuer, audience, lifetime and revocation status have been checked.
+ *
+ * Produced once per request by {@link JwtService#validate(String)} and kept as
+ * the credentials of the request's authentication, so later code reads the
+ * claims from here instead of parsing and verifying the token again.
+ *
+ * @param token       the compact token as received
+ * @param id          the {@code jti} claim; for tokens issued without one, a hash of the token
+ * @param subject     the {@code sub} claim
+ * @param type        {@code access} or {@code refresh}
+ * @param issuedAt    the {@code iat} claim
+ * @param expiresAt   the {@code exp} claim
+ * @param userId      the {@code uid} claim; null for tokens issued before identity claims were added
+ * @param roles       the {@code roles} claim, role names without the {@code ROLE_} prefix
+ * @param userVersion the {@code uver} claim, the user's token version when the token was issued
+ */
+public record ValidatedToken(String token, String id, String subject, String type, Instant issuedAt, Instant expiresAt,
+                             Long userId, List<String> roles, long userVersion) {
+
+    /**
+     * Whether the token carries identity claims that can be trusted without loading the user.
+     */
+    public boolean hasIdentity() {
+        return userId != null;
+    }
+
+    public boolean isRefreshToken() {
+        return "refresh".equals(type);
+    }
+
+    @Override
+    public String toString() {
+        // SECURITY: Never let the bearer token itself reach logs
+        return "ValidatedToken[subject=" + subject + ", userId=" + userId + ", type=" + type
+            + ", expiresAt=" + expiresAt + "]";
+    }
+}
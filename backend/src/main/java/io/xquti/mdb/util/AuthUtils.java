@@ -3,14 +3,19 @@ package io.xquti.mdb.util;
 import io.xquti.mdb.dto.UserDto;
 import io.xquti.mdb.service.JwtService;
 import io.xquti.mdb.service.UserService;
+import io.xquti.mdb.service.ValidatedToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
 /**
  * Utility class for authentication-related operations.
  * Provides centralized methods for extracting and validating user information from JWT tokens.
+ * The token validated by {@link io.xquti.mdb.config.security.JwtAuthenticationFilter} is reused,
+ * so a request's signature is verified only once.
  */
 @Component
 public class AuthUtils {
@@ -35,16 +40,76 @@ public class AuthUtils {
             return null;
         }
         
+        ValidatedToken token = getToken(authHeader);
+        if (token == null) {
+            return null;
+        }
+        
         try {
-            String token = authHeader.substring(7); // Remove "Bearer " prefix
-            String email = jwtService.extractUsername(token);
-            
-            if (jwtService.validateToken(token, email)) {
-                return userService.findByEmailDto(email);
+            if (token.hasIdentity()) {
+                return userService.findUserDtoById(token.userId());
             }
+            return userService.findByEmailDto(token.subject());
         } catch (Exception e) {
-            logger.debug("Invalid token in request: {}", e.getMessage());
+            logger.debug("No user for token subject: {}", e.getMessage());
         }
         return null;
     }
+
+    /**
+     * The current user's id, read from the token's identity claims without a database lookup.
+     * 
+     * @param authHeader The Authorization header containing the Bearer token
+     * @return the user id if the token is valid and the user exists, null otherwise
+     */
+    public Long getCurrentUserId(String authHeader) {
+        ValidatedToken token = getToken(authHeader);
+        if (token == null) {
+            return null;
+        }
+        if (token.hasIdentity()) {
+            return token.userId();
+        }
+        
+        // Tokens issued before identity claims were added
+        UserDto user = getCurrentUser(authHeader);
+        return user != null ? user.id() : null;
+    }
+
+    /**
+     * The validated token behind the current request's authentication, if it was a JWT.
+     */
+    public ValidatedToken getCurrentToken() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getCredentials() instanceof ValidatedToken token) {
+            return token;
+        }
+        return null;
+    }
+
+    /**
+     * Validates the Bearer token in the Authorization header, reusing the filter's result when it has one.
+     * 
+     * @param authHeader The Authorization header containing the Bearer token
+     * @return the validated token, or null if the header is missing or the token is invalid
+     */
+    public ValidatedToken getToken(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        
+        String token = authHeader.substring(7); // Remove "Bearer " prefix
+        ValidatedToken current = getCurrentToken();
+        if (current != null && current.token().equals(token)) {
+            return current;
+        }
+        
+        // Paths the filter skips have not been validated yet
+        try {
+            return jwtService.validate(token);
+        } catch (Exception e) {
+            logger.debug("Invalid token in request: {}", e.getMessage());
+            return null;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,137 @@
+package io.xquti.mdb.websocket;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-topic coalescing stage in front of {@link ClusterBroadcaster}.
+ *
+ * Events for a destination are buffered for a short quiet window and then
+ * emitted as one frame whose body is a JSON array. A batch is flushed when
+ * the window passes without new events, when it reaches the maximum size,
+ * or when its oldest event has waited the maximum delay, so a busy topic
+ * costs one frame and one serialization pass per batch instead of per event.
+ */
+@Component
+public class BroadcastCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(BroadcastCoalescer.class);
+
+    private final ClusterBroadcaster broadcaster;
+    private final long windowNanos;
+    private final long maxDelayNanos;
+    private final int maxBatchSize;
+
+    private final Map<String, PendingBatch> pending = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ws-coalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public BroadcastCoalescer(ClusterBroadcaster broadcaster,
+                              @Value("${app.websocket.coalesce.window:50ms}") Duration window,
+                              @Value("${app.websocket.coalesce.max-delay:250ms}") Duration maxDelay,
+                              @Value("${app.websocket.coalesce.max-batch-size:50}") int maxBatchSize) {
+        this.broadcaster = broadcaster;
+        this.windowNanos = window.toNanos();
+        this.maxDelayNanos = Math.max(maxDelay.toNanos(), windowNanos);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    /**
+     * Queue an event for {@code destination}; it is sent as part of a JSON array frame.
+     */
+    public void submit(String destination, Object event) {
+        if (!broadcaster.hasAudience(destination)) {
+            return;
+        }
+        if (windowNanos <= 0) {
+            broadcaster.broadcast(destination, List.of(event));
+            return;
+        }
+
+        long now = System.nanoTime();
+        List<Object> ready = new ArrayList<>(0);
+
+        pending.compute(destination, (key, batch) -> {
+            if (batch == null) {
+                batch = new PendingBatch(now);
+            }
+            batch.events.add(event);
+
+            if (batch.events.size() >= maxBatchSize) {
+                batch.cancel();
+                ready.addAll(batch.events);
+                return null;
+            }
+
+            // Debounce: push the flush out by one window, but never past the batch's max delay
+            long flushAt = Math.min(now + windowNanos, batch.createdAt + maxDelayNanos);
+            batch.reschedule(flushAt - now, () -> flush(destination));
+            return batch;
+        });
+
+        if (!ready.isEmpty()) {
+            emit(destination, ready);
+        }
+    }
+
+    private void flush(String destination) {
+        PendingBatch batch = pending.remove(destination);
+        if (batch != null) {
+            emit(destination, batch.events);
+        }
+    }
+
+    private void emit(String destination, List<Object> events) {
+        try {
+            broadcaster.broadcast(destination, events);
+        } catch (Exception e) {
+            logger.warn("Failed to broadcast batch of {} events to {}: {}", events.size(), destination, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pending.keySet().forEach(this::flush);
+        scheduler.shutdown();
+    }
+
+    private final class PendingBatch {
+        private final long createdAt;
+        private final List<Object> events = new ArrayList<>();
+        private ScheduledFuture<?> flushTask;
+
+        PendingBatch(long createdAt) {
+            this.createdAt = createdAt;
+        }
+
+        void reschedule(long delayNanos, Runnable task) {
+            cancel();
+            flushTask = scheduler.schedule(task, Math.max(0, delayNanos), TimeUnit.NANOSECONDS);
+        }
+
+        void cancel() {
+            if (flushTask != null) {
+                flushTask.cancel(false);
+            }
+        }
+    }
+}
\ No newline at end of file
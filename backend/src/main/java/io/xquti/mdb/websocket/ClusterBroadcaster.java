@@ -0,0 +1,251 @@
+package io.xquti.mdb.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.xquti.mdb.config.ClusterNode;
+import io.xquti.mdb.dto.PostEvent;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cluster-aware STOMP broadcast layer.
+ *
+ * The simple broker only knows about sessions connected to this JVM, so every
+ * broadcast is delivered to local subscribers and also published on a Redis
+ * channel. Other replicas pick it up and deliver it to their own local
+ * subscribers, which lets WebSocket connections scale horizontally without
+ * an external STOMP broker. Payloads are serialized to JSON once and the
+ * same bytes are used for local delivery and the Redis message.
+ * Broadcasts to topics nobody in the cluster is subscribed to are dropped
+ * before serialization, and before delivery on receiving replicas.
+ * Thread topic frames carry a {@code seq} header and are kept by
+ * {@link TopicReplayBuffer} so reconnecting clients can catch up. They are
+ * sequenced and published by one Redis script and delivered from the channel
+ * on every node, the publishing one included, by the listener container's
+ * single thread, so each node sends them in sequence order. The outbound
+ * channel's threads may still swap two frames on the way to a session;
+ * clients put them back in order by {@code seq}.
+ * Frames of {@link PostEvent}s carry the authors' profiles in headers, which
+ * {@link SessionFrameInterceptor} strips for sessions that already have them.
+ * Local delivery also feeds read-only SSE streams through {@link SseStreamHub}.
+ */
+@Component
+public class ClusterBroadcaster implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterBroadcaster.class);
+
+    static final String SEQ_HEADER = "seq";
+    static final String AUTHORS_HEADER = "x-authors";
+    static final String AUTHOR_IDS_HEADER = "x-author-ids";
+    private static final String UNSEQUENCED = ":";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final SubscriptionRegistry subscriptions;
+    private final TopicReplayBuffer replayBuffer;
+    private final SseStreamHub sseStreamHub;
+    private final String nodeId;
+    // Carries sequenced frames; a node of its own when frames are not shared with other replicas
+    private String deliveryChannel;
+
+    @Value("${app.websocket.cluster.enabled:true}")
+    private boolean clusterEnabled;
+
+    @Value("${app.websocket.cluster.channel:mdb:ws:broadcast}")
+    private String channel;
+
+    @Autowired
+    public ClusterBroadcaster(SimpMessagingTemplate messagingTemplate,
+                              RedisTemplate<String, String> redisTemplate,
+                              RedisMessageListenerContainer listenerContainer,
+                              ObjectMapper objectMapper,
+                              SubscriptionRegistry subscriptions,
+                              TopicReplayBuffer replayBuffer,
+                              SseStreamHub sseStreamHub,
+                              ClusterNode clusterNode) {
+        this.messagingTemplate = messagingTemplate;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+        this.subscriptions = subscriptions;
+        this.replayBuffer = replayBuffer;
+        this.sseStreamHub = sseStreamHub;
+        this.nodeId = clusterNode.getNodeId();
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        deliveryChannel = clusterEnabled ? channel : channel + ":" + nodeId;
+        listenerContainer.addMessageListener(this, new ChannelTopic(deliveryChannel));
+        if (clusterEnabled) {
+            logger.info("WebSocket cluster fan-out enabled on channel {} (node {})", channel, nodeId);
+        }
+    }
+
+    public boolean isClustered() {
+        return clusterEnabled;
+    }
+
+    /**
+     * Whether a broadcast to {@code destination} could reach anyone: a subscriber
+     * on any node, or on this node only when not clustered. Recently watched
+     * destinations keep recording for clients that may reconnect.
+     */
+    public boolean hasAudience(String destination) {
+        return subscriptions.isWatchedInCluster(destination);
+    }
+
+    /**
+     * Send a payload to every subscriber of {@code destination} on every node.
+     */
+    public void broadcast(String destination, Object payload) {
+        if (!hasAudience(destination)) {
+            return;
+        }
+        publish(destination, null, serialize(payload), authorsOf(payload));
+    }
+
+    /**
+     * Send a payload to subscribers connected to this node only, for state every
+     * replica derives on its own (e.g. presence read from Redis).
+     */
+    public void broadcastLocal(String destination, Object payload) {
+        if (subscriptions.hasSubscribers(destination)) {
+            deliverLocally(destination, null, serialize(payload), null, null);
+        }
+    }
+
+    /**
+     * Send a payload to a user's session(s), wherever they are connected.
+     */
+    public void sendToUser(String user, String destination, Object payload) {
+        publish(destination, user, serialize(payload), null);
+    }
+
+    private void publish(String destination, String user, String json, AuthorHeaders authors) {
+        String envelope = serialize(new ClusterMessage(nodeId, destination, user, json, authors));
+        if (user == null && replayBuffer.tracks(destination)
+                && replayBuffer.publish(destination, json, authors != null ? authors.profiles() : null,
+                    deliveryChannel, envelope) != null) {
+            return; // Delivered when it comes back on the channel
+        }
+
+        // Unsequenced, or Redis is unavailable: deliver here now and on the other nodes as it arrives
+        deliverLocally(destination, user, json, null, authors);
+        if (clusterEnabled) {
+            try {
+                redisTemplate.convertAndSend(channel, UNSEQUENCED + envelope);
+            } catch (Exception e) {
+                logger.warn("Failed to publish WebSocket broadcast to cluster: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            // "<seq>:<envelope>", with an empty sequence for unsequenced frames
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            int separator = body.indexOf(':');
+            Long sequence = separator > 0 ? Long.valueOf(body.substring(0, separator)) : null;
+            ClusterMessage clusterMessage = objectMapper.readValue(body.substring(separator + 1), ClusterMessage.class);
+            if (sequence == null && nodeId.equals(clusterMessage.origin())) {
+                return; // Already delivered locally by the publishing node
+            }
+            deliverLocally(clusterMessage.destination(), clusterMessage.user(),
+                clusterMessage.payload(), sequence, clusterMessage.authors());
+        } catch (Exception e) {
+            logger.warn("Failed to deliver cluster WebSocket broadcast: {}", e.getMessage());
+        }
+    }
+
+    private void deliverLocally(String destination, String user, String json, Long sequence,
+                                AuthorHeaders authors) {
+        if (user == null) {
+            if (!subscriptions.hasSubscribers(destination)) {
+                return;
+            }
+            sseStreamHub.publish(destination, sequence, json);
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        if (sequence != null) {
+            accessor.setNativeHeader(SEQ_HEADER, Long.toString(sequence));
+        }
+        if (authors != null) {
+            accessor.setNativeHeader(AUTHOR_IDS_HEADER, authors.ids());
+            accessor.setNativeHeader(AUTHORS_HEADER, authors.profiles());
+        }
+        accessor.setLeaveMutable(true);
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+
+        String target = user == null
+            ? destination
+            : messagingTemplate.getUserDestinationPrefix() + user.replace("/", "%2F") + destination;
+        messagingTemplate.send(target, MessageBuilder.createMessage(body, accessor.getMessageHeaders()));
+    }
+
+    /**
+     * Distinct author profiles of the post events in a payload, or null if it has none.
+     */
+    private AuthorHeaders authorsOf(Object payload) {
+        Collection<?> items = payload instanceof Collection<?> collection ? collection : List.of(payload);
+        Map<Long, PostEvent.AuthorProfile> profiles = new LinkedHashMap<>();
+        for (Object item : items) {
+            if (item instanceof PostEvent event && event.profile() != null) {
+                profiles.putIfAbsent(event.profile().id(), event.profile());
+            }
+        }
+        if (profiles.isEmpty()) {
+            return null;
+        }
+        List<String> ids = new ArrayList<>(profiles.size());
+        profiles.keySet().forEach(id -> ids.add(id.toString()));
+        return new AuthorHeaders(String.join(",", ids), serialize(profiles.values()));
+    }
+
+    private String serialize(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("WebSocket payload is not serializable", e);
+        }
+    }
+
+    /**
+     * Envelope published on the Redis channel after the frame's sequence number;
+     * {@code payload} is the already-serialized JSON body.
+     */
+    record ClusterMessage(String origin, String destination, String user, String payload,
+                          AuthorHeaders authors) {
+    }
+
+    /**
+     * Comma-separated author ids and the JSON array of their profiles.
+     */
+    record AuthorHeaders(String ids, String profiles) {
+    }
+}
\ No newline at end of file
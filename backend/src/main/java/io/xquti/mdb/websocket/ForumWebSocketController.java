@@ -2,92 +2,97 @@ package io.xquti.mdb.websocket;
 
 import io.xquti.mdb.dto.ForumPostDto;
 import io.xquti.mdb.dto.ForumThreadDto;
+import io.xquti.mdb.dto.PostEvent;
+import io.xquti.mdb.service.PresenceService;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.handler.annotation.SendTo;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.security.Principal;
+
 /**
  * WebSocket controller for real-time forum updates.
  * Handles broadcasting of new threads and posts to connected clients.
+ * Broadcasts go through {@link ClusterBroadcaster} so subscribers connected
+ * to any backend replica receive them. New posts are batched per topic by
+ * {@link BroadcastCoalescer}, so post topics carry arrays of compact
+ * {@link PostEvent}s rather than full post DTOs.
  */
 @Controller
 public class ForumWebSocketController {
 
-    private final SimpMessagingTemplate messagingTemplate;
+    private final ClusterBroadcaster broadcaster;
+    private final BroadcastCoalescer coalescer;
+    private final PresenceService presenceService;
 
     @Autowired
-    public ForumWebSocketController(SimpMessagingTemplate messagingTemplate) {
-        this.messagingTemplate = messagingTemplate;
+    public ForumWebSocketController(ClusterBroadcaster broadcaster, BroadcastCoalescer coalescer,
+                                    PresenceService presenceService) {
+        this.broadcaster = broadcaster;
+        this.coalescer = coalescer;
+        this.presenceService = presenceService;
     }
 
     /**
      * Broadcast new thread creation to all connected clients.
      */
     @MessageMapping("/forum/thread/new")
-    @SendTo("/topic/forum/threads")
-    public ForumThreadDto broadcastNewThread(@Payload ForumThreadDto thread) {
-        return thread;
+    public void broadcastNewThread(@Payload ForumThreadDto thread) {
+        broadcaster.broadcast("/topic/forum/threads", thread);
     }
 
     /**
      * Broadcast new post to thread subscribers.
+     * Posts are coalesced per topic and delivered as batched array frames.
      */
     @MessageMapping("/forum/post/new")
     public void broadcastNewPost(@Payload ForumPostDto post) {
+        PostEvent event = PostEvent.from(post);
+
         // Send to specific thread topic
-        messagingTemplate.convertAndSend("/topic/forum/thread/" + post.getThreadId(), post);
+        coalescer.submit("/topic/forum/thread/" + post.getThreadId(), event);
         
         // Also send to general forum updates
-        messagingTemplate.convertAndSend("/topic/forum/posts", post);
+        coalescer.submit("/topic/forum/posts", event);
     }
 
     /**
      * Send notification to specific user.
      */
     public void sendUserNotification(String username, Object notification) {
-        messagingTemplate.convertAndSendToUser(username, "/queue/notifications", notification);
+        broadcaster.sendToUser(username, "/queue/notifications", notification);
     }
 
     /**
      * Broadcast thread update (like title change, status change).
      */
     public void broadcastThreadUpdate(ForumThreadDto thread) {
-        messagingTemplate.convertAndSend("/topic/forum/thread/" + thread.getId() + "/updates", thread);
+        broadcaster.broadcast("/topic/forum/thread/" + thread.getId() + "/updates", thread);
     }
 
     /**
-     * Broadcast user activity (typing indicators, online status).
+     * Receive a user's activity in a thread (viewing, typing, idle, left).
+     * Subscribers see the result as throttled presence frames on
+     * {@code /topic/forum/thread/{id}/presence}, not one frame per event.
      */
-    public void broadcastUserActivity(Long threadId, String username, String activity) {
-        UserActivity userActivity = new UserActivity(username, activity, System.currentTimeMillis());
-        messagingTemplate.convertAndSend("/topic/forum/thread/" + threadId + "/activity", userActivity);
+    @MessageMapping("/forum/activity")
+    public void receiveUserActivity(@Payload ActivityMessage message, Principal principal) {
+        if (principal != null && message != null) {
+            broadcastUserActivity(message.threadId(), principal.getName(), message.activity());
+        }
     }
 
     /**
-     * Inner class for user activity messages.
+     * Record user activity (typing indicators, online status).
      */
-    public static class UserActivity {
-        private String username;
-        private String activity;
-        private long timestamp;
-
-        public UserActivity(String username, String activity, long timestamp) {
-            this.username = username;
-            this.activity = activity;
-            this.timestamp = timestamp;
-        }
+    public void broadcastUserActivity(Long threadId, String username, String activity) {
+        presenceService.recordActivity(threadId, username, activity);
+    }
 
-        // Getters and setters
-        public String getUsername() { return username; }
-        public void setUsername(String username) { this.username = username; }
-        
-        public String getActivity() { return activity; }
-        public void setActivity(String activity) { this.activity = activity; }
-        
-        public long getTimestamp() { return timestamp; }
-        public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
+    /**
+     * Inbound activity message from a client.
+     */
+    public record ActivityMessage(Long threadId, String activity) {
     }
 }
\ No newline at end of file
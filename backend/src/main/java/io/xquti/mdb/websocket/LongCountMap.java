@@ -0,0 +1,130 @@
+package io.xquti.mdb.websocket;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Open-addressing map from primitive {@code long} keys to positive counts.
+ * Avoids boxing a Long and an Integer per entry for hot-path lookups such as
+ * "does this thread have subscribers". Not thread-safe; callers synchronize.
+ */
+final class LongCountMap {
+
+    private long[] keys;
+    private int[] counts; // 0 marks an empty slot
+    private int size;
+
+    LongCountMap() {
+        this(16);
+    }
+
+    LongCountMap(int initialCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(4, initialCapacity) - 1) << 1;
+        this.keys = new long[capacity];
+        this.counts = new int[capacity];
+    }
+
+    int get(long key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); counts[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return counts[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return the count after incrementing
+     */
+    int increment(long key) {
+        if ((size + 1) * 4 > keys.length * 3) {
+            resize(keys.length << 1);
+        }
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (counts[i] != 0) {
+            if (keys[i] == key) {
+                return ++counts[i];
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        counts[i] = 1;
+        size++;
+        return 1;
+    }
+
+    /**
+     * @return the count after decrementing; the key is removed when it reaches 0
+     */
+    int decrement(long key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); counts[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                if (--counts[i] == 0) {
+                    removeAt(i, mask);
+                    return 0;
+                }
+                return counts[i];
+            }
+        }
+        return 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEachKey(LongConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (counts[i] != 0) {
+                action.accept(keys[i]);
+            }
+        }
+    }
+
+    // Backward-shift deletion keeps probe chains intact without tombstones
+    private void removeAt(int hole, int mask) {
+        int i = hole;
+        while (true) {
+            i = (i + 1) & mask;
+            if (counts[i] == 0) {
+                break;
+            }
+            int home = slot(keys[i], mask);
+            boolean movable = hole <= i
+                ? home <= hole || home > i
+                : home <= hole && home > i;
+            if (movable) {
+                keys[hole] = keys[i];
+                counts[hole] = counts[i];
+                hole = i;
+            }
+        }
+        counts[hole] = 0;
+        size--;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[capacity];
+        counts = new int[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldCounts[j] != 0) {
+                int i = slot(oldKeys[j], mask);
+                while (counts[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                counts[i] = oldCounts[j];
+            }
+        }
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
\ No newline at end of file
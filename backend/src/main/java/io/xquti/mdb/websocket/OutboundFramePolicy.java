@@ -0,0 +1,215 @@
+package io.xquti.mdb.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-session backpressure on the client outbound channel.
+ *
+ * A session is behind when a write to its socket has been blocked longer than
+ * the configured limit. Frames then pile up in the session's send buffer
+ * (ConcurrentWebSocketSessionDecorator), so the policy is applied by destination:
+ * <ul>
+ *   <li>typing/activity frames are dropped while the session is behind,</li>
+ *   <li>presence frames are conflated so only the latest per destination is sent,</li>
+ *   <li>everything else (new posts, notifications) is always queued; sessions that
+ *       still cannot keep up hit the transport send limits and are closed.</li>
+ * </ul>
+ *
+ * Also registered as a WebSocket handler decorator, which is how it sees each
+ * socket write start and finish.
+ */
+@Component
+public class OutboundFramePolicy implements ExecutorChannelInterceptor, WebSocketHandlerDecoratorFactory {
+
+    enum Policy { DELIVER, DROP, CONFLATE }
+
+    // sessionId -> start of the write in progress, or 0 when idle
+    private final Map<String, AtomicLong> sendStartedAt = new ConcurrentHashMap<>();
+    // "sessionId destination" -> newest frame waiting to replace the queued one
+    private final Map<String, Message<?>> conflated = new ConcurrentHashMap<>();
+
+    private final Counter dropped;
+    private final Counter conflatedFrames;
+    private final Counter slowConsumers;
+    private final long droppableAfterMillis;
+
+    @Autowired
+    public OutboundFramePolicy(MeterRegistry meterRegistry,
+                               @Value("${app.websocket.outbound.droppable-after:500ms}") Duration droppableAfter) {
+        this.droppableAfterMillis = droppableAfter.toMillis();
+        this.dropped = Counter.builder("mdb.websocket.frames.dropped")
+            .tag("policy", "drop")
+            .description("Outbound frames dropped for sessions that are falling behind")
+            .register(meterRegistry);
+        this.conflatedFrames = Counter.builder("mdb.websocket.frames.dropped")
+            .tag("policy", "conflate")
+            .description("Outbound frames superseded by a newer frame before being sent")
+            .register(meterRegistry);
+        this.slowConsumers = Counter.builder("mdb.websocket.slow.consumers")
+            .description("Sessions closed for exceeding the send time or buffer limit")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                AtomicLong startedAt = new AtomicLong();
+                sendStartedAt.put(session.getId(), startedAt);
+                // The STOMP handler wraps this in its buffering decorator, so only one write runs at a time
+                super.afterConnectionEstablished(new TimedSession(session, startedAt));
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sendStartedAt.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        String sessionId = accessor.getSessionId();
+        if (sessionId == null || accessor.getMessageType() != SimpMessageType.MESSAGE) {
+            return message;
+        }
+
+        String destination = accessor.getDestination();
+        switch (policyFor(destination)) {
+            case DROP -> {
+                if (isBehind(sessionId)) {
+                    dropped.increment();
+                    return null;
+                }
+            }
+            case CONFLATE -> {
+                // If a frame for this destination is still queued, let it carry the newest payload instead
+                boolean[] alreadyQueued = {false};
+                conflated.compute(conflationKey(sessionId, destination), (key, queued) -> {
+                    alreadyQueued[0] = queued != null;
+                    return message;
+                });
+                if (alreadyQueued[0]) {
+                    conflatedFrames.increment();
+                    return null;
+                }
+            }
+            case DELIVER -> {
+            }
+        }
+        return message;
+    }
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        if (sent && ex == null) {
+            return;
+        }
+        // Never queued (executor rejected it), so beforeHandle will not clear its slot
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        String sessionId = accessor.getSessionId();
+        if (sessionId != null && policyFor(accessor.getDestination()) == Policy.CONFLATE) {
+            conflated.remove(conflationKey(sessionId, accessor.getDestination()));
+        }
+    }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        String sessionId = accessor.getSessionId();
+        if (sessionId != null && policyFor(accessor.getDestination()) == Policy.CONFLATE) {
+            Message<?> latest = conflated.remove(conflationKey(sessionId, accessor.getDestination()));
+            if (latest != null) {
+                return latest;
+            }
+        }
+        return message;
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        sendStartedAt.remove(event.getSessionId());
+        conflated.keySet().removeIf(key -> key.startsWith(event.getSessionId() + " "));
+        if (event.getCloseStatus() != null
+                && event.getCloseStatus().getCode() == CloseStatus.SESSION_NOT_RELIABLE.getCode()) {
+            slowConsumers.increment();
+        }
+    }
+
+    boolean isBehind(String sessionId) {
+        AtomicLong startedAt = sendStartedAt.get(sessionId);
+        if (startedAt == null) {
+            return false;
+        }
+        long started = startedAt.get();
+        return started != 0 && System.currentTimeMillis() - started >= droppableAfterMillis;
+    }
+
+    static Policy policyFor(String destination) {
+        if (destination == null) {
+            return Policy.DELIVER;
+        }
+        if (destination.endsWith("/activity")) {
+            return Policy.DROP;
+        }
+        if (destination.endsWith("/presence")) {
+            return Policy.CONFLATE;
+        }
+        return Policy.DELIVER;
+    }
+
+    private static String conflationKey(String sessionId, String destination) {
+        return sessionId + " " + destination;
+    }
+
+    /**
+     * Records when the write in progress started, so a blocked socket is visible to preSend.
+     */
+    private static class TimedSession extends WebSocketSessionDecorator {
+
+        private final AtomicLong startedAt;
+
+        TimedSession(WebSocketSession delegate, AtomicLong startedAt) {
+            super(delegate);
+            this.startedAt = startedAt;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            startedAt.set(System.currentTimeMillis());
+            try {
+                super.sendMessage(message);
+            } finally {
+                startedAt.set(0);
+            }
+        }
+    }
+}
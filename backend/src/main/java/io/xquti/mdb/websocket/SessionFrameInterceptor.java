@@ -0,0 +1,166 @@
+package io.xquti.mdb.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-session rewriting of outbound frames.
+ *
+ * <ul>
+ *   <li>Author profiles ride along in the {@code x-authors} header only until a
+ *       session has seen each author once; later frames carry just author ids.</li>
+ *   <li>Sessions that asked for {@code x-encoding: cbor} when connecting over the
+ *       native (non-SockJS) endpoint get CBOR bodies in binary frames. The broker
+ *       sends one frame per subscriber on the same thread, so the conversion is
+ *       cached for the payload being fanned out.</li>
+ * </ul>
+ */
+@Component
+public class SessionFrameInterceptor implements ChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionFrameInterceptor.class);
+
+    static final String ENCODING_HEADER = "x-encoding";
+    static final String CBOR = "cbor";
+    static final String BINARY_CAPABLE_ATTRIBUTE = "binaryFrames";
+    private static final int MAX_SEEN_AUTHORS = 1024;
+
+    private final ObjectMapper objectMapper;
+    private final CBORMapper cborMapper = new CBORMapper();
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+    private final ThreadLocal<CachedEncoding> lastEncoding = new ThreadLocal<>();
+
+    private final Counter profilesSent;
+    private final Counter profilesSkipped;
+
+    @Autowired
+    public SessionFrameInterceptor(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.profilesSent = Counter.builder("mdb.websocket.author.profiles")
+            .tag("result", "sent")
+            .description("Frames that carried author profiles to a session")
+            .register(meterRegistry);
+        this.profilesSkipped = Counter.builder("mdb.websocket.author.profiles")
+            .tag("result", "skipped")
+            .description("Frames whose author profiles were already known to the session")
+            .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onConnect(SessionConnectEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String sessionId = accessor.getSessionId();
+        if (sessionId == null) {
+            return;
+        }
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        boolean binaryCapable = attributes != null && Boolean.TRUE.equals(attributes.get(BINARY_CAPABLE_ATTRIBUTE));
+        boolean cbor = binaryCapable && CBOR.equalsIgnoreCase(accessor.getFirstNativeHeader(ENCODING_HEADER));
+        sessions.put(sessionId, new SessionState(cbor));
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        sessions.remove(event.getSessionId());
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        if (accessor.getMessageType() != SimpMessageType.MESSAGE || accessor.getSessionId() == null) {
+            return message;
+        }
+        SessionState session = sessions.get(accessor.getSessionId());
+        if (session == null) {
+            return message;
+        }
+
+        boolean modified = false;
+        String authorIds = accessor.getFirstNativeHeader(ClusterBroadcaster.AUTHOR_IDS_HEADER);
+        if (authorIds != null) {
+            accessor.removeNativeHeader(ClusterBroadcaster.AUTHOR_IDS_HEADER);
+            if (session.markSeen(authorIds)) {
+                profilesSent.increment();
+            } else {
+                accessor.removeNativeHeader(ClusterBroadcaster.AUTHORS_HEADER);
+                profilesSkipped.increment();
+            }
+            modified = true;
+        }
+
+        Object payload = message.getPayload();
+        if (session.cbor && payload instanceof byte[] json
+                && MimeTypeUtils.APPLICATION_JSON.equalsTypeAndSubtype(accessor.getContentType())) {
+            byte[] encoded = toCbor(json);
+            if (encoded != null) {
+                accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+                accessor.setNativeHeader(ENCODING_HEADER, CBOR);
+                return MessageBuilder.createMessage(encoded, accessor.getMessageHeaders());
+            }
+        }
+
+        return modified ? MessageBuilder.createMessage(payload, accessor.getMessageHeaders()) : message;
+    }
+
+    private byte[] toCbor(byte[] json) {
+        CachedEncoding cached = lastEncoding.get();
+        if (cached != null && cached.json == json) {
+            return cached.cbor;
+        }
+        try {
+            byte[] cbor = cborMapper.writeValueAsBytes(objectMapper.readTree(json));
+            lastEncoding.set(new CachedEncoding(json, cbor));
+            return cbor;
+        } catch (Exception e) {
+            logger.warn("Failed to encode WebSocket frame as CBOR: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private record CachedEncoding(byte[] json, byte[] cbor) {
+    }
+
+    private static final class SessionState {
+        private final boolean cbor;
+        private final Set<String> seenAuthors = new HashSet<>();
+
+        SessionState(boolean cbor) {
+            this.cbor = cbor;
+        }
+
+        /**
+         * @return true if any of the comma-separated author ids is new to this session
+         */
+        synchronized boolean markSeen(String authorIds) {
+            if (seenAuthors.size() > MAX_SEEN_AUTHORS) {
+                seenAuthors.clear(); // Worst case the session is sent some profiles again
+            }
+            boolean unseen = false;
+            for (String id : authorIds.split(",")) {
+                unseen |= seenAuthors.add(id);
+            }
+            return unseen;
+        }
+    }
+}
\ No newline at end of file
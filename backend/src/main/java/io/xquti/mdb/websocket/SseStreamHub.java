@@ -0,0 +1,335 @@
+package io.xquti.mdb.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Read-only server-sent event streams fed by the same frames as STOMP topics.
+ *
+ * A stream is an emitter plus a small bounded queue; there is no STOMP
+ * session, subscription bookkeeping or heartbeat negotiation per reader.
+ * Writes happen on virtual threads, one drain task at a time per stream so
+ * frames stay in order. Event ids are the topic sequence numbers, so a
+ * browser's automatic reconnect with {@code Last-Event-ID} resumes from
+ * {@link TopicReplayBuffer}. A reader that falls a full queue behind, or
+ * whose frames skip a sequence number, is closed and simply resumes the same
+ * way, so the replay fills whatever it missed.
+ */
+@Component
+public class SseStreamHub {
+
+    private static final Logger logger = LoggerFactory.getLogger(SseStreamHub.class);
+
+    private final SubscriptionRegistry subscriptions;
+    private final TopicReplayBuffer replayBuffer;
+    private final Map<String, Set<Stream>> streamsByDestination = new ConcurrentHashMap<>();
+    private final Set<Stream> streams = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger openStreams = new AtomicInteger();
+    private final ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Counter overflows;
+    private final Counter gaps;
+
+    private final long timeoutMillis;
+    private final int maxStreams;
+    private final int queueCapacity;
+
+    @Autowired
+    public SseStreamHub(SubscriptionRegistry subscriptions,
+                        TopicReplayBuffer replayBuffer,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.sse.timeout:30m}") Duration timeout,
+                        @Value("${app.sse.max-streams:10000}") int maxStreams,
+                        @Value("${app.sse.queue-capacity:64}") int queueCapacity) {
+        this.subscriptions = subscriptions;
+        this.replayBuffer = replayBuffer;
+        this.timeoutMillis = timeout.toMillis();
+        this.maxStreams = maxStreams;
+        this.queueCapacity = queueCapacity;
+        this.overflows = Counter.builder("mdb.sse.overflows")
+            .description("SSE streams closed because the reader fell too far behind")
+            .register(meterRegistry);
+        this.gaps = Counter.builder("mdb.sse.gaps")
+            .description("SSE streams closed to replay frames that never arrived")
+            .register(meterRegistry);
+        Gauge.builder("mdb.sse.streams", openStreams, AtomicInteger::get)
+            .description("Open server-sent event streams")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Open a stream over {@code destinations}, resuming after {@code lastEventId} when given.
+     *
+     * @return the emitter, or null when the node is at its stream limit
+     */
+    public SseEmitter open(List<String> destinations, String lastEventId) {
+        if (openStreams.incrementAndGet() > maxStreams) {
+            openStreams.decrementAndGet();
+            return null;
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Stream stream = new Stream(emitter, destinations);
+        emitter.onCompletion(stream::close);
+        emitter.onTimeout(stream::close);
+        emitter.onError(error -> stream.close());
+
+        streams.add(stream);
+        for (String destination : destinations) {
+            subscriptions.retain(destination);
+            streamsByDestination.computeIfAbsent(destination, key -> ConcurrentHashMap.newKeySet()).add(stream);
+        }
+
+        // Live frames arriving while the replay is read are held back, then deduplicated by sequence
+        long[] resumeFrom = parseEventId(lastEventId, destinations.size());
+        List<Frame> missed = new ArrayList<>();
+        boolean complete = true;
+        if (resumeFrom != null) {
+            for (int i = 0; i < destinations.size(); i++) {
+                if (resumeFrom[i] < 0) {
+                    continue; // Nothing was sent for this destination yet
+                }
+                TopicReplayBuffer.Replay replay = replayBuffer.replay(destinations.get(i), resumeFrom[i]);
+                if (!replay.complete()) {
+                    // The client reloads; carry on from the newest frame rather than report the gap again
+                    complete = false;
+                    resumeFrom[i] = replay.latestSeq();
+                }
+                for (TopicReplayBuffer.ReplayEvent event : replay.events()) {
+                    missed.add(new Frame(i, event.seq(), event.payload()));
+                }
+            }
+        }
+        stream.startLive(resumeFrom, missed, complete);
+        return emitter;
+    }
+
+    /**
+     * Forward a frame delivered to {@code destination} on this node to its SSE readers.
+     */
+    void publish(String destination, Long sequence, String json) {
+        Set<Stream> readers = streamsByDestination.get(destination);
+        if (readers == null || readers.isEmpty()) {
+            return;
+        }
+        for (Stream stream : readers) {
+            int index = stream.destinations.indexOf(destination);
+            stream.offer(new Frame(index, sequence, json));
+        }
+    }
+
+    @Scheduled(fixedRateString = "${app.sse.heartbeat:25s}")
+    public void heartbeat() {
+        for (Stream stream : streams) {
+            stream.offer(Frame.HEARTBEAT);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        streams.forEach(stream -> stream.emitter.complete());
+        writers.shutdown();
+    }
+
+    private static long[] parseEventId(String lastEventId, int expectedParts) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        String[] parts = lastEventId.trim().split(":");
+        if (parts.length != expectedParts) {
+            return null;
+        }
+        long[] sequences = new long[parts.length];
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                sequences[i] = Long.parseLong(parts[i]);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return sequences;
+    }
+
+    private static String eventName(String destination) {
+        return "/topic/forum/threads".equals(destination) ? "thread" : "posts";
+    }
+
+    /**
+     * A frame for one of a stream's destinations; {@code index} is its position in the stream's list.
+     */
+    private record Frame(int index, Long sequence, String json) {
+        static final Frame HEARTBEAT = new Frame(-1, null, null);
+    }
+
+    private final class Stream {
+        private final SseEmitter emitter;
+        private final List<String> destinations;
+        private final long[] lastSequences;
+        private final ArrayDeque<SseEmitter.SseEventBuilder> queue = new ArrayDeque<>();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private List<Frame> held = new ArrayList<>();
+        // Replayed frames still queued; they may exceed the capacity, the replay buffer bounds them
+        private int replayAllowance;
+        private boolean draining;
+        private boolean ending;
+
+        Stream(SseEmitter emitter, List<String> destinations) {
+            this.emitter = emitter;
+            this.destinations = List.copyOf(destinations);
+            // -1 until the first sequenced frame of a destination sets the baseline
+            this.lastSequences = new long[destinations.size()];
+            Arrays.fill(lastSequences, -1);
+        }
+
+        synchronized void startLive(long[] resumeFrom, List<Frame> missed, boolean complete) {
+            if (resumeFrom != null) {
+                System.arraycopy(resumeFrom, 0, lastSequences, 0, lastSequences.length);
+                if (!complete) {
+                    enqueue(SseEmitter.event().name("resync").data("{}", MediaType.APPLICATION_JSON));
+                }
+            }
+            // Otherwise a reader more than a queue behind would overflow again on every resume
+            replayAllowance = missed.size();
+            missed.forEach(this::accept);
+            List<Frame> pending = held;
+            held = null;
+            pending.forEach(this::accept);
+            scheduleDrain();
+        }
+
+        synchronized void offer(Frame frame) {
+            if (held != null) {
+                if (frame != Frame.HEARTBEAT) {
+                    held.add(frame);
+                }
+                return;
+            }
+            accept(frame);
+            scheduleDrain();
+        }
+
+        private void accept(Frame frame) {
+            if (ending) {
+                return;
+            }
+            if (frame == Frame.HEARTBEAT) {
+                enqueue(SseEmitter.event().comment("keep-alive"));
+                return;
+            }
+            SseEmitter.SseEventBuilder event = SseEmitter.event()
+                .name(eventName(destinations.get(frame.index())))
+                .data(frame.json(), MediaType.APPLICATION_JSON);
+            if (frame.sequence() != null) {
+                long last = lastSequences[frame.index()];
+                if (last >= 0 && frame.sequence() <= last) {
+                    return; // Already sent from the replay
+                }
+                if (last >= 0 && frame.sequence() > last + 1) {
+                    // Sending it would move Last-Event-ID past the frames in between
+                    gaps.increment();
+                    endForResume();
+                    return;
+                }
+                lastSequences[frame.index()] = frame.sequence();
+                event.id(eventId());
+            }
+            enqueue(event);
+        }
+
+        private void enqueue(SseEmitter.SseEventBuilder event) {
+            if (queue.size() >= queueCapacity + replayAllowance) {
+                overflows.increment();
+                endForResume();
+                return;
+            }
+            queue.add(event);
+        }
+
+        private void endForResume() {
+            // The reader reconnects with Last-Event-ID and catches up from the replay buffer
+            ending = true;
+            replayAllowance = 0;
+            queue.clear();
+            writers.execute(emitter::complete);
+        }
+
+        private String eventId() {
+            StringBuilder id = new StringBuilder();
+            for (int i = 0; i < lastSequences.length; i++) {
+                if (i > 0) {
+                    id.append(':');
+                }
+                id.append(lastSequences[i]);
+            }
+            return id.toString();
+        }
+
+        private void scheduleDrain() {
+            if (!draining && !queue.isEmpty() && !closed.get()) {
+                draining = true;
+                writers.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                SseEmitter.SseEventBuilder next;
+                synchronized (this) {
+                    next = queue.poll();
+                    if (next == null) {
+                        draining = false;
+                        return;
+                    }
+                    if (replayAllowance > 0) {
+                        replayAllowance--;
+                    }
+                }
+                try {
+                    emitter.send(next);
+                } catch (Exception e) {
+                    logger.debug("SSE stream closed while sending: {}", e.getMessage());
+                    emitter.completeWithError(e);
+                    close();
+                    return;
+                }
+            }
+        }
+
+        void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            streams.remove(this);
+            for (String destination : destinations) {
+                Set<Stream> readers = streamsByDestination.get(destination);
+                if (readers != null) {
+                    readers.remove(this);
+                }
+                subscriptions.release(destination);
+            }
+            openStreams.decrementAndGet();
+        }
+    }
+}
\ No newline at end of file
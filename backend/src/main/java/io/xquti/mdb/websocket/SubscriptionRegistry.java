@@ -0,0 +1,324 @@
+package io.xquti.mdb.websocket;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live count of STOMP subscribers per destination on this node.
+ *
+ * Fed by subscribe, unsubscribe and disconnect events. Thread topics are
+ * counted in a primitive long-keyed map so the "is anyone watching" check
+ * done before each broadcast stays cheap. The most-watched threads are
+ * exported as the {@code mdb.websocket.thread.subscribers} gauge.
+ *
+ * Every node also leases the destinations it watches in a Redis sorted set
+ * scored by lease expiry, announces a newly watched destination on a
+ * channel, and keeps a local copy of the whole set. Broadcasts can then skip
+ * destinations nobody in the cluster watches without a Redis call. The
+ * lease is the replay retention, so a destination stays "watched" long
+ * enough for its readers to reconnect and replay.
+ */
+@Component
+public class SubscriptionRegistry implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubscriptionRegistry.class);
+    private static final String WATCHED_KEY = "ws:watched";
+    private static final String WATCHED_CHANNEL = "ws:watched:added";
+
+    static final String THREAD_TOPIC_PREFIX = "/topic/forum/thread/";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final long leaseMillis;
+
+    // Destination -> lease expiry (ms) for every node's destinations, this one's included
+    private volatile Map<String, Long> watchedInCluster = new ConcurrentHashMap<>();
+
+    // sessionId -> (subscriptionId -> destination)
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+
+    // Guarded by this
+    private final LongCountMap threadSubscribers = new LongCountMap();
+    private final Map<String, Integer> otherSubscribers = new HashMap<>();
+    private int totalSubscriptions;
+
+    private final MultiGauge watchedThreads;
+
+    @Value("${app.websocket.subscriptions.metrics-top-n:20}")
+    private int metricsTopN;
+
+    @Autowired
+    public SubscriptionRegistry(MeterRegistry meterRegistry,
+                                RedisTemplate<String, String> redisTemplate,
+                                RedisMessageListenerContainer listenerContainer,
+                                @Value("${app.websocket.replay.retention:5m}") Duration lease) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.leaseMillis = lease.toMillis();
+        this.watchedThreads = MultiGauge.builder("mdb.websocket.thread.subscribers")
+            .description("Local STOMP subscribers of the most-watched forum threads")
+            .register(meterRegistry);
+        Gauge.builder("mdb.websocket.watched.threads", this, SubscriptionRegistry::watchedThreadCount)
+            .description("Forum threads with at least one local subscriber")
+            .register(meterRegistry);
+        Gauge.builder("mdb.websocket.subscriptions", this, SubscriptionRegistry::subscriptionCount)
+            .description("Active STOMP subscriptions on this node")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(WATCHED_CHANNEL));
+        refreshWatched();
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String sessionId = accessor.getSessionId();
+        String subscriptionId = accessor.getSubscriptionId();
+        String destination = accessor.getDestination();
+        if (sessionId == null || subscriptionId == null || destination == null) {
+            return;
+        }
+        String previous = sessions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+            .put(subscriptionId, destination);
+        if (previous != null) {
+            adjust(previous, -1);
+        }
+        if (adjust(destination, 1)) {
+            announce(destination);
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = sessions.get(accessor.getSessionId());
+        if (subscriptions == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+        String destination = subscriptions.remove(accessor.getSubscriptionId());
+        if (destination != null) {
+            adjust(destination, -1);
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = sessions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(destination -> adjust(destination, -1));
+        }
+    }
+
+    /**
+     * Count a non-STOMP listener (e.g. a server-sent events stream) as a subscriber.
+     */
+    public void retain(String destination) {
+        if (adjust(destination, 1)) {
+            announce(destination);
+        }
+    }
+
+    public void release(String destination) {
+        adjust(destination, -1);
+    }
+
+    /**
+     * Whether any session on this node is subscribed to {@code destination}.
+     */
+    public synchronized boolean hasSubscribers(String destination) {
+        long threadId = threadIdOf(destination);
+        if (threadId >= 0) {
+            return threadSubscribers.get(threadId) > 0;
+        }
+        return otherSubscribers.containsKey(destination);
+    }
+
+    /**
+     * Whether any node has had a subscriber to {@code destination} within the lease.
+     */
+    public boolean isWatchedInCluster(String destination) {
+        if (hasSubscribers(destination)) {
+            return true;
+        }
+        Long expiry = watchedInCluster.get(destination);
+        return expiry != null && expiry > System.currentTimeMillis();
+    }
+
+    public synchronized int getThreadSubscriberCount(long threadId) {
+        return threadSubscribers.get(threadId);
+    }
+
+    /**
+     * Ids of the forum threads that have at least one subscriber on this node.
+     */
+    public synchronized long[] watchedThreadIds() {
+        long[] ids = new long[threadSubscribers.size()];
+        int[] next = {0};
+        threadSubscribers.forEachKey(threadId -> ids[next[0]++] = threadId);
+        return ids;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String destination = new String(message.getBody(), StandardCharsets.UTF_8);
+        watchedInCluster.put(destination, System.currentTimeMillis() + leaseMillis);
+    }
+
+    /**
+     * Renew this node's leases and reload every node's from Redis, dropping expired ones.
+     */
+    @Scheduled(fixedDelayString = "${app.websocket.cluster.watch-refresh:10s}",
+               initialDelayString = "${app.websocket.cluster.watch-refresh:10s}")
+    public void refreshWatched() {
+        long now = System.currentTimeMillis();
+        Set<ZSetOperations.TypedTuple<String>> leases = new HashSet<>();
+        for (String destination : localDestinations()) {
+            leases.add(ZSetOperations.TypedTuple.of(destination, (double) (now + leaseMillis)));
+        }
+        try {
+            if (!leases.isEmpty()) {
+                redisTemplate.opsForZSet().add(WATCHED_KEY, leases);
+            }
+            redisTemplate.opsForZSet().removeRangeByScore(WATCHED_KEY, Double.NEGATIVE_INFINITY, now);
+            Set<ZSetOperations.TypedTuple<String>> current =
+                redisTemplate.opsForZSet().rangeByScoreWithScores(WATCHED_KEY, now, Double.POSITIVE_INFINITY);
+            Map<String, Long> loaded = new ConcurrentHashMap<>();
+            if (current != null) {
+                for (ZSetOperations.TypedTuple<String> lease : current) {
+                    if (lease.getValue() != null && lease.getScore() != null) {
+                        loaded.put(lease.getValue(), lease.getScore().longValue());
+                    }
+                }
+            }
+            // Keep leases announced while the set was read
+            watchedInCluster.forEach((destination, expiry) -> loaded.merge(destination, expiry, Math::max));
+            watchedInCluster = loaded;
+        } catch (Exception e) {
+            logger.warn("Failed to refresh watched destinations, keeping the current ones: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.websocket.subscriptions.metrics-interval:30s}")
+    public void publishMetrics() {
+        List<long[]> watched = new ArrayList<>();
+        synchronized (this) {
+            threadSubscribers.forEachKey(threadId ->
+                watched.add(new long[]{threadId, threadSubscribers.get(threadId)}));
+        }
+        watched.sort((a, b) -> Long.compare(b[1], a[1]));
+
+        List<MultiGauge.Row<?>> rows = new ArrayList<>();
+        for (int i = 0; i < Math.min(metricsTopN, watched.size()); i++) {
+            long[] entry = watched.get(i);
+            rows.add(MultiGauge.Row.of(Tags.of("thread", Long.toString(entry[0])), entry[1]));
+        }
+        watchedThreads.register(rows, true);
+    }
+
+    /**
+     * @return true if {@code destination} just gained its first local subscriber
+     */
+    private synchronized boolean adjust(String destination, int delta) {
+        totalSubscriptions += delta;
+        long threadId = threadIdOf(destination);
+        if (threadId >= 0) {
+            if (delta > 0) {
+                return threadSubscribers.increment(threadId) == 1;
+            }
+            threadSubscribers.decrement(threadId);
+            return false;
+        }
+        Integer updated = otherSubscribers.compute(destination, (key, count) -> {
+            int next = (count == null ? 0 : count) + delta;
+            return next > 0 ? next : null;
+        });
+        return delta > 0 && updated != null && updated == 1;
+    }
+
+    private synchronized List<String> localDestinations() {
+        List<String> destinations = new ArrayList<>(threadSubscribers.size() + otherSubscribers.size());
+        threadSubscribers.forEachKey(threadId -> destinations.add(THREAD_TOPIC_PREFIX + threadId));
+        destinations.addAll(otherSubscribers.keySet());
+        return destinations;
+    }
+
+    /**
+     * Lease a newly watched destination and tell the other nodes right away,
+     * rather than at their next refresh.
+     */
+    private void announce(String destination) {
+        long expiry = System.currentTimeMillis() + leaseMillis;
+        watchedInCluster.put(destination, expiry);
+        try {
+            redisTemplate.opsForZSet().add(WATCHED_KEY, destination, expiry);
+            redisTemplate.convertAndSend(WATCHED_CHANNEL, destination);
+        } catch (Exception e) {
+            // Other nodes pick the destination up at their next refresh
+            logger.warn("Failed to announce watched destination {}: {}", destination, e.getMessage());
+        }
+    }
+
+    private synchronized int watchedThreadCount() {
+        return threadSubscribers.size();
+    }
+
+    private synchronized int subscriptionCount() {
+        return totalSubscriptions;
+    }
+
+    /**
+     * @return the id in {@code /topic/forum/thread/{id}}, or -1 for any other destination
+     */
+    static long threadIdOf(String destination) {
+        if (!destination.startsWith(THREAD_TOPIC_PREFIX)) {
+            return -1;
+        }
+        int start = THREAD_TOPIC_PREFIX.length();
+        int end = destination.length();
+        if (start == end || end - start > 18) {
+            return -1;
+        }
+        long id = 0;
+        for (int i = start; i < end; i++) {
+            char c = destination.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            id = id * 10 + (c - '0');
+        }
+        return id;
+    }
+}
\ No newline at end of file
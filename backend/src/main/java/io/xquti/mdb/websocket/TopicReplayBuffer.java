@@ -0,0 +1,129 @@
+package io.xquti.mdb.websocket;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Sequence numbers and short replay history for forum topics.
+ *
+ * Every frame sent to {@code /topic/forum/thread/{id}} or to the global
+ * thread/post feeds gets a monotonic sequence number from a Redis counter,
+ * is kept in a capped Redis sorted set per topic and is published to the
+ * replicas, all by one script. Channel order is therefore sequence order,
+ * and any replica can replay what a reconnecting client missed. History
+ * expires once a topic has had no frames for the retention window.
+ */
+@Component
+public class TopicReplayBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TopicReplayBuffer.class);
+    private static final String SEQUENCE_PREFIX = "ws:seq:";
+    private static final String HISTORY_PREFIX = "ws:replay:";
+    private static final Set<String> GLOBAL_TOPICS = Set.of("/topic/forum/threads", "/topic/forum/posts");
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final RedisScript<Long> publishScript;
+    private final int capacity;
+    private final long retentionMillis;
+
+    @Autowired
+    public TopicReplayBuffer(RedisTemplate<String, String> redisTemplate,
+                             ObjectMapper objectMapper,
+                             @Value("${app.websocket.replay.capacity:256}") int capacity,
+                             @Value("${app.websocket.replay.retention:5m}") Duration retention) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.capacity = capacity;
+        this.retentionMillis = retention.toMillis();
+
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setLocation(new ClassPathResource("scripts/ws-publish.lua"));
+        script.setResultType(Long.class);
+        this.publishScript = script;
+    }
+
+    /**
+     * Whether frames to {@code destination} are sequenced and kept for replay.
+     */
+    public boolean tracks(String destination) {
+        return SubscriptionRegistry.threadIdOf(destination) >= 0 || GLOBAL_TOPICS.contains(destination);
+    }
+
+    /**
+     * Sequence a frame for a tracked destination, keep it for replay and publish
+     * {@code envelope} on {@code channel} as {@code "<seq>:<envelope>"}.
+     *
+     * @return the sequence number, or null if Redis is unavailable and nothing was published
+     */
+    Long publish(String destination, String json, String authors, String channel, String envelope) {
+        try {
+            return redisTemplate.execute(publishScript,
+                List.of(SEQUENCE_PREFIX + destination, HISTORY_PREFIX + destination),
+                channel, envelope, json, authors != null ? authors : "",
+                Integer.toString(capacity), Long.toString(retentionMillis));
+        } catch (Exception e) {
+            logger.warn("Failed to sequence frame for {}: {}", destination, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Frames for a topic with a sequence greater than {@code after}.
+     * {@code complete} is false when some of those frames are no longer kept,
+     * in which case the client should reload the page.
+     */
+    public Replay replay(String destination, long after) {
+        try {
+            // Read the counter first: frames sequenced after it are in the history read next
+            String counter = redisTemplate.opsForValue().get(SEQUENCE_PREFIX + destination);
+            Set<String> stored = redisTemplate.opsForZSet()
+                .rangeByScore(HISTORY_PREFIX + destination, after + 1, Double.POSITIVE_INFINITY);
+
+            long latest = counter != null ? Long.parseLong(counter) : 0;
+            List<ReplayEvent> events = new ArrayList<>();
+            if (stored != null) {
+                for (String frame : stored) {
+                    JsonNode node = objectMapper.readTree(frame);
+                    JsonNode authors = node.get("authors");
+                    events.add(new ReplayEvent(node.get("seq").asLong(), node.get("payload").toString(),
+                        authors == null || authors.isNull() ? null : authors.toString()));
+                }
+            }
+            if (!events.isEmpty()) {
+                latest = Math.max(latest, events.getLast().seq());
+            }
+            // Sequences are kept without holes, so only the oldest one needs checking
+            boolean complete = events.isEmpty() ? latest <= after : events.getFirst().seq() == after + 1;
+            return new Replay(events, complete, Math.max(latest, after));
+        } catch (Exception e) {
+            logger.warn("Failed to read replay history for {}: {}", destination, e.getMessage());
+            return new Replay(List.of(), false, after);
+        }
+    }
+
+    /**
+     * A recorded frame; {@code payload} is the JSON body that was sent and
+     * {@code authors} the profiles of the post authors it references, if any.
+     */
+    public record ReplayEvent(long seq, @JsonRawValue String payload, @JsonRawValue String authors) {
+    }
+
+    public record Replay(List<ReplayEvent> events, boolean complete, long latestSeq) {
+    }
+}
@@ -1,10 +1,22 @@
 package io.xquti.mdb.websocket;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.time.Duration;
+import java.util.Map;
 
 /**
  * WebSocket configuration for real-time features.
@@ -14,10 +26,39 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final OutboundFramePolicy outboundFramePolicy;
+    private final SessionFrameInterceptor sessionFrameInterceptor;
+
+    @Value("${app.websocket.transport.send-time-limit:10s}")
+    private Duration sendTimeLimit;
+
+    @Value("${app.websocket.transport.send-buffer-size:512KB}")
+    private DataSize sendBufferSize;
+
+    @Value("${app.websocket.transport.message-size-limit:64KB}")
+    private DataSize messageSizeLimit;
+
+    @Value("${app.websocket.channel.pool-size:8}")
+    private int channelPoolSize;
+
+    @Value("${app.websocket.channel.queue-capacity:10000}")
+    private int channelQueueCapacity;
+
+    @Autowired
+    public WebSocketConfig(OutboundFramePolicy outboundFramePolicy,
+                           SessionFrameInterceptor sessionFrameInterceptor) {
+        this.outboundFramePolicy = outboundFramePolicy;
+        this.sessionFrameInterceptor = sessionFrameInterceptor;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Enable a simple memory-based message broker to carry messages back to the client
+        // Enable a simple memory-based message broker to carry messages back to the client.
+        // It only reaches sessions on this node; ClusterBroadcaster relays broadcasts between replicas.
         config.enableSimpleBroker("/topic", "/queue");
+        // Publish order is deliberately not preserved per session: that would serialize each
+        // session's writes behind an unbounded queue and bypass the send limits and the
+        // outbound policy. Clients reorder thread frames by their seq header instead.
         
         // Designate the "/app" prefix for messages that are bound for @MessageMapping-annotated methods
         config.setApplicationDestinationPrefixes("/app");
@@ -26,6 +67,35 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         config.setUserDestinationPrefix("/user");
     }
 
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // A session whose unsent frames exceed the buffer or time limit is closed
+        // (SESSION_NOT_RELIABLE) instead of growing heap without bound
+        registration.setSendTimeLimit((int) sendTimeLimit.toMillis())
+                .setSendBufferSizeLimit((int) sendBufferSize.toBytes())
+                .setMessageSizeLimit((int) messageSizeLimit.toBytes())
+                // Lets the outbound policy see when a session's socket writes are blocked
+                .addDecoratorFactory(outboundFramePolicy);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(channelPoolSize)
+                .maxPoolSize(channelPoolSize)
+                .queueCapacity(channelQueueCapacity);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(channelPoolSize)
+                .maxPoolSize(channelPoolSize)
+                .queueCapacity(channelQueueCapacity);
+        // Rewrite per session first, so frames the policy conflates are already encoded
+        registration.interceptors(sessionFrameInterceptor, outboundFramePolicy);
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // SECURITY: Get allowed origins from environment variable
@@ -55,8 +125,28 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOrigins(origins) // Use setAllowedOrigins for strict validation
                 .withSockJS(); // Enable SockJS fallback options
         
-        // Register endpoint without SockJS for native WebSocket clients
+        // Register endpoint without SockJS for native WebSocket clients.
+        // Only these sessions get binary frames, so only they may negotiate CBOR.
         registry.addEndpoint("/ws-native")
-                .setAllowedOrigins(origins);
+                .setAllowedOrigins(origins)
+                .addInterceptors(new BinaryFramesHandshakeInterceptor());
+    }
+
+    /**
+     * Marks sessions on the native endpoint as able to receive binary frames.
+     */
+    private static class BinaryFramesHandshakeInterceptor implements HandshakeInterceptor {
+
+        @Override
+        public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                       WebSocketHandler wsHandler, Map<String, Object> attributes) {
+            attributes.put(SessionFrameInterceptor.BINARY_CAPABLE_ATTRIBUTE, Boolean.TRUE);
+            return true;
+        }
+
+        @Override
+        public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Exception exception) {
+        }
     }
 }
\ No newline at end of file
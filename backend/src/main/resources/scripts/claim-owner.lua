@@ -0,0 +1,16 @@
+-- Take or keep a single-owner lease.
+--
+-- KEYS[1]  the lease key
+-- ARGV[1]  this node's id
+-- ARGV[2]  lease length in ms
+--
+-- Returns 1 if this node holds the lease (renewed or newly taken), 0 if another node does
+
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    redis.call('PEXPIRE', KEYS[1], ARGV[2])
+    return 1
+end
+if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then
+    return 1
+end
+return 0
@@ -0,0 +1,75 @@
+-- Screen a new forum post against recent ones and, unless it is rejected,
+-- remember it, all in one step so concurrent double-submits cannot both pass.
+--
+-- Each ring is a list of entries "id|hi|lo|author|thread|long|time", newest first.
+-- An earlier post is comparable when it is by the same author in the same
+-- thread, or when both posts are long enough to be matched across authors
+-- and threads. Comparable posts within the window match when their SimHash
+-- fingerprints differ in at most the allowed number of bits.
+--
+-- KEYS[1]  recent posts in the thread
+-- KEYS[2]  recent posts by the author
+-- ARGV[1]  entry id
+-- ARGV[2]  fingerprint, high 32 bits (signed)
+-- ARGV[3]  fingerprint, low 32 bits (signed)
+-- ARGV[4]  author id
+-- ARGV[5]  thread id
+-- ARGV[6]  1 if the post is long enough for cross-author matching, else 0
+-- ARGV[7]  maximum Hamming distance for a match
+-- ARGV[8]  window in milliseconds
+-- ARGV[9]  ring size
+-- ARGV[10] 1 to leave a matching post out of the rings (reject mode), else 0
+--
+-- Returns {1 if a recent post matched else 0, the stored entry or ''}
+
+local hi = tonumber(ARGV[2])
+local lo = tonumber(ARGV[3])
+local author = ARGV[4]
+local thread = ARGV[5]
+local long = ARGV[6]
+local maxDistance = tonumber(ARGV[7])
+local window = tonumber(ARGV[8])
+local ringSize = tonumber(ARGV[9])
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+local cutoff = now - window
+
+local function popcount(x)
+  local count = 0
+  while x ~= 0 do
+    x = bit.band(x, x - 1)
+    count = count + 1
+  end
+  return count
+end
+
+local function matches(key)
+  for _, entry in ipairs(redis.call('LRANGE', key, 0, -1)) do
+    local _, eHi, eLo, eAuthor, eThread, eLong, eTime =
+      string.match(entry, '^([^|]*)|([^|]*)|([^|]*)|([^|]*)|([^|]*)|([^|]*)|([^|]*)$')
+    if eTime and tonumber(eTime) >= cutoff then
+      local comparable = (eAuthor == author and eThread == thread) or (eLong == '1' and long == '1')
+      if comparable then
+        local distance = popcount(bit.bxor(tonumber(eHi), hi)) + popcount(bit.bxor(tonumber(eLo), lo))
+        if distance <= maxDistance then
+          return true
+        end
+      end
+    end
+  end
+  return false
+end
+
+local duplicate = matches(KEYS[1]) or matches(KEYS[2])
+if duplicate and ARGV[10] == '1' then
+  return {1, ''}
+end
+
+local entry = table.concat({ARGV[1], ARGV[2], ARGV[3], author, thread, long, string.format('%d', now)}, '|')
+for _, key in ipairs(KEYS) do
+  redis.call('LPUSH', key, entry)
+  redis.call('LTRIM', key, 0, ringSize - 1)
+  redis.call('PEXPIRE', key, window)
+end
+return {duplicate and 1 or 0, entry}
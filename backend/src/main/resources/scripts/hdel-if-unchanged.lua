@@ -0,0 +1,15 @@
+-- Delete hash fields that still hold the values read earlier, so a value
+-- written in the meantime is kept.
+--
+-- KEYS[1] hash
+-- ARGV    field, value read, field, value read, ...
+--
+-- Returns the number of fields deleted
+
+local deleted = 0
+for i = 1, #ARGV, 2 do
+  if redis.call('HGET', KEYS[1], ARGV[i]) == ARGV[i + 1] then
+    deleted = deleted + redis.call('HDEL', KEYS[1], ARGV[i])
+  end
+end
+return deleted
@@ -0,0 +1,16 @@
+-- Register this node as alive and count the nodes that have checked in recently.
+--
+-- KEYS[1]  sorted set of node ids scored by last heartbeat (ms)
+-- ARGV[1]  this node's id
+-- ARGV[2]  how long a node counts as alive without a heartbeat, in ms
+--
+-- Returns the number of live nodes, this one included
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+local ttl = tonumber(ARGV[2])
+
+redis.call('ZADD', KEYS[1], now, ARGV[1])
+redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - ttl)
+redis.call('PEXPIRE', KEYS[1], ttl * 2)
+return redis.call('ZCARD', KEYS[1])
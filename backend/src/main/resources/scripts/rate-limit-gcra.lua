@@ -0,0 +1,52 @@
+-- Generic cell rate algorithm: one key per client and rule holding the
+-- theoretical arrival time (TAT) in milliseconds. A request is allowed if,
+-- after adding its cost, the TAT is at most one window ahead of now.
+-- Several tokens can be taken at once (nodes lease small chunks of quota);
+-- as many as are available up to the requested number are granted.
+--
+-- KEYS[1]  limiter key
+-- ARGV[1]  requests allowed per window
+-- ARGV[2]  window in milliseconds
+-- ARGV[3]  tokens requested (usually 1); negative to return unused leased tokens
+--
+-- Returns {tokens granted, remaining, retry after ms, reset after ms}
+
+local limit = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local requested = tonumber(ARGV[3])
+
+-- Redis' clock, so every node agrees on "now"
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local interval = window / limit
+local tat = tonumber(redis.call('GET', KEYS[1]))
+
+if requested < 0 then
+  if tat then
+    local refunded = math.ceil(tat + interval * requested)
+    if refunded > now then
+      redis.call('SET', KEYS[1], string.format('%d', refunded), 'PX', refunded - now)
+    else
+      redis.call('DEL', KEYS[1])
+    end
+  end
+  return {0, 0, 0, 0}
+end
+
+if not tat or tat < now then
+  tat = now
+end
+
+-- The epsilon keeps exact multiples of the interval from rounding down
+local available = math.floor((window - (tat - now)) / interval + 1e-9)
+local granted = math.min(requested, available)
+
+if granted < 1 then
+  return {0, 0, math.ceil(tat + interval - window - now), math.ceil(tat - now)}
+end
+
+local new_tat = math.ceil(tat + interval * granted)
+redis.call('SET', KEYS[1], string.format('%d', new_tat), 'PX', new_tat - now)
+local remaining = math.max(0, math.floor((window - (new_tat - now)) / interval + 1e-9))
+return {granted, remaining, 0, new_tat - now}
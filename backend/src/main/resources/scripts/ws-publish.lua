@@ -0,0 +1,23 @@
+-- Give a broadcast frame the next sequence number of its topic, keep it for
+-- replay and publish it, all in one step so the channel carries the topic's
+-- frames in sequence order.
+--
+-- KEYS[1] sequence counter of the topic
+-- KEYS[2] replay history of the topic (sorted set scored by sequence)
+-- ARGV[1] channel
+-- ARGV[2] envelope to publish
+-- ARGV[3] frame payload (JSON)
+-- ARGV[4] author profiles (JSON array), or '' for none
+-- ARGV[5] frames kept per topic
+-- ARGV[6] history retention in milliseconds
+--
+-- Returns the sequence number; the channel message is "<seq>:<envelope>"
+
+local seq = redis.call('INCR', KEYS[1])
+local authors = ARGV[4] ~= '' and ARGV[4] or 'null'
+
+redis.call('ZADD', KEYS[2], seq, '{"seq":' .. seq .. ',"payload":' .. ARGV[3] .. ',"authors":' .. authors .. '}')
+redis.call('ZREMRANGEBYRANK', KEYS[2], 0, -(tonumber(ARGV[5]) + 1))
+redis.call('PEXPIRE', KEYS[2], ARGV[6])
+redis.call('PUBLISH', ARGV[1], seq .. ':' .. ARGV[2])
+return seq
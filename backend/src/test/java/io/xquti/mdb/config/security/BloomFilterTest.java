@@ -0,0 +1,55 @@
+package io.xquti.mdb.config.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void mightContain_ShouldAlwaysFindAddedKeys() {
+        // Arrange
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        String[] keys = new String[1000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "token:" + UUID.randomUUID();
+            filter.add(keys[i]);
+        }
+
+        // Act & Assert
+        for (String key : keys) {
+            assertTrue(filter.mightContain(key));
+        }
+    }
+
+    @Test
+    void mightContain_ShouldKeepFalsePositivesNearTarget() {
+        // Arrange
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("token:" + UUID.randomUUID());
+        }
+
+        // Act
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("token:" + UUID.randomUUID())) {
+                falsePositives++;
+            }
+        }
+
+        // Assert - 1% target, with room for variance
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void mightContain_WhenEmpty_ShouldRejectEverything() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+
+        assertFalse(filter.mightContain("token:abc"));
+        assertFalse(filter.mightContain("user:alice"));
+    }
+}
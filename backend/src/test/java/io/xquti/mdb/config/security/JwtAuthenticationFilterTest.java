@@ -0,0 +1,80 @@
+package io.xquti.mdb.config.security;
+
+import io.xquti.mdb.service.JwtService;
+import io.xquti.mdb.service.UserService;
+import io.xquti.mdb.service.ValidatedToken;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private UserService userService;
+
+    @InjectMocks
+    private JwtAuthenticationFilter filter;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilter_WithIdentityClaims_ShouldAuthenticateWithoutLoadingUser() throws Exception {
+        // Arrange
+        Instant issuedAt = Instant.now();
+        ValidatedToken token = new ValidatedToken("t", "abc", "steve", "access", issuedAt,
+            issuedAt.plusSeconds(3600), 1L, List.of("ADMIN", "USER"), 0);
+        when(jwtService.validate("t")).thenReturn(token);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer t");
+
+        // Act
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        // Assert
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        assertEquals("steve", authentication.getName());
+        assertEquals(List.of("ROLE_ADMIN", "ROLE_USER"),
+            authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).sorted().toList());
+        assertSame(token, authentication.getCredentials());
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void doFilter_WithRejectedToken_ShouldLeaveRequestAnonymous() throws Exception {
+        when(jwtService.validate("t")).thenThrow(new io.jsonwebtoken.JwtException("stale"));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer t");
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(userService);
+    }
+}
@@ -0,0 +1,95 @@
+package io.xquti.mdb.config.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.xquti.mdb.service.ValidatedToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenRevocationServiceTest {
+
+    private static final String KEY = "jwt:revoked:abc";
+
+    private RedisTemplate<String, String> redisTemplate;
+    private TokenRevocationService service;
+    private ValidatedToken token;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        when(redisTemplate.opsForValue()).thenReturn(mock(ValueOperations.class));
+        when(redisTemplate.opsForZSet()).thenReturn(mock(ZSetOperations.class));
+        // Never loaded, so every check is confirmed in Redis
+        service = new TokenRevocationService(redisTemplate, mock(RedisMessageListenerContainer.class),
+            new SimpleMeterRegistry(), 1000, 0.01, Duration.ofMinutes(1));
+        Instant issuedAt = Instant.now().minusSeconds(60);
+        token = new ValidatedToken("t", "abc", "steve", "access", issuedAt, issuedAt.plusSeconds(3600),
+            1L, List.of("USER"), 0);
+    }
+
+    @Test
+    void isRevoked_ShouldConfirmFlaggedTokenInOneCall() {
+        // Arrange
+        when(redisTemplate.hasKey(KEY)).thenReturn(false);
+
+        // Act
+        boolean revoked = service.isRevoked(token);
+
+        // Assert
+        assertFalse(revoked);
+        verify(redisTemplate, times(1)).hasKey(anyString());
+    }
+
+    @Test
+    void isRevoked_WithRevokedToken_ShouldReturnTrue() {
+        when(redisTemplate.hasKey(KEY)).thenReturn(true);
+
+        assertTrue(service.isRevoked(token));
+    }
+
+    @Test
+    void isRevoked_CalledAgain_ShouldReuseRecentAnswer() {
+        when(redisTemplate.hasKey(KEY)).thenReturn(false);
+
+        service.isRevoked(token);
+        service.isRevoked(token);
+
+        verify(redisTemplate, times(1)).hasKey(anyString());
+    }
+
+    @Test
+    void isRevoked_AfterRevocationMessage_ShouldAskRedisAgain() {
+        when(redisTemplate.hasKey(KEY)).thenReturn(false);
+        service.isRevoked(token);
+
+        when(redisTemplate.hasKey(KEY)).thenReturn(true);
+        service.onMessage(message("token:abc"), null);
+
+        assertTrue(service.isRevoked(token));
+        verify(redisTemplate, times(2)).hasKey(anyString());
+    }
+
+    private static Message message(String body) {
+        Message message = mock(Message.class);
+        when(message.getBody()).thenReturn(body.getBytes(StandardCharsets.UTF_8));
+        return message;
+    }
+}
@@ -0,0 +1,79 @@
+package io.xquti.mdb.config.security;
+
+import io.xquti.mdb.event.TokenVersionChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenVersionServiceTest {
+
+    private static final long LIFETIME = 604_800_000L;
+
+    private RedisTemplate<String, String> redisTemplate;
+    private HashOperations<String, Object, Object> hashOperations;
+    private TokenVersionService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        hashOperations = mock(HashOperations.class);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        service = new TokenVersionService(redisTemplate, mock(RedisMessageListenerContainer.class), LIFETIME);
+    }
+
+    @Test
+    void onVersionChanged_ShouldRejectOlderTokensAndTellOtherNodes() {
+        // Act
+        service.onVersionChanged(new TokenVersionChangedEvent(1L, 2));
+
+        // Assert
+        assertTrue(service.isStale(1L, 1));
+        assertFalse(service.isStale(1L, 2));
+        assertFalse(service.isStale(2L, 0));
+        verify(hashOperations).put(eq("jwt:user-versions"), eq("1"), startsWith("2:"));
+        verify(redisTemplate).convertAndSend("jwt:user-versions:changed", "1:2");
+    }
+
+    @Test
+    void onVersionChanged_ShouldOnlyRunAfterCommit() throws NoSuchMethodException {
+        TransactionalEventListener listener = TokenVersionService.class
+            .getMethod("onVersionChanged", TokenVersionChangedEvent.class)
+            .getAnnotation(TransactionalEventListener.class);
+
+        assertEquals(TransactionPhase.AFTER_COMMIT, listener.phase());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reload_ShouldForgetBumpsOlderThanTheLongestTokenLifetime() {
+        long now = System.currentTimeMillis();
+        String expired = "3:" + (now - 1);
+        when(hashOperations.entries("jwt:user-versions"))
+            .thenReturn(Map.of("1", expired, "2", "5:" + (now + LIFETIME)));
+
+        service.reload();
+
+        assertFalse(service.isStale(1L, 0));
+        assertTrue(service.isStale(2L, 4));
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("jwt:user-versions")), eq("1"), eq(expired));
+    }
+}
@@ -30,6 +30,8 @@ import io.xquti.mdb.config.SecurityConfig;
 import java.time.LocalDateTime;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -60,8 +62,8 @@ class AuthControllerTest {
         
         @Bean
         @Primary
-        public io.xquti.mdb.config.security.TokenBlacklistService tokenBlacklistService() {
-            return Mockito.mock(io.xquti.mdb.config.security.TokenBlacklistService.class);
+        public io.xquti.mdb.config.security.TokenRevocationService tokenRevocationService() {
+            return Mockito.mock(io.xquti.mdb.config.security.TokenRevocationService.class);
         }
         
         @Bean
@@ -90,7 +92,7 @@ class AuthControllerTest {
     private io.xquti.mdb.service.UserService userService;
     
     @org.springframework.test.context.bean.override.mockito.MockitoBean
-    private io.xquti.mdb.config.security.TokenBlacklistService tokenBlacklistService;
+    private io.xquti.mdb.config.security.TokenRevocationService tokenRevocationService;
     
     private UserDto testUserDto;
 
@@ -189,4 +191,26 @@ class AuthControllerTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.message").value("Logged out successfully"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void logoutAll_WithValidToken_ShouldRetireEveryToken() throws Exception {
+        // Arrange
+        when(authUtils.getCurrentUserId("Bearer valid-jwt-token")).thenReturn(1L);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/auth/logout-all")
+                .header("Authorization", "Bearer valid-jwt-token")
+                .with(SecurityMockMvcRequestPostProcessors.csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Logged out from all sessions"));
+        verify(userService).retireTokens(1L);
+    }
+
+    @Test
+    void logoutAll_WithoutToken_ShouldReturn401() throws Exception {
+        mockMvc.perform(post("/api/auth/logout-all")
+                .with(SecurityMockMvcRequestPostProcessors.csrf()))
+                .andExpect(status().isUnauthorized());
+        verify(userService, never()).retireTokens(any());
+    }
+}
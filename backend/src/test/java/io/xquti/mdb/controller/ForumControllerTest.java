@@ -2,7 +2,6 @@ package io.xquti.mdb.controller;
 
 import io.xquti.mdb.dto.ForumPostDto;
 import io.xquti.mdb.dto.ForumThreadDto;
-import io.xquti.mdb.dto.UserDto;
 import io.xquti.mdb.service.ForumService;
 import io.xquti.mdb.util.AuthUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -33,7 +32,6 @@ import io.xquti.mdb.service.OAuth2UserService;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
@@ -160,6 +158,18 @@ class ForumControllerTest {
             return Mockito.mock(io.xquti.mdb.websocket.ForumWebSocketController.class);
         }
         
+        @Bean
+        @Primary
+        public io.xquti.mdb.service.PresenceService presenceService() {
+            return Mockito.mock(io.xquti.mdb.service.PresenceService.class);
+        }
+        
+        @Bean
+        @Primary
+        public io.xquti.mdb.websocket.TopicReplayBuffer topicReplayBuffer() {
+            return Mockito.mock(io.xquti.mdb.websocket.TopicReplayBuffer.class);
+        }
+        
         @Bean
         @Primary
         public io.xquti.mdb.service.DtoMapper dtoMapper() {
@@ -188,18 +198,6 @@ class ForumControllerTest {
     private ForumThreadDto testThreadDto;
     private ForumPostDto testPostDto;
     
-    private io.xquti.mdb.dto.UserDto createTestUserDto() {
-        return new io.xquti.mdb.dto.UserDto(
-            1L,
-            "testuser",
-            "test@example.com",
-            null,
-            "local",
-            Set.of(),
-            LocalDateTime.now()
-        );
-    }
-
     @BeforeEach
     void setUp() {
         testThreadDto = new ForumThreadDto();
@@ -268,7 +266,7 @@ class ForumControllerTest {
         String token = "valid-jwt-token";
         String email = "test@example.com";
         
-        when(authUtils.getCurrentUser("Bearer " + token)).thenReturn(createTestUserDto());
+        when(authUtils.getCurrentUserId("Bearer " + token)).thenReturn(1L);
         when(forumService.createThread(eq("New Thread"), eq("Thread content"), eq(1L)))
                 .thenReturn(testThreadDto);
 
@@ -291,7 +289,7 @@ class ForumControllerTest {
         request.setTitle("New Thread");
         request.setContent("Thread content");
         
-        when(authUtils.getCurrentUser(null)).thenReturn(null);
+        when(authUtils.getCurrentUserId(null)).thenReturn(null);
 
         // Act & Assert
         mockMvc.perform(post("/api/forums/threads")
@@ -310,7 +308,7 @@ class ForumControllerTest {
         request.setContent("Thread content");
         
         // Mock authentication
-        when(authUtils.getCurrentUser(anyString())).thenReturn(createTestUserDto());
+        when(authUtils.getCurrentUserId(anyString())).thenReturn(1L);
 
         // Act & Assert
         mockMvc.perform(post("/api/forums/threads")
@@ -348,7 +346,7 @@ class ForumControllerTest {
         String token = "valid-jwt-token";
         String email = "test@example.com";
         
-        when(authUtils.getCurrentUser("Bearer " + token)).thenReturn(createTestUserDto());
+        when(authUtils.getCurrentUserId("Bearer " + token)).thenReturn(1L);
         when(forumService.createPost(eq(threadId), eq("New post content"), eq(1L)))
                 .thenReturn(testPostDto);
 
@@ -370,7 +368,7 @@ class ForumControllerTest {
         ForumController.CreatePostRequest request = new ForumController.CreatePostRequest();
         request.setContent("New post content");
         
-        when(authUtils.getCurrentUser(null)).thenReturn(null);
+        when(authUtils.getCurrentUserId(null)).thenReturn(null);
 
         // Act & Assert
         mockMvc.perform(post("/api/forums/threads/{threadId}/posts", threadId)
@@ -389,7 +387,7 @@ class ForumControllerTest {
         request.setContent(""); // Invalid - empty content
         
         // Mock authentication
-        when(authUtils.getCurrentUser(anyString())).thenReturn(createTestUserDto());
+        when(authUtils.getCurrentUserId(anyString())).thenReturn(1L);
 
         // Act & Assert
         mockMvc.perform(post("/api/forums/threads/{threadId}/posts", threadId)
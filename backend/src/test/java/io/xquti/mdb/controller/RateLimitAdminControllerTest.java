@@ -0,0 +1,58 @@
+package io.xquti.mdb.controller;
+
+import io.xquti.mdb.exception.GlobalExceptionHandler;
+import io.xquti.mdb.ratelimit.RateLimitRules;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimitAdminControllerTest {
+
+    @Mock
+    private RateLimitRules rateLimitRules;
+
+    @InjectMocks
+    private RateLimitAdminController controller;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        // With the global handler in place, so its catch-all does not turn a bad table into a 500
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+            .setControllerAdvice(new GlobalExceptionHandler())
+            .build();
+    }
+
+    @Test
+    void replaceRules_WithInvalidRule_ShouldReturnBadRequest() throws Exception {
+        // Arrange
+        String body = "[{\"name\":\"api\",\"path\":\"/api/**\",\"key\":\"IP\",\"limit\":0,\"window\":\"PT60S\"}]";
+
+        // Act & Assert
+        mockMvc.perform(put("/api/admin/rate-limits").contentType(MediaType.APPLICATION_JSON).content(body))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Rate-limit rule api needs a positive limit and window"));
+        verifyNoInteractions(rateLimitRules);
+    }
+
+    @Test
+    void replaceRules_WithMalformedJson_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(put("/api/admin/rate-limits").contentType(MediaType.APPLICATION_JSON).content("[{"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Malformed rate-limit table"));
+        verifyNoInteractions(rateLimitRules);
+    }
+}
@@ -0,0 +1,80 @@
+package io.xquti.mdb.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CidrSetTest {
+
+    private final long[] scratch = new long[2];
+
+    @Test
+    void contains_ShouldMatchAddressesInsideNetworksOnly() {
+        // Arrange
+        CidrSet set = CidrSet.parse("10.0.0.0/8, 192.168.1.5, 2001:db8::/32");
+
+        // Act & Assert
+        assertTrue(contains(set, "10.200.3.4"));
+        assertTrue(contains(set, "192.168.1.5"));
+        assertTrue(contains(set, "2001:db8:ffff::1"));
+        assertFalse(contains(set, "11.0.0.1"));
+        assertFalse(contains(set, "192.168.1.6"));
+        assertFalse(contains(set, "2001:db9::1"));
+    }
+
+    @Test
+    void contains_Ipv4MappedForm_ShouldMatchIpv4Network() {
+        CidrSet set = CidrSet.parse("172.16.0.0/12");
+
+        assertTrue(contains(set, "::ffff:172.20.1.1"));
+        assertFalse(contains(set, "::ffff:172.32.0.1"));
+    }
+
+    @Test
+    void contains_ZeroPrefix_ShouldMatchEverythingInFamily() {
+        CidrSet set = CidrSet.of(List.of("0.0.0.0/0"));
+
+        assertTrue(contains(set, "8.8.8.8"));
+        assertFalse(contains(set, "2001:db8::1"));
+    }
+
+    @Test
+    void parse_Blank_ShouldBeEmpty() {
+        CidrSet set = CidrSet.parse(" ");
+
+        assertTrue(set.isEmpty());
+        assertFalse(contains(set, "10.0.0.1"));
+    }
+
+    @Test
+    void parse_InvalidEntries_ShouldFailAtStartup() {
+        assertThrows(IllegalArgumentException.class, () -> CidrSet.parse("10.0.0.0/33"));
+        assertThrows(IllegalArgumentException.class, () -> CidrSet.parse("10.0.0/8"));
+        assertThrows(IllegalArgumentException.class, () -> CidrSet.parse("::/129"));
+        assertThrows(IllegalArgumentException.class, () -> CidrSet.parse("10.0.0.0/x"));
+    }
+
+    @Test
+    void contains_ManyNetworks_ShouldGrowTrie() {
+        // Arrange - enough host routes to force several array resizes
+        StringBuilder cidrs = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            cidrs.append("198.51.").append(i).append(".9,");
+        }
+        CidrSet set = CidrSet.parse(cidrs.toString());
+
+        // Act & Assert
+        for (int i = 0; i < 200; i++) {
+            assertTrue(contains(set, "198.51." + i + ".9"));
+            assertFalse(contains(set, "198.51." + i + ".10"));
+        }
+    }
+
+    private boolean contains(CidrSet set, String address) {
+        return set.contains(address, 0, address.length(), scratch);
+    }
+}
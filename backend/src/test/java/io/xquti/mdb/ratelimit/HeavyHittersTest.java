@@ -0,0 +1,64 @@
+package io.xquti.mdb.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeavyHittersTest {
+
+    @Test
+    void top_ShouldRankHeaviestKeysAboveBackgroundNoise() {
+        // Arrange
+        HeavyHitters hitters = new HeavyHitters(4, 1024, 3);
+        for (int i = 0; i < 5000; i++) {
+            hitters.add("ip:10.0." + (i % 250) + "." + (i % 7));
+            if (i % 5 == 0) {
+                hitters.add("ip:attacker-1");
+            }
+            if (i % 10 == 0) {
+                hitters.add("ip:attacker-2");
+            }
+        }
+
+        // Act
+        List<HeavyHitters.Entry> top = hitters.top(2);
+
+        // Assert
+        assertEquals(2, top.size());
+        assertEquals("ip:attacker-1", top.get(0).key());
+        assertEquals("ip:attacker-2", top.get(1).key());
+        assertTrue(top.get(0).estimate() >= 1000);
+        assertTrue(top.get(1).estimate() >= 500);
+    }
+
+    @Test
+    void add_ShouldNeverUnderestimate() {
+        HeavyHitters hitters = new HeavyHitters(2, 16, 1);
+        for (int i = 0; i < 100; i++) {
+            hitters.add("noise-" + i);
+        }
+
+        assertTrue(hitters.add("key") >= 1);
+        assertTrue(hitters.add("key") >= 2);
+    }
+
+    @Test
+    void decay_ShouldHalveCountsAndDropEmptyCandidates() {
+        // Arrange
+        HeavyHitters hitters = new HeavyHitters(4, 256, 5);
+        for (int i = 0; i < 8; i++) {
+            hitters.add("busy");
+        }
+        hitters.add("once");
+
+        // Act
+        hitters.decay();
+
+        // Assert
+        assertEquals(List.of(new HeavyHitters.Entry("busy", 4)), hitters.top(5));
+        assertEquals(5, hitters.add("busy"));
+    }
+}
@@ -0,0 +1,82 @@
+package io.xquti.mdb.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IpAddressesTest {
+
+    @Test
+    void parse_Ipv4_ShouldProduceMappedAddress() {
+        // Arrange
+        long[] out = new long[2];
+
+        // Act
+        boolean valid = IpAddresses.parse("192.168.1.20", 0, 12, out);
+
+        // Assert
+        assertTrue(valid);
+        assertEquals(0L, out[0]);
+        assertEquals(0x0000_ffff_c0a8_0114L, out[1]);
+    }
+
+    @Test
+    void parse_Ipv6Forms_ShouldMatchJdk() throws Exception {
+        String[] addresses = {
+            "2001:db8::1", "::", "::1", "1::", "fe80::1%eth0", "2001:0db8:0000:0000:0000:ff00:0042:8329",
+            "::ffff:10.0.0.1", "64:ff9b::192.0.2.33", "1:2:3:4:5:6:7:8", "1:2:3:4:5:6:1.2.3.4",
+            "0:0:0:0:0:0:0:1", "ABCD:EF01::", "1::8", "1:2::7:8"
+        };
+        long[] out = new long[2];
+
+        for (String address : addresses) {
+            assertTrue(IpAddresses.parse(address, 0, address.length(), out), address);
+            assertArrayEquals(jdkBits(address), out, address);
+        }
+    }
+
+    @Test
+    void parse_InvalidAddresses_ShouldBeRejected() {
+        String[] invalid = {
+            "", "1.2.3", "1.2.3.4.5", "256.1.1.1", "1..2.3", "1.2.3.4 ", "1234.1.1.1", "a.b.c.d",
+            ":", ":::", "1:", ":1", "1::2::3", "12345::", "1:2:3:4:5:6:7:8:9", "1:2:3:4:5:6:7",
+            "::1.2.3", "1.2.3.4::", "::1.2.3.4:5", "g::1", "fe80::1%", "1:2:3:4:5:6:7::8:9"
+        };
+        long[] out = new long[2];
+
+        for (String address : invalid) {
+            assertFalse(IpAddresses.parse(address, 0, address.length(), out), address);
+        }
+    }
+
+    @Test
+    void parse_Range_ShouldOnlyReadWithinBounds() {
+        // Arrange
+        String header = " 203.0.113.7, 10.0.0.1";
+        long[] out = new long[2];
+
+        // Act
+        boolean valid = IpAddresses.parse(header, 1, 12, out);
+
+        // Assert
+        assertTrue(valid);
+        assertEquals(0x0000_ffff_cb00_7107L, out[1]);
+    }
+
+    private static long[] jdkBits(String address) throws Exception {
+        int zone = address.indexOf('%');
+        byte[] bytes = InetAddress.getByName(zone < 0 ? address : address.substring(0, zone)).getAddress();
+        if (bytes.length == 4) {
+            ByteBuffer mapped = ByteBuffer.allocate(16).putLong(0).putInt(0xffff).put(bytes);
+            bytes = mapped.array();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new long[] {buffer.getLong(), buffer.getLong()};
+    }
+}
@@ -0,0 +1,120 @@
+package io.xquti.mdb.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LeasedRateLimiterTest {
+
+    private static final Duration WINDOW = Duration.ofMinutes(1);
+
+    @Mock
+    private RedisRateLimiter redisLimiter;
+
+    private LeasedRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        // A long TTL keeps leases from lapsing mid-test
+        limiter = new LeasedRateLimiter(redisLimiter, new SimpleMeterRegistry(), 0.1, 50, Duration.ofMinutes(1), 1000);
+    }
+
+    @Test
+    void tryAcquire_WithinLease_ShouldNotCallRedisAgain() {
+        // Arrange - a 100/min rule leases 10 tokens at a time once the client is busy
+        when(redisLimiter.acquire("api:1.2.3.4", 100, WINDOW, 1)).thenReturn(grant(1, 99));
+        when(redisLimiter.acquire("api:1.2.3.4", 100, WINDOW, 10)).thenReturn(grant(10, 89));
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire("api:1.2.3.4", 100, WINDOW).allowed());
+        }
+
+        // Assert
+        verify(redisLimiter, times(1)).acquire("api:1.2.3.4", 100, WINDOW, 1);
+        verify(redisLimiter, times(1)).acquire("api:1.2.3.4", 100, WINDOW, 10);
+    }
+
+    @Test
+    void tryAcquire_OccasionalClient_ShouldTakeOnlyItsOwnToken() {
+        limiter = new LeasedRateLimiter(redisLimiter, new SimpleMeterRegistry(), 0.1, 50, Duration.ZERO, 1000);
+        when(redisLimiter.acquire("api:1.2.3.4", 100, WINDOW, 1)).thenReturn(grant(1, 99));
+
+        assertTrue(limiter.tryAcquire("api:1.2.3.4", 100, WINDOW).allowed());
+        assertTrue(limiter.tryAcquire("api:1.2.3.4", 100, WINDOW).allowed());
+
+        verify(redisLimiter, times(2)).acquire("api:1.2.3.4", 100, WINDOW, 1);
+        verify(redisLimiter, never()).release(anyString(), anyInt(), any(), anyInt());
+    }
+
+    @Test
+    void expireLeases_ShouldReturnUnusedTokensOfLapsedLeases() {
+        limiter = new LeasedRateLimiter(redisLimiter, new SimpleMeterRegistry(), 0.1, 50, Duration.ofMillis(50), 1000);
+        when(redisLimiter.acquire("api:1.2.3.4", 100, WINDOW, 1)).thenReturn(grant(1, 99));
+        when(redisLimiter.acquire("api:1.2.3.4", 100, WINDOW, 10)).thenReturn(grant(10, 89));
+        limiter.tryAcquire("api:1.2.3.4", 100, WINDOW);
+        limiter.tryAcquire("api:1.2.3.4", 100, WINDOW);
+
+        await(Duration.ofMillis(60));
+        limiter.expireLeases();
+
+        verify(redisLimiter, timeout(1000)).release("api:1.2.3.4", 100, WINDOW, 9);
+    }
+
+    @Test
+    void tryAcquire_WhenRedisDenies_ShouldRememberDenialUntilRetry() {
+        // Arrange
+        when(redisLimiter.acquire(eq("auth:1.2.3.4"), eq(5), eq(WINDOW), anyInt()))
+            .thenReturn(new RedisRateLimiter.Grant(0, new RateLimitResult(false, 5, 0, 30_000, 60_000)));
+
+        // Act
+        RateLimitResult first = limiter.tryAcquire("auth:1.2.3.4", 5, WINDOW);
+        RateLimitResult second = limiter.tryAcquire("auth:1.2.3.4", 5, WINDOW);
+
+        // Assert
+        assertFalse(first.allowed());
+        assertFalse(second.allowed());
+        assertTrue(second.retryAfterMillis() > 0);
+        verify(redisLimiter, times(1)).acquire(eq("auth:1.2.3.4"), eq(5), eq(WINDOW), anyInt());
+    }
+
+    @Test
+    void chunkSize_ShouldShrinkToSingleTokensNearTheLimit() {
+        assertEquals(10, limiter.chunkSize(100, 100));
+        assertEquals(3, limiter.chunkSize(100, 7));
+        assertEquals(1, limiter.chunkSize(100, 1));
+        assertEquals(1, limiter.chunkSize(5, 5));
+        assertEquals(50, limiter.chunkSize(10_000, 10_000));
+    }
+
+    private static void await(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static RedisRateLimiter.Grant grant(int granted, long remaining) {
+        return new RedisRateLimiter.Grant(granted, new RateLimitResult(true, 100, remaining, 0, 6_000));
+    }
+}
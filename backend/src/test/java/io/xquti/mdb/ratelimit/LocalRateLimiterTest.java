@@ -0,0 +1,50 @@
+package io.xquti.mdb.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalRateLimiterTest {
+
+    @Test
+    void tryAcquire_ShouldAllowExactlyLimitPerWindow() {
+        // Arrange
+        LocalRateLimiter limiter = new LocalRateLimiter(100);
+
+        // Act
+        int allowed = 0;
+        for (int i = 0; i < 10; i++) {
+            if (limiter.tryAcquire("api:ip:1.2.3.4", 7, Duration.ofMinutes(1)).allowed()) {
+                allowed++;
+            }
+        }
+        RateLimitResult denied = limiter.tryAcquire("api:ip:1.2.3.4", 7, Duration.ofMinutes(1));
+
+        // Assert
+        assertEquals(7, allowed);
+        assertFalse(denied.allowed());
+        assertTrue(denied.retryAfterMillis() > 0);
+    }
+
+    @Test
+    void tryAcquire_ShouldCountRemainingQuota() {
+        LocalRateLimiter limiter = new LocalRateLimiter(100);
+
+        assertEquals(4, limiter.tryAcquire("k", 5, Duration.ofSeconds(60)).remaining());
+        assertEquals(3, limiter.tryAcquire("k", 5, Duration.ofSeconds(60)).remaining());
+        assertEquals(4, limiter.tryAcquire("other", 5, Duration.ofSeconds(60)).remaining());
+    }
+
+    @Test
+    void tryAcquire_WhenKeyTableFull_ShouldDenyNewClients() {
+        LocalRateLimiter limiter = new LocalRateLimiter(1);
+
+        assertTrue(limiter.tryAcquire("first", 5, Duration.ofMinutes(1)).allowed());
+        assertFalse(limiter.tryAcquire("second", 5, Duration.ofMinutes(1)).allowed());
+        assertTrue(limiter.tryAcquire("first", 5, Duration.ofMinutes(1)).allowed());
+    }
+}
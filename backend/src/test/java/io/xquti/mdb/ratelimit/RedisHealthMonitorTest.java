@@ -0,0 +1,82 @@
+package io.xquti.mdb.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.xquti.mdb.config.ClusterNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RedisHealthMonitorTest {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    private RedisHealthMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        monitor = new RedisHealthMonitor(redisTemplate, new ClusterNode("node-1"), new SimpleMeterRegistry(),
+            Duration.ofSeconds(1), Duration.ofSeconds(15), 3, 5);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void probe_ShouldTripAfterConsecutiveFailuresAndRecoverAfterConsecutiveSuccesses() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), eq("node-1"), anyString()))
+            .thenThrow(new RedisConnectionFailureException("down"))
+            .thenThrow(new RedisConnectionFailureException("down"))
+            .thenThrow(new RedisConnectionFailureException("down"))
+            .thenReturn(3L);
+
+        // Act & Assert - two failures are tolerated, the third trips
+        monitor.probe();
+        monitor.probe();
+        assertTrue(monitor.isRedisHealthy());
+        monitor.probe();
+        assertFalse(monitor.isRedisHealthy());
+
+        // Four successes are not enough to switch back, the fifth is
+        for (int i = 0; i < 4; i++) {
+            monitor.probe();
+        }
+        assertFalse(monitor.isRedisHealthy());
+        monitor.probe();
+        assertTrue(monitor.isRedisHealthy());
+        assertEquals(3, monitor.getLiveNodes());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recordFailure_ShouldOnlyProbeSoASlowRequestCannotTrip() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), eq("node-1"), anyString())).thenReturn(1L);
+
+        for (int i = 0; i < 3; i++) {
+            monitor.recordFailure();
+        }
+
+        // The probe succeeds, so the request-path failures leave the mode alone
+        verify(redisTemplate, timeout(1000).atLeastOnce())
+            .execute(any(RedisScript.class), anyList(), eq("node-1"), anyString());
+        assertTrue(monitor.isRedisHealthy());
+    }
+}
@@ -0,0 +1,71 @@
+package io.xquti.mdb.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RouteTrieTest {
+
+    private static final RateLimitRule AUTH = rule("auth", "/api/auth/**", null, 5);
+    private static final RateLimitRule FORUM_POST = rule("forum_post", "/api/forums/**", "POST", 10);
+    private static final RateLimitRule API = rule("api", "/api/**", null, 60);
+    private static final RateLimitRule THREAD_POSTS = rule("thread_posts", "/api/forums/threads/*/posts", "POST", 3);
+
+    @Test
+    void match_ShouldPreferMostSpecificRule() {
+        // Arrange
+        RouteTrie trie = RouteTrie.compile(List.of(AUTH, FORUM_POST, API, THREAD_POSTS));
+
+        // Act & Assert
+        assertEquals(AUTH, trie.match("POST", "/api/auth/refresh"));
+        assertEquals(THREAD_POSTS, trie.match("POST", "/api/forums/threads/42/posts"));
+        assertEquals(FORUM_POST, trie.match("POST", "/api/forums/threads"));
+        assertEquals(API, trie.match("GET", "/api/tutorials/1"));
+    }
+
+    @Test
+    void match_MethodMismatch_ShouldFallBackToBroaderRule() {
+        RouteTrie trie = RouteTrie.compile(List.of(FORUM_POST, API, THREAD_POSTS));
+
+        assertEquals(API, trie.match("GET", "/api/forums/threads/42/posts"));
+        assertEquals(API, trie.match("DELETE", "/api/forums/threads/42"));
+    }
+
+    @Test
+    void match_UnlistedPaths_ShouldReturnNull() {
+        RouteTrie trie = RouteTrie.compile(List.of(AUTH, API));
+
+        assertNull(trie.match("GET", "/actuator/health"));
+        assertNull(trie.match("GET", "/"));
+        assertNull(trie.match("GET", "/apiv2/things"));
+    }
+
+    @Test
+    void match_DoubleWildcard_ShouldAlsoMatchItsPrefix() {
+        RouteTrie trie = RouteTrie.compile(List.of(API));
+
+        assertEquals(API, trie.match("GET", "/api"));
+        assertEquals(API, trie.match("GET", "//api//forums/"));
+    }
+
+    @Test
+    void compile_InvalidTables_ShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class,
+            () -> RouteTrie.compile(List.of(rule("a", "/api/**/x", null, 1))));
+        assertThrows(IllegalArgumentException.class,
+            () -> RouteTrie.compile(List.of(rule("a", "/api/t*", null, 1))));
+        assertThrows(IllegalArgumentException.class,
+            () -> RouteTrie.compile(List.of(rule("a", "/api/**", null, 1), rule("b", "/api/**", null, 2))));
+        assertThrows(IllegalArgumentException.class,
+            () -> RouteTrie.compile(List.of(rule("a", "/x/**", null, 1), rule("a", "/y/**", null, 2))));
+    }
+
+    private static RateLimitRule rule(String name, String path, String method, int limit) {
+        return new RateLimitRule(name, path, method, RateLimitRule.KeyType.IP, limit, Duration.ofMinutes(1), null);
+    }
+}
@@ -0,0 +1,68 @@
+package io.xquti.mdb.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CodeSymbolExtractorTest {
+
+    private final CodeSymbolExtractor extractor = new CodeSymbolExtractor();
+
+    @Test
+    void extract_ShouldOnlyIndexIdentifiersInsideFencedBlocks() {
+        // Arrange
+        String markdown = String.join("\n",
+            "# Listening for joins",
+            "Register a PlayerJoinEvent handler in your JavaPlugin.",
+            "```java",
+            "public class JoinListener implements Listener {",
+            "    @EventHandler",
+            "    public void onJoin(PlayerJoinEvent event) {",
+            "    }",
+            "}",
+            "```");
+
+        // Act
+        Map<String, List<Integer>> symbols = extractor.extract(markdown);
+
+        // Assert
+        assertEquals(List.of(6), symbols.get("PlayerJoinEvent"));
+        assertEquals(List.of(4), symbols.get("JoinListener"));
+        assertEquals(List.of(5), symbols.get("EventHandler"));
+        assertFalse(symbols.containsKey("JavaPlugin"));
+        assertFalse(symbols.containsKey("public"));
+    }
+
+    @Test
+    void extract_ShouldSkipCommentsAndLiterals() {
+        // Arrange
+        String markdown = String.join("\n",
+            "~~~",
+            "// BukkitRunnable in a comment",
+            "/* BukkitTask",
+            "   still a comment */ new BukkitRunnable() {",
+            "String name = \"JavaPlugin\";",
+            "long ticks = 20L;",
+            "~~~");
+
+        // Act
+        Map<String, List<Integer>> symbols = extractor.extract(markdown);
+
+        // Assert
+        assertEquals(List.of(4), symbols.get("BukkitRunnable"));
+        assertFalse(symbols.containsKey("BukkitTask"));
+        assertFalse(symbols.containsKey("JavaPlugin"));
+        assertTrue(symbols.containsKey("ticks"));
+        assertFalse(symbols.containsKey("L"));
+    }
+
+    @Test
+    void extract_WithNullContent_ShouldReturnEmpty() {
+        assertTrue(extractor.extract(null).isEmpty());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,87 @@
+package io.xquti.mdb.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MinHashSignatureTest {
+
+    @Test
+    void similarity_ShouldEstimateJaccardOfWordSets() {
+        // Arrange - 10 shared words out of 20 distinct ones, a Jaccard similarity of 0.5
+        MinHashSignature first = signature(256, words("shared", 10) + " " + words("first", 5));
+        MinHashSignature second = signature(256, words("shared", 10) + " " + words("second", 5));
+
+        // Act
+        double similarity = first.similarity(second);
+
+        // Assert
+        assertEquals(0.5, similarity, 0.15);
+    }
+
+    @Test
+    void similarity_ShouldIgnoreCasePunctuationAndWordOrder() {
+        MinHashSignature first = signature(64, "Custom block entity renderer, NeoForge!");
+        MinHashSignature second = signature(64, "neoforge renderer entity block custom");
+
+        assertEquals(1.0, first.similarity(second));
+    }
+
+    @Test
+    void similarity_OfUnrelatedText_ShouldBeLow() {
+        MinHashSignature first = signature(128, words("alpha", 20));
+        MinHashSignature second = signature(128, words("omega", 20));
+
+        assertTrue(first.similarity(second) < 0.1);
+    }
+
+    @Test
+    void add_ShouldMergeIncrementallyAsElementWiseMinimum() {
+        MinHashSignature whole = signature(64, "registering custom recipes with datapacks");
+        MinHashSignature incremental = signature(64, "registering custom");
+        incremental.add("recipes with datapacks");
+
+        for (int k = 0; k < whole.size(); k++) {
+            assertEquals(whole.get(k), incremental.get(k));
+        }
+    }
+
+    @Test
+    void add_ShouldSkipWordsShorterThanThreeCharacters() {
+        MinHashSignature signature = signature(64, "a an to of ?!");
+
+        assertTrue(signature.isEmpty());
+        signature.add("mod");
+        assertFalse(signature.isEmpty());
+    }
+
+    @Test
+    void bandKey_ShouldMatchForEqualBandsAndDependOnBandIndex() {
+        MinHashSignature first = signature(64, words("shared", 30));
+        MinHashSignature second = signature(64, words("shared", 30));
+
+        for (int band = 0; band < 16; band++) {
+            assertEquals(first.bandKey(band, 4), second.bandKey(band, 4));
+        }
+        // Equal slot values in different bands must not land in the same bucket
+        MinHashSignature uniform = signature(8, "");
+        assertNotEquals(uniform.bandKey(0, 4), uniform.bandKey(1, 4));
+    }
+
+    private static MinHashSignature signature(int size, String text) {
+        MinHashSignature signature = new MinHashSignature(size);
+        signature.add(text);
+        return signature;
+    }
+
+    private static String words(String prefix, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append(prefix).append(i).append(' ');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,131 @@
+package io.xquti.mdb.search;
+
+import io.xquti.mdb.config.ClusterNode;
+import io.xquti.mdb.model.ForumThread;
+import io.xquti.mdb.repository.ForumPostRepository;
+import io.xquti.mdb.repository.ForumThreadRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RelatedThreadsServiceTest {
+
+    private ForumThreadRepository forumThreadRepository;
+    private ForumPostRepository forumPostRepository;
+    private RedisTemplate<String, String> redisTemplate;
+    private ValueOperations<String, String> values;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        forumThreadRepository = mock(ForumThreadRepository.class);
+        forumPostRepository = mock(ForumPostRepository.class);
+        redisTemplate = mock(RedisTemplate.class);
+        values = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), eq("node-1"), anyString())).thenReturn(1L);
+
+        // 2 is a near copy of 1 (Jaccard 0.9); 3 shares a little over half its words with both
+        when(forumThreadRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of(
+            thread(1L, words("topic", 20)),
+            thread(2L, words("topic", 18)),
+            thread(3L, words("topic", 14) + words("other", 6)))));
+        when(forumPostRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(List.of()));
+    }
+
+    @Test
+    void rebuild_ShouldListTheMostSimilarBucketMate() throws Exception {
+        // Arrange
+        RelatedThreadsService service = service(0.2);
+
+        // Act
+        service.claimOwnership();
+        service.shutdown();
+
+        // Assert
+        verify(values).set("forum:related:1", "2");
+        verify(values).set("forum:related:2", "1");
+    }
+
+    @Test
+    void rebuild_ShouldLeaveOutCandidatesBelowMinSimilarity() throws Exception {
+        RelatedThreadsService service = service(0.95);
+
+        service.claimOwnership();
+        service.shutdown();
+
+        // Every pair shares a bucket, but none is similar enough to recommend
+        verify(values, never()).set(anyString(), anyString());
+        verify(redisTemplate).delete("forum:related:1");
+        verify(redisTemplate).delete("forum:related:2");
+        verify(redisTemplate).delete("forum:related:3");
+    }
+
+    @Test
+    void threadDeleted_ShouldRefillBucketMatesListsWithoutIt() throws Exception {
+        RelatedThreadsService service = service(0.2);
+
+        service.claimOwnership();
+        service.onMessage(new DefaultMessage("forum:related:changes".getBytes(StandardCharsets.UTF_8),
+            "delete:2".getBytes(StandardCharsets.UTF_8)), null);
+        service.shutdown();
+
+        var order = inOrder(values, redisTemplate);
+        order.verify(values).set("forum:related:1", "2");
+        order.verify(redisTemplate).delete("forum:related:2");
+        order.verify(values).set("forum:related:1", "3");
+    }
+
+    @Test
+    void constructor_WhenBandsDoNotDivideSignature_ShouldReject() {
+        assertThrows(IllegalArgumentException.class, () -> new RelatedThreadsService(forumThreadRepository,
+            forumPostRepository, redisTemplate, mock(RedisMessageListenerContainer.class), new ClusterNode("node-1"),
+            5, 64, 10, 0.2, Duration.ofSeconds(30)));
+    }
+
+    /**
+     * One slot per band, so any pair with a matching slot is compared, and a top-1 list.
+     */
+    private RelatedThreadsService service(double minSimilarity) {
+        return new RelatedThreadsService(forumThreadRepository, forumPostRepository, redisTemplate,
+            mock(RedisMessageListenerContainer.class), new ClusterNode("node-1"),
+            1, 64, 64, minSimilarity, Duration.ofSeconds(30));
+    }
+
+    private static ForumThread thread(Long id, String content) {
+        ForumThread thread = new ForumThread();
+        thread.setId(id);
+        thread.setTitle("Title");
+        thread.setContent(content);
+        return thread;
+    }
+
+    private static String words(String prefix, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append(prefix).append(i).append(' ');
+        }
+        return text.toString();
+    }
+}
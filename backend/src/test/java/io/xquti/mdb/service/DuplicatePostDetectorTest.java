@@ -0,0 +1,140 @@
+package io.xquti.mdb.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.xquti.mdb.event.PostScreenedEvent;
+import io.xquti.mdb.exception.DuplicatePostException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class DuplicatePostDetectorTest {
+
+    private static final String LONG_POST = "Has anyone managed to register a custom block entity renderer on NeoForge?";
+
+    private RedisTemplate<String, String> redisTemplate;
+    private ApplicationEventPublisher eventPublisher;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+    }
+
+    @Test
+    void screen_WhenScriptFindsDuplicate_InRejectMode_ShouldThrowWithoutRemembering() {
+        // Arrange
+        DuplicatePostDetector detector = detector("reject");
+        reply(1L, "");
+
+        // Act & Assert
+        assertThrows(DuplicatePostException.class, () -> detector.screen(7L, 1L, "thanks!"));
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void screen_WhenScriptFindsDuplicate_InFlagMode_ShouldAcceptAndRemember() {
+        // Arrange
+        DuplicatePostDetector detector = detector("flag");
+        reply(1L, "entry");
+
+        // Act
+        assertDoesNotThrow(() -> detector.screen(7L, 1L, "thanks!"));
+
+        // Assert
+        verify(eventPublisher).publishEvent(new PostScreenedEvent(7L, 1L, "entry"));
+    }
+
+    @Test
+    void screen_ShortPost_ShouldOnlyBeMatchedWithinOwnThread() {
+        DuplicatePostDetector detector = detector("reject");
+        reply(0L, "entry");
+
+        detector.screen(7L, 1L, "thanks!");
+
+        // ARGV[6] = 0: the script compares it only with the same author's posts in the same thread
+        verify(redisTemplate).execute(any(RedisScript.class),
+            eq(List.of("forum:recent:thread:7", "forum:recent:user:1")),
+            any(), any(), any(), eq("1"), eq("7"), eq("0"), eq("6"), eq("600000"), eq("16"), eq("1"));
+    }
+
+    @Test
+    void screen_LongPost_ShouldBeMatchedAcrossAuthorsAndThreads() {
+        DuplicatePostDetector detector = detector("reject");
+        reply(0L, "entry");
+
+        detector.screen(7L, 1L, LONG_POST);
+
+        verify(redisTemplate).execute(any(RedisScript.class), anyList(),
+            any(), any(), any(), any(), any(), eq("1"), any(), any(), any(), any());
+    }
+
+    @Test
+    void screen_WithoutWords_ShouldSkipScreening() {
+        DuplicatePostDetector detector = detector("reject");
+
+        detector.screen(7L, 1L, "!!! ???");
+
+        verifyNoInteractions(redisTemplate, eventPublisher);
+    }
+
+    @Test
+    void screen_WhenOff_ShouldSkipScreening() {
+        DuplicatePostDetector detector = detector("off");
+
+        detector.screen(7L, 1L, LONG_POST);
+
+        verifyNoInteractions(redisTemplate, eventPublisher);
+    }
+
+    @Test
+    void screen_WhenRedisUnavailable_ShouldAcceptPost() {
+        DuplicatePostDetector detector = detector("reject");
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+            .thenThrow(new RedisConnectionFailureException("down"));
+
+        assertDoesNotThrow(() -> detector.screen(7L, 1L, LONG_POST));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void onRolledBack_ShouldForgetPostInBothRings() {
+        DuplicatePostDetector detector = detector("reject");
+        ListOperations<String, String> lists = mock(ListOperations.class);
+        when(redisTemplate.opsForList()).thenReturn(lists);
+
+        detector.onRolledBack(new PostScreenedEvent(7L, 1L, "entry"));
+
+        verify(lists).remove("forum:recent:thread:7", 1, "entry");
+        verify(lists).remove("forum:recent:user:1", 1, "entry");
+    }
+
+    @SuppressWarnings("unchecked")
+    private void reply(long duplicate, String entry) {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+            .thenReturn(List.of(duplicate, entry));
+    }
+
+    private DuplicatePostDetector detector(String mode) {
+        return new DuplicatePostDetector(redisTemplate, eventPublisher, mode, 6, Duration.ofMinutes(10), 16, 40,
+            new SimpleMeterRegistry());
+    }
+}
@@ -10,12 +10,14 @@ import io.xquti.mdb.model.User;
 import io.xquti.mdb.repository.ForumPostRepository;
 import io.xquti.mdb.repository.ForumThreadRepository;
 import io.xquti.mdb.repository.UserRepository;
+import io.xquti.mdb.search.RelatedThreadsService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -53,6 +55,15 @@ class ForumServiceTest {
     @Mock
     private DtoMapper dtoMapper;
 
+    @Mock
+    private RelatedThreadsService relatedThreadsService;
+
+    @Mock
+    private DuplicatePostDetector duplicatePostDetector;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ForumService forumService;
 
@@ -0,0 +1,78 @@
+package io.xquti.mdb.service;
+
+import io.jsonwebtoken.JwtException;
+import io.xquti.mdb.config.security.TokenRevocationService;
+import io.xquti.mdb.config.security.TokenVersionService;
+import io.xquti.mdb.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JwtServiceTest {
+
+    private static final String SECRET = "a7Fq-92Lm_x0Zr-4Ke8_Wt1p-Jd6Y_s3Nv-0Bc5_Hu7o-Qe2M_g9Ri-1Xa4_Tz6L-yP3w";
+
+    @Mock
+    private TokenRevocationService revocationService;
+
+    @Mock
+    private TokenVersionService versionService;
+
+    @InjectMocks
+    private JwtService jwtService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(jwtService, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtService, "expiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtService, "refreshExpiration", 604_800_000L);
+        ReflectionTestUtils.setField(jwtService, "issuer", "mdb-platform");
+        ReflectionTestUtils.setField(jwtService, "audience", "mdb-users");
+        ReflectionTestUtils.setField(jwtService, "previousSecrets", List.of());
+        jwtService.init();
+
+        user = new User("steve", "steve@example.com", "github", "42");
+        user.setId(1L);
+        user.setRoles(Set.of(User.Role.USER, User.Role.ADMIN));
+    }
+
+    @Test
+    void validate_WithCurrentVersion_ShouldReturnIdentityClaims() {
+        // Arrange
+        String token = jwtService.generateToken(user, false);
+
+        // Act
+        ValidatedToken validated = jwtService.validate(token);
+
+        // Assert
+        assertEquals(1L, validated.userId());
+        assertEquals(List.of("ADMIN", "USER"), validated.roles());
+        assertEquals(0, validated.userVersion());
+    }
+
+    @Test
+    void validate_WithStaleVersion_ShouldRejectToken() {
+        String token = jwtService.generateToken(user, false);
+        when(versionService.isStale(1L, 0)).thenReturn(true);
+
+        assertThrows(JwtException.class, () -> jwtService.validate(token));
+        verify(revocationService, never()).isRevoked(any());
+    }
+}
@@ -0,0 +1,121 @@
+package io.xquti.mdb.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.xquti.mdb.dto.UserDto;
+import io.xquti.mdb.event.UserChangedEvent;
+import io.xquti.mdb.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class PrincipalCacheTest {
+
+    private RedisTemplate<String, String> redisTemplate;
+    private AtomicInteger loads;
+    private Supplier<Optional<UserPrincipal>> loader;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        loads = new AtomicInteger();
+        UserPrincipal principal = new UserPrincipal(new UserDto(1L, "steve", "steve@example.com", null, "github",
+            Set.of(User.Role.USER), LocalDateTime.now()), 0);
+        loader = () -> {
+            loads.incrementAndGet();
+            return Optional.of(principal);
+        };
+    }
+
+    @Test
+    void get_AfterOneLoad_ShouldServeAllKeysFromCache() {
+        // Arrange
+        PrincipalCache cache = cache(Duration.ofMinutes(5));
+
+        // Act
+        cache.getByEmail("steve@example.com", loader);
+        Optional<UserPrincipal> byId = cache.getById(1L, loader);
+        Optional<UserPrincipal> byUsername = cache.getByUsername("steve", loader);
+
+        // Assert
+        assertEquals(1, loads.get());
+        assertEquals("steve", byId.orElseThrow().username());
+        assertEquals(1L, byUsername.orElseThrow().id());
+        assertEquals(2.0 / 3, cache.hitRatio(), 1e-9);
+    }
+
+    @Test
+    void onUserChanged_ShouldEvictEveryKeyAndBroadcast() {
+        // Arrange
+        PrincipalCache cache = cache(Duration.ofMinutes(5));
+        cache.getById(1L, loader);
+
+        // Act
+        cache.onUserChanged(new UserChangedEvent(1L));
+        cache.getByEmail("steve@example.com", loader);
+
+        // Assert
+        assertEquals(2, loads.get());
+        verify(redisTemplate).convertAndSend("users:changed", "1");
+    }
+
+    @Test
+    void get_AfterTtl_ShouldReload() throws InterruptedException {
+        PrincipalCache cache = cache(Duration.ofMillis(20));
+
+        cache.getById(1L, loader);
+        Thread.sleep(40);
+        cache.getByUsername("steve", loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_WhenInvalidatedDuringLoad_ShouldNotCacheResult() {
+        PrincipalCache cache = cache(Duration.ofMinutes(5));
+
+        Optional<UserPrincipal> loaded = cache.getById(1L, () -> {
+            cache.evict(1L);
+            return loader.get();
+        });
+
+        assertTrue(loaded.isPresent());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void get_BeyondMaxEntries_ShouldEvictLeastRecentlyUsed() {
+        PrincipalCache cache = cache(Duration.ofMinutes(5), 1);
+        UserPrincipal other = new UserPrincipal(new UserDto(2L, "alex", "alex@example.com", null, "google",
+            Set.of(User.Role.USER), LocalDateTime.now()), 0);
+
+        cache.getById(1L, loader);
+        cache.getById(2L, () -> Optional.of(other));
+
+        assertEquals(1, cache.size());
+        assertFalse(cache.getByEmail("steve@example.com", Optional::empty).isPresent());
+    }
+
+    private PrincipalCache cache(Duration ttl) {
+        return cache(ttl, 100);
+    }
+
+    private PrincipalCache cache(Duration ttl, int maxEntries) {
+        return new PrincipalCache(redisTemplate, mock(RedisMessageListenerContainer.class),
+            new SimpleMeterRegistry(), maxEntries, ttl);
+    }
+}
@@ -0,0 +1,43 @@
+package io.xquti.mdb.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimHashTest {
+
+    @Test
+    void fingerprint_WithNearIdenticalText_ShouldBeWithinSmallDistance() {
+        // Arrange
+        String original = "How do I cancel a BukkitRunnable after the player leaves the server? "
+            + "I schedule it in onEnable and it keeps running forever.";
+        String resubmitted = "How do I cancel a BukkitRunnable after the player leaves the server?? "
+            + "I schedule it in onEnable and it keeps running forever";
+
+        // Act
+        int distance = SimHash.distance(SimHash.fingerprint(original), SimHash.fingerprint(resubmitted));
+
+        // Assert
+        assertEquals(0, distance);
+    }
+
+    @Test
+    void fingerprint_WithUnrelatedText_ShouldBeFarApart() {
+        // Arrange
+        String first = "How do I cancel a BukkitRunnable after the player leaves the server?";
+        String second = "Which database should I use to store economy balances for a network of servers?";
+
+        // Act
+        int distance = SimHash.distance(SimHash.fingerprint(first), SimHash.fingerprint(second));
+
+        // Assert
+        assertTrue(distance > 6, "unrelated posts should not be considered duplicates: " + distance);
+    }
+
+    @Test
+    void fingerprint_WithNoWords_ShouldBeZero() {
+        assertEquals(0L, SimHash.fingerprint("?!  ..."));
+        assertEquals(0L, SimHash.fingerprint(null));
+    }
+}
\ No newline at end of file
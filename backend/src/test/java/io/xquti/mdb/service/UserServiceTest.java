@@ -1,6 +1,8 @@
 package io.xquti.mdb.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.xquti.mdb.dto.UserDto;
+import io.xquti.mdb.event.TokenVersionChangedEvent;
 import io.xquti.mdb.exception.EntityNotFoundException;
 import io.xquti.mdb.model.User;
 import io.xquti.mdb.repository.UserRepository;
@@ -10,8 +12,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Optional;
 
@@ -28,6 +35,13 @@ class UserServiceTest {
     @Mock
     private DtoMapper dtoMapper;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private PrincipalCache principalCache = new PrincipalCache(mock(RedisTemplate.class),
+        mock(RedisMessageListenerContainer.class), new SimpleMeterRegistry(), 100, Duration.ofMinutes(5));
+
     @InjectMocks
     private UserService userService;
 
@@ -115,6 +129,22 @@ class UserServiceTest {
         verify(dtoMapper, never()).toUserDto(any());
     }
 
+    @Test
+    void findByEmailDto_CalledTwice_ShouldLoadOnce() {
+        // Arrange
+        String email = "test@example.com";
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(testUser));
+        when(dtoMapper.toUserDto(any(User.class))).thenReturn(testUserDto);
+
+        // Act
+        userService.findByEmailDto(email);
+        UserDto result = userService.findByEmailDto(email);
+
+        // Assert
+        assertEquals(testUserDto.email(), result.email());
+        verify(userRepository, times(1)).findByEmail(email);
+    }
+
     @Test
     void save_WithValidUser_ShouldSaveUser() {
         // Arrange
@@ -156,4 +186,39 @@ class UserServiceTest {
         assertFalse(result);
         verify(userRepository).existsByEmail(email);
     }
-}
\ No newline at end of file
+
+    @Test
+    void updateRoles_ShouldBumpTokenVersionAndPublishIt() {
+        // Arrange
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        userService.updateRoles(1L, Set.of(User.Role.ADMIN));
+
+        // Assert - the new version reaches other nodes after commit, via TokenVersionService
+        assertEquals(1L, testUser.getTokenVersion());
+        verify(eventPublisher).publishEvent(new TokenVersionChangedEvent(1L, 1L));
+    }
+
+    @Test
+    void deleteUser_ShouldRetireTheUsersTokens() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+
+        userService.deleteUser(1L);
+
+        verify(userRepository).deleteById(1L);
+        verify(eventPublisher).publishEvent(new TokenVersionChangedEvent(1L, 1L));
+    }
+
+    @Test
+    void retireTokens_ShouldBumpTokenVersionAndPublishIt() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        userService.retireTokens(1L);
+
+        assertEquals(1L, testUser.getTokenVersion());
+        verify(eventPublisher).publishEvent(new TokenVersionChangedEvent(1L, 1L));
+    }
+}
@@ -0,0 +1,103 @@
+package io.xquti.mdb.util;
+
+import io.xquti.mdb.config.security.JwtAuthenticationFilter;
+import io.xquti.mdb.service.JwtService;
+import io.xquti.mdb.service.UserService;
+import io.xquti.mdb.service.ValidatedToken;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AuthUtilsTest {
+
+    private static final String HEADER = "Bearer t";
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private UserService userService;
+
+    @InjectMocks
+    private JwtAuthenticationFilter filter;
+
+    @InjectMocks
+    private AuthUtils authUtils;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void request_ShouldVerifyTokenOnceAndReuseItInController() throws Exception {
+        // Arrange
+        ValidatedToken token = token("t", 1L);
+        when(jwtService.validate("t")).thenReturn(token);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", HEADER);
+        Object[] seen = new Object[3];
+
+        // Act - the chain stands in for a controller reading the caller the way ForumController does
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            seen[0] = authUtils.getCurrentUserId(HEADER);
+            seen[1] = authUtils.getCurrentToken();
+            seen[2] = authUtils.getToken(HEADER);
+        });
+
+        // Assert
+        assertEquals(1L, seen[0]);
+        assertSame(token, seen[1]);
+        assertSame(token, seen[2]);
+        verify(jwtService, times(1)).validate("t");
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void getToken_ForAnotherToken_ShouldValidateItInsteadOfReusingTheFiltersResult() throws Exception {
+        ValidatedToken current = token("t", 1L);
+        ValidatedToken other = token("u", 2L);
+        when(jwtService.validate("t")).thenReturn(current);
+        when(jwtService.validate("u")).thenReturn(other);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", HEADER);
+        Object[] seen = new Object[1];
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> seen[0] = authUtils.getToken("Bearer u"));
+
+        assertSame(other, seen[0]);
+    }
+
+    @Test
+    void getCurrentUserId_WithoutAuthentication_ShouldValidateHeader() throws Exception {
+        when(jwtService.validate("t")).thenReturn(token("t", 1L));
+
+        assertEquals(1L, authUtils.getCurrentUserId(HEADER));
+        assertNull(authUtils.getCurrentToken());
+        verify(jwtService).validate("t");
+    }
+
+    private static ValidatedToken token(String compact, Long userId) {
+        Instant issuedAt = Instant.now();
+        return new ValidatedToken(compact, "id-" + compact, "steve", "access", issuedAt,
+            issuedAt.plusSeconds(3600), userId, List.of("USER"), 0);
+    }
+}
@@ -0,0 +1,95 @@
+package io.xquti.mdb.websocket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BroadcastCoalescerTest {
+
+    private static final String TOPIC = "/topic/forum/thread/7";
+
+    private ClusterBroadcaster broadcaster;
+    private BroadcastCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = mock(ClusterBroadcaster.class);
+        when(broadcaster.hasAudience(TOPIC)).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (coalescer != null) {
+            coalescer.shutdown();
+        }
+    }
+
+    @Test
+    void submit_ShouldFlushOneArrayFrameOnceTheWindowIsQuiet() {
+        // Arrange
+        coalescer = new BroadcastCoalescer(broadcaster, Duration.ofMillis(50), Duration.ofSeconds(5), 50);
+
+        // Act
+        coalescer.submit(TOPIC, "a");
+        coalescer.submit(TOPIC, "b");
+        coalescer.submit(TOPIC, "c");
+
+        // Assert
+        verify(broadcaster, timeout(1000)).broadcast(TOPIC, List.of("a", "b", "c"));
+        verify(broadcaster, after(200).times(1)).broadcast(eq(TOPIC), any());
+    }
+
+    @Test
+    void submit_ShouldFlushAtMaxDelayEvenIfEventsKeepArriving() {
+        // The window alone would hold the batch for a minute
+        coalescer = new BroadcastCoalescer(broadcaster, Duration.ofMinutes(1), Duration.ofMillis(100), 50);
+
+        coalescer.submit(TOPIC, "a");
+
+        verify(broadcaster, timeout(1000)).broadcast(TOPIC, List.of("a"));
+    }
+
+    @Test
+    void submit_ShouldFlushRightAwayWhenBatchIsFull() {
+        coalescer = new BroadcastCoalescer(broadcaster, Duration.ofMinutes(1), Duration.ofMinutes(1), 2);
+
+        coalescer.submit(TOPIC, "a");
+        coalescer.submit(TOPIC, "b");
+        coalescer.submit(TOPIC, "c");
+
+        // Sent on the submitting thread; the third event starts the next batch
+        verify(broadcaster).broadcast(TOPIC, List.of("a", "b"));
+        verify(broadcaster, never()).broadcast(TOPIC, List.of("c"));
+    }
+
+    @Test
+    void submit_WithoutWindow_ShouldBroadcastEachEventAsItsOwnArray() {
+        coalescer = new BroadcastCoalescer(broadcaster, Duration.ZERO, Duration.ZERO, 50);
+
+        coalescer.submit(TOPIC, "a");
+
+        verify(broadcaster).broadcast(TOPIC, List.of("a"));
+    }
+
+    @Test
+    void submit_ToTopicNobodyWatches_ShouldDropEvent() {
+        coalescer = new BroadcastCoalescer(broadcaster, Duration.ofMillis(10), Duration.ofMillis(10), 50);
+
+        coalescer.submit("/topic/forum/thread/8", "a");
+
+        verify(broadcaster, after(100).never()).broadcast(anyString(), any());
+    }
+}
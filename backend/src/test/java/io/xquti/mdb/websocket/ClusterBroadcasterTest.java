@@ -0,0 +1,165 @@
+package io.xquti.mdb.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.xquti.mdb.config.ClusterNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ClusterBroadcasterTest {
+
+    private static final String CHANNEL = "mdb:ws:broadcast";
+    private static final String THREAD_TOPIC = "/topic/forum/thread/7";
+    private static final String PAYLOAD = "{\"id\":1}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private SimpMessagingTemplate messagingTemplate;
+    private RedisTemplate<String, String> redisTemplate;
+    private SubscriptionRegistry subscriptions;
+    private TopicReplayBuffer replayBuffer;
+    private SseStreamHub sseStreamHub;
+    private ClusterBroadcaster broadcaster;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        redisTemplate = mock(RedisTemplate.class);
+        subscriptions = mock(SubscriptionRegistry.class);
+        replayBuffer = mock(TopicReplayBuffer.class);
+        sseStreamHub = mock(SseStreamHub.class);
+        broadcaster = new ClusterBroadcaster(messagingTemplate, redisTemplate,
+            mock(RedisMessageListenerContainer.class), objectMapper, subscriptions, replayBuffer, sseStreamHub,
+            new ClusterNode("node-1"));
+        ReflectionTestUtils.setField(broadcaster, "clusterEnabled", true);
+        ReflectionTestUtils.setField(broadcaster, "channel", CHANNEL);
+        broadcaster.subscribe();
+    }
+
+    @Test
+    void onMessage_UnsequencedFrameThisNodePublished_ShouldNotBeDeliveredTwice() throws Exception {
+        // Arrange
+        when(subscriptions.hasSubscribers(THREAD_TOPIC)).thenReturn(true);
+
+        // Act
+        broadcaster.onMessage(channelMessage(":" + envelope("node-1", THREAD_TOPIC)), null);
+
+        // Assert
+        verify(messagingTemplate, never()).send(anyString(), any(Message.class));
+        verifyNoInteractions(sseStreamHub);
+    }
+
+    @Test
+    void onMessage_UnsequencedFrameFromAnotherNode_ShouldBeDeliveredLocally() throws Exception {
+        when(subscriptions.hasSubscribers(THREAD_TOPIC)).thenReturn(true);
+
+        broadcaster.onMessage(channelMessage(":" + envelope("node-2", THREAD_TOPIC)), null);
+
+        Message<?> sent = sentTo(THREAD_TOPIC);
+        assertEquals(PAYLOAD, new String((byte[]) sent.getPayload(), StandardCharsets.UTF_8));
+        assertNull(SimpMessageHeaderAccessor.wrap(sent).getFirstNativeHeader(ClusterBroadcaster.SEQ_HEADER));
+        verify(sseStreamHub).publish(THREAD_TOPIC, null, PAYLOAD);
+    }
+
+    @Test
+    void onMessage_SequencedFrameThisNodePublished_ShouldBeDeliveredFromTheChannel() throws Exception {
+        when(subscriptions.hasSubscribers(THREAD_TOPIC)).thenReturn(true);
+
+        // The publishing node waits for its own echo, so its sessions see the channel's order too
+        broadcaster.onMessage(channelMessage("5:" + envelope("node-1", THREAD_TOPIC)), null);
+
+        Message<?> sent = sentTo(THREAD_TOPIC);
+        assertEquals("5", SimpMessageHeaderAccessor.wrap(sent).getFirstNativeHeader(ClusterBroadcaster.SEQ_HEADER));
+        verify(sseStreamHub).publish(THREAD_TOPIC, 5L, PAYLOAD);
+    }
+
+    @Test
+    void broadcast_SequencedTopic_ShouldOnlyDeliverWhenItComesBackOnTheChannel() {
+        when(subscriptions.isWatchedInCluster(THREAD_TOPIC)).thenReturn(true);
+        when(replayBuffer.tracks(THREAD_TOPIC)).thenReturn(true);
+        when(replayBuffer.publish(eq(THREAD_TOPIC), eq(PAYLOAD), any(), eq(CHANNEL), anyString())).thenReturn(5L);
+
+        broadcaster.broadcast(THREAD_TOPIC, Map.of("id", 1));
+
+        verify(messagingTemplate, never()).send(anyString(), any(Message.class));
+        verify(redisTemplate, never()).convertAndSend(anyString(), any());
+    }
+
+    @Test
+    void broadcast_UnsequencedTopic_ShouldDeliverHereAndRelayToOtherNodes() {
+        String topic = "/topic/forum/thread/7/activity";
+        when(subscriptions.isWatchedInCluster(topic)).thenReturn(true);
+        when(subscriptions.hasSubscribers(topic)).thenReturn(true);
+
+        broadcaster.broadcast(topic, Map.of("id", 1));
+
+        sentTo(topic);
+        ArgumentCaptor<Object> relayed = ArgumentCaptor.forClass(Object.class);
+        verify(redisTemplate).convertAndSend(eq(CHANNEL), relayed.capture());
+        assertEquals(':', relayed.getValue().toString().charAt(0));
+    }
+
+    @Test
+    void broadcast_WhenSequencingFails_ShouldFallBackToUnsequencedDelivery() {
+        when(subscriptions.isWatchedInCluster(THREAD_TOPIC)).thenReturn(true);
+        when(subscriptions.hasSubscribers(THREAD_TOPIC)).thenReturn(true);
+        when(replayBuffer.tracks(THREAD_TOPIC)).thenReturn(true);
+
+        broadcaster.broadcast(THREAD_TOPIC, Map.of("id", 1));
+
+        sentTo(THREAD_TOPIC);
+        verify(redisTemplate).convertAndSend(eq(CHANNEL), any());
+    }
+
+    @Test
+    void broadcast_ToDestinationNobodyWatches_ShouldBeSkipped() {
+        broadcaster.broadcast(THREAD_TOPIC, Map.of("id", 1));
+
+        verifyNoInteractions(replayBuffer, redisTemplate, messagingTemplate, sseStreamHub);
+    }
+
+    @Test
+    void onMessage_ForDestinationWithoutLocalSubscribers_ShouldNotBeDelivered() throws Exception {
+        broadcaster.onMessage(channelMessage("5:" + envelope("node-2", THREAD_TOPIC)), null);
+
+        verifyNoInteractions(messagingTemplate, sseStreamHub);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private Message<?> sentTo(String destination) {
+        ArgumentCaptor<Message> sent = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate).send(eq(destination), sent.capture());
+        return sent.getValue();
+    }
+
+    private String envelope(String origin, String destination) throws Exception {
+        return objectMapper.writeValueAsString(
+            new ClusterBroadcaster.ClusterMessage(origin, destination, null, PAYLOAD, null));
+    }
+
+    private static DefaultMessage channelMessage(String body) {
+        return new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,64 @@
+package io.xquti.mdb.websocket;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LongCountMapTest {
+
+    @Test
+    void incrementAndDecrement_ShouldTrackCountsAndRemoveAtZero() {
+        // Arrange
+        LongCountMap map = new LongCountMap();
+
+        // Act
+        map.increment(42L);
+        map.increment(42L);
+        map.increment(7L);
+        map.decrement(42L);
+        map.decrement(7L);
+
+        // Assert
+        assertEquals(1, map.get(42L));
+        assertEquals(0, map.get(7L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void decrement_OfMissingKey_ShouldBeNoOp() {
+        LongCountMap map = new LongCountMap();
+
+        assertEquals(0, map.decrement(1L));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void randomOperations_ShouldMatchHashMap() {
+        // Arrange
+        LongCountMap map = new LongCountMap(4);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(31);
+
+        // Act - small key space forces collisions, resizes and backward-shift deletes
+        for (int i = 0; i < 20_000; i++) {
+            long key = random.nextInt(300);
+            if (random.nextBoolean()) {
+                map.increment(key);
+                expected.merge(key, 1, Integer::sum);
+            } else {
+                map.decrement(key);
+                expected.computeIfPresent(key, (k, v) -> v > 1 ? v - 1 : null);
+            }
+        }
+
+        // Assert
+        assertEquals(expected.size(), map.size());
+        for (long key = 0; key < 300; key++) {
+            assertEquals(expected.getOrDefault(key, 0), map.get(key), "count for " + key);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,226 @@
+package io.xquti.mdb.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboundFramePolicyTest {
+
+    private static final String ACTIVITY = "/topic/forum/thread/7/activity";
+    private static final String PRESENCE = "/topic/forum/thread/7/presence";
+
+    private final MessageChannel channel = mock(MessageChannel.class);
+    private final CountDownLatch writing = new CountDownLatch(1);
+    private final CountDownLatch unblock = new CountDownLatch(1);
+
+    private SimpleMeterRegistry meterRegistry;
+    private OutboundFramePolicy policy;
+    private WebSocketSession socket;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        policy = new OutboundFramePolicy(meterRegistry, Duration.ZERO);
+        socket = mock(WebSocketSession.class);
+        when(socket.getId()).thenReturn("s1");
+    }
+
+    @AfterEach
+    void tearDown() {
+        unblock.countDown();
+    }
+
+    @Test
+    void preSend_ActivityFrame_WhileWriteIsBlocked_ShouldDrop() throws Exception {
+        // Arrange
+        WebSocketSession session = connect();
+        Message<byte[]> activity = frame("s1", ACTIVITY);
+        assertSame(activity, policy.preSend(activity, channel));
+
+        // Act
+        Thread writer = blockWrite(session);
+
+        // Assert
+        assertNull(policy.preSend(activity, channel));
+        assertEquals(1.0, frameCount("drop"));
+
+        unblock.countDown();
+        writer.join(1000);
+        assertSame(activity, policy.preSend(activity, channel));
+    }
+
+    @Test
+    void preSend_ActivityFrame_BeforeDroppableAfter_ShouldDeliver() throws Exception {
+        policy = new OutboundFramePolicy(meterRegistry, Duration.ofMinutes(1));
+        WebSocketSession session = connect();
+        Message<byte[]> activity = frame("s1", ACTIVITY);
+
+        blockWrite(session);
+
+        assertSame(activity, policy.preSend(activity, channel));
+        assertEquals(0.0, frameCount("drop"));
+    }
+
+    @Test
+    void preSend_PostFrame_WhileWriteIsBlocked_ShouldDeliver() throws Exception {
+        WebSocketSession session = connect();
+        Message<byte[]> post = frame("s1", "/topic/forum/thread/7");
+
+        blockWrite(session);
+
+        assertSame(post, policy.preSend(post, channel));
+    }
+
+    @Test
+    void blockedSession_ShouldDropActivityAndBeClosedAsSlowConsumer() throws Exception {
+        // Arrange - buffered and limited the way the STOMP handler wraps every session
+        ConcurrentWebSocketSessionDecorator session = new ConcurrentWebSocketSessionDecorator(connect(), 50, 1024);
+        blockWrite(session);
+        Thread.sleep(100);
+
+        // Act & Assert - a second frame is buffered while the first write is still blocked
+        assertNull(policy.preSend(frame("s1", ACTIVITY), channel));
+        SessionLimitExceededException exceeded = assertThrows(SessionLimitExceededException.class,
+            () -> session.sendMessage(new TextMessage("post")));
+        assertEquals(CloseStatus.SESSION_NOT_RELIABLE, exceeded.getStatus());
+
+        policy.onDisconnect(disconnect("s1", exceeded.getStatus()));
+        assertEquals(1.0, frameCount("drop"));
+        assertEquals(1.0, meterRegistry.get("mdb.websocket.slow.consumers").counter().count());
+    }
+
+    @Test
+    void presenceFrames_WhileOneIsQueued_ShouldBeConflatedIntoTheNewest() {
+        Message<byte[]> first = frame("s1", PRESENCE);
+        Message<byte[]> second = frame("s1", PRESENCE);
+        Message<byte[]> third = frame("s1", PRESENCE);
+
+        assertSame(first, policy.preSend(first, channel));
+        assertNull(policy.preSend(second, channel));
+        assertNull(policy.preSend(third, channel));
+
+        // The queued frame goes out carrying the newest payload and frees the slot
+        assertSame(third, policy.beforeHandle(first, channel, mock(MessageHandler.class)));
+        assertEquals(2.0, frameCount("conflate"));
+        Message<byte[]> next = frame("s1", PRESENCE);
+        assertSame(next, policy.preSend(next, channel));
+    }
+
+    @Test
+    void presenceFrames_ForOtherSessions_ShouldNotBeConflated() {
+        Message<byte[]> mine = frame("s1", PRESENCE);
+        Message<byte[]> theirs = frame("s2", PRESENCE);
+
+        assertSame(mine, policy.preSend(mine, channel));
+        assertSame(theirs, policy.preSend(theirs, channel));
+    }
+
+    @Test
+    void afterSendCompletion_WhenExecutorRejectsFrame_ShouldFreeConflationSlot() {
+        Message<byte[]> rejected = frame("s1", PRESENCE);
+        assertSame(rejected, policy.preSend(rejected, channel));
+
+        policy.afterSendCompletion(rejected, channel, false, new IllegalStateException("queue full"));
+
+        // Without the cleanup this frame would be folded into one that is never sent
+        Message<byte[]> next = frame("s1", PRESENCE);
+        assertSame(next, policy.preSend(next, channel));
+        assertEquals(0.0, frameCount("conflate"));
+    }
+
+    @Test
+    void onDisconnect_SessionNotReliable_ShouldCountSlowConsumer() {
+        policy.onDisconnect(disconnect("s1", CloseStatus.SESSION_NOT_RELIABLE));
+        policy.onDisconnect(disconnect("s2", CloseStatus.NORMAL));
+
+        assertEquals(1.0, meterRegistry.get("mdb.websocket.slow.consumers").counter().count());
+    }
+
+    @Test
+    void onDisconnect_ShouldForgetSessionsQueuedFrames() {
+        Message<byte[]> queued = frame("s1", PRESENCE);
+        policy.preSend(queued, channel);
+        policy.preSend(frame("s1", PRESENCE), channel);
+
+        policy.onDisconnect(disconnect("s1", CloseStatus.NORMAL));
+
+        // The newer frame was discarded with the session, so the queued one goes out unchanged
+        assertSame(queued, policy.beforeHandle(queued, channel, mock(MessageHandler.class)));
+    }
+
+    private WebSocketSession connect() throws Exception {
+        WebSocketHandler handler = mock(WebSocketHandler.class);
+        policy.decorate(handler).afterConnectionEstablished(socket);
+        ArgumentCaptor<WebSocketSession> timed = ArgumentCaptor.forClass(WebSocketSession.class);
+        verify(handler).afterConnectionEstablished(timed.capture());
+        doAnswer(invocation -> {
+            writing.countDown();
+            unblock.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(socket).sendMessage(any());
+        return timed.getValue();
+    }
+
+    /**
+     * Start a socket write that stays blocked until {@code unblock} is released.
+     */
+    private Thread blockWrite(WebSocketSession session) throws InterruptedException {
+        Thread writer = new Thread(() -> {
+            try {
+                session.sendMessage(new TextMessage("frame"));
+            } catch (Exception ignored) {
+            }
+        });
+        writer.start();
+        assertTrue(writing.await(1, TimeUnit.SECONDS));
+        return writer;
+    }
+
+    private double frameCount(String policyTag) {
+        return meterRegistry.get("mdb.websocket.frames.dropped").tag("policy", policyTag).counter().count();
+    }
+
+    private static Message<byte[]> frame(String sessionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static SessionDisconnectEvent disconnect(String sessionId, CloseStatus status) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.DISCONNECT);
+        accessor.setSessionId(sessionId);
+        return new SessionDisconnectEvent(new Object(),
+            MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()), sessionId, status);
+    }
+}
@@ -0,0 +1,137 @@
+package io.xquti.mdb.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+class SessionFrameInterceptorTest {
+
+    private static final String JSON = "[{\"id\":1,\"authorId\":3}]";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MessageChannel channel = mock(MessageChannel.class);
+
+    private SimpleMeterRegistry meterRegistry;
+    private SessionFrameInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        interceptor = new SessionFrameInterceptor(objectMapper, meterRegistry);
+    }
+
+    @Test
+    void preSend_ShouldSendEachAuthorsProfileToSessionOnlyOnce() {
+        // Arrange
+        interceptor.onConnect(connect("s1", false, null));
+
+        // Act
+        Message<?> first = interceptor.preSend(frame("s1", "3"), channel);
+        Message<?> second = interceptor.preSend(frame("s1", "3"), channel);
+
+        // Assert
+        assertNotNull(SimpMessageHeaderAccessor.wrap(first).getFirstNativeHeader(ClusterBroadcaster.AUTHORS_HEADER));
+        SimpMessageHeaderAccessor repeat = SimpMessageHeaderAccessor.wrap(second);
+        assertNull(repeat.getFirstNativeHeader(ClusterBroadcaster.AUTHORS_HEADER));
+        assertNull(repeat.getFirstNativeHeader(ClusterBroadcaster.AUTHOR_IDS_HEADER));
+        assertEquals(1.0, profiles("sent"));
+        assertEquals(1.0, profiles("skipped"));
+    }
+
+    @Test
+    void preSend_FrameWithANewAuthor_ShouldCarryProfilesAgain() {
+        interceptor.onConnect(connect("s1", false, null));
+        interceptor.preSend(frame("s1", "3"), channel);
+
+        Message<?> mixed = interceptor.preSend(frame("s1", "3,4"), channel);
+
+        assertNotNull(SimpMessageHeaderAccessor.wrap(mixed).getFirstNativeHeader(ClusterBroadcaster.AUTHORS_HEADER));
+    }
+
+    @Test
+    void preSend_ShouldTrackProfilesPerSession() {
+        interceptor.onConnect(connect("s1", false, null));
+        interceptor.onConnect(connect("s2", false, null));
+        interceptor.preSend(frame("s1", "3"), channel);
+
+        Message<?> other = interceptor.preSend(frame("s2", "3"), channel);
+
+        assertNotNull(SimpMessageHeaderAccessor.wrap(other).getFirstNativeHeader(ClusterBroadcaster.AUTHORS_HEADER));
+    }
+
+    @Test
+    void preSend_NativeSessionThatAskedForCbor_ShouldGetBinaryBody() throws Exception {
+        interceptor.onConnect(connect("s1", true, "cbor"));
+
+        Message<?> encoded = interceptor.preSend(frame("s1", null), channel);
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(encoded);
+        assertEquals(MimeTypeUtils.APPLICATION_OCTET_STREAM, accessor.getContentType());
+        assertEquals("cbor", accessor.getFirstNativeHeader(SessionFrameInterceptor.ENCODING_HEADER));
+        assertEquals(objectMapper.readTree(JSON), new CBORMapper().readTree((byte[]) encoded.getPayload()));
+    }
+
+    @Test
+    void preSend_SockJsSessionAskingForCbor_ShouldKeepJson() {
+        // SockJS cannot carry binary frames, so the handshake never marks these sessions capable
+        interceptor.onConnect(connect("s1", false, "cbor"));
+
+        Message<?> sent = interceptor.preSend(frame("s1", null), channel);
+
+        assertEquals(JSON, new String((byte[]) sent.getPayload(), StandardCharsets.UTF_8));
+        assertEquals(MimeTypeUtils.APPLICATION_JSON, SimpMessageHeaderAccessor.wrap(sent).getContentType());
+    }
+
+    private double profiles(String result) {
+        return meterRegistry.get("mdb.websocket.author.profiles").tag("result", result).counter().count();
+    }
+
+    private static SessionConnectEvent connect(String sessionId, boolean binaryCapable, String encoding) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+        accessor.setSessionId(sessionId);
+        Map<String, Object> attributes = new HashMap<>();
+        if (binaryCapable) {
+            attributes.put(SessionFrameInterceptor.BINARY_CAPABLE_ATTRIBUTE, Boolean.TRUE);
+        }
+        accessor.setSessionAttributes(attributes);
+        if (encoding != null) {
+            accessor.setNativeHeader(SessionFrameInterceptor.ENCODING_HEADER, encoding);
+        }
+        return new SessionConnectEvent(new Object(),
+            MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+    }
+
+    /**
+     * A frame as ClusterBroadcaster hands it to the broker for one subscriber.
+     */
+    private static Message<byte[]> frame(String sessionId, String authorIds) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination("/topic/forum/thread/7");
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        if (authorIds != null) {
+            accessor.setNativeHeader(ClusterBroadcaster.AUTHOR_IDS_HEADER, authorIds);
+            accessor.setNativeHeader(ClusterBroadcaster.AUTHORS_HEADER, "[{\"id\":3}]");
+        }
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(JSON.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+}
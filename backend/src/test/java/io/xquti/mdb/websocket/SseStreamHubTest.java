@@ -0,0 +1,199 @@
+package io.xquti.mdb.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.xquti.mdb.controller.ForumStreamController;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class SseStreamHubTest {
+
+    private static final String TOPIC = "/topic/forum/thread/7";
+    private static final String STREAM = "/api/forums/threads/7/stream";
+
+    private TopicReplayBuffer replayBuffer;
+    private SimpleMeterRegistry meterRegistry;
+    private SseStreamHub hub;
+    private MockMvc mockMvc;
+
+    // Writes to the response wait on this, so a test can hold a reader mid-frame
+    private volatile CountDownLatch gate = new CountDownLatch(0);
+    private final CountDownLatch writing = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        replayBuffer = mock(TopicReplayBuffer.class);
+        meterRegistry = new SimpleMeterRegistry();
+        hub = new SseStreamHub(mock(SubscriptionRegistry.class), replayBuffer, meterRegistry,
+            Duration.ofMinutes(1), 100, 3);
+        ForumStreamController controller = new ForumStreamController();
+        ReflectionTestUtils.setField(controller, "sseStreamHub", hub);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+            .addFilter((request, response, chain) ->
+                chain.doFilter(request, new GatedResponse((HttpServletResponse) response)))
+            .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        gate.countDown();
+        hub.shutdown();
+    }
+
+    @Test
+    void publish_ReaderMoreThanAQueueBehind_ShouldBeClosedToResume() throws Exception {
+        // Arrange
+        MvcResult result = mockMvc.perform(get(STREAM)).andExpect(request().asyncStarted()).andReturn();
+        gate = new CountDownLatch(1);
+        hub.publish(TOPIC, 1L, "{\"n\":1}");
+        assertTrue(writing.await(2, TimeUnit.SECONDS));
+
+        // Act
+        for (long seq = 2; seq <= 5; seq++) {
+            hub.publish(TOPIC, seq, "{\"n\":" + seq + "}");
+        }
+        gate.countDown();
+
+        // Assert
+        result.getAsyncResult(2000);
+        String body = result.getResponse().getContentAsString();
+        assertTrue(body.contains("id:1"));
+        assertFalse(body.contains("id:2"));
+        assertEquals(1.0, meterRegistry.get("mdb.sse.overflows").counter().count());
+    }
+
+    @Test
+    void open_WithLastEventId_ShouldReplayMissedFramesEvenBeyondTheQueueCapacity() throws Exception {
+        when(replayBuffer.replay(TOPIC, 1)).thenReturn(new TopicReplayBuffer.Replay(List.of(
+            event(2), event(3), event(4), event(5)), true, 5));
+
+        MvcResult result = mockMvc.perform(get(STREAM).header("Last-Event-ID", "1"))
+            .andExpect(request().asyncStarted()).andReturn();
+        hub.publish(TOPIC, 6L, "{\"n\":6}");
+
+        String body = awaitContent(result, "id:6");
+        assertTrue(body.indexOf("id:2") < body.indexOf("id:5"));
+        assertFalse(body.contains("resync"));
+        assertEquals(0.0, meterRegistry.get("mdb.sse.overflows").counter().count());
+    }
+
+    @Test
+    void open_WhenReplayIsIncomplete_ShouldTellTheClientToResync() throws Exception {
+        when(replayBuffer.replay(TOPIC, 1)).thenReturn(new TopicReplayBuffer.Replay(List.of(), false, 9));
+
+        MvcResult result = mockMvc.perform(get(STREAM).header("Last-Event-ID", "1"))
+            .andExpect(request().asyncStarted()).andReturn();
+        hub.publish(TOPIC, 10L, "{\"n\":10}");
+
+        String body = awaitContent(result, "id:10");
+        assertTrue(body.contains("event:resync"));
+    }
+
+    @Test
+    void publish_FrameSkippingASequence_ShouldCloseStreamToResume() throws Exception {
+        MvcResult result = mockMvc.perform(get(STREAM)).andExpect(request().asyncStarted()).andReturn();
+
+        hub.publish(TOPIC, 1L, "{\"n\":1}");
+        hub.publish(TOPIC, 3L, "{\"n\":3}");
+
+        result.getAsyncResult(2000);
+        String body = result.getResponse().getContentAsString();
+        assertTrue(body.contains("id:1"));
+        assertFalse(body.contains("id:3"));
+        assertEquals(1.0, meterRegistry.get("mdb.sse.gaps").counter().count());
+    }
+
+    private static TopicReplayBuffer.ReplayEvent event(long seq) {
+        return new TopicReplayBuffer.ReplayEvent(seq, "{\"n\":" + seq + "}", null);
+    }
+
+    private static String awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        String body = result.getResponse().getContentAsString();
+        while (!body.contains(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            body = result.getResponse().getContentAsString();
+        }
+        assertTrue(body.contains(expected), body);
+        return body;
+    }
+
+    private final class GatedResponse extends HttpServletResponseWrapper {
+        private ServletOutputStream gated;
+
+        GatedResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public synchronized ServletOutputStream getOutputStream() throws IOException {
+            if (gated == null) {
+                ServletOutputStream target = super.getOutputStream();
+                gated = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        await();
+                        target.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        await();
+                        target.write(b, off, len);
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        target.flush();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return true;
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener listener) {
+                    }
+                };
+            }
+            return gated;
+        }
+
+        private void await() throws IOException {
+            CountDownLatch current = gate;
+            if (current.getCount() == 0) {
+                return;
+            }
+            writing.countDown();
+            try {
+                current.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+    }
+}
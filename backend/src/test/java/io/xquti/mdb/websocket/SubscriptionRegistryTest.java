@@ -0,0 +1,105 @@
+package io.xquti.mdb.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SubscriptionRegistryTest {
+
+    private static final String THREAD_TOPIC = "/topic/forum/thread/7";
+
+    private RedisTemplate<String, String> redisTemplate;
+    private ZSetOperations<String, String> zSet;
+    private SubscriptionRegistry registry;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        zSet = mock(ZSetOperations.class);
+        when(redisTemplate.opsForZSet()).thenReturn(zSet);
+        registry = new SubscriptionRegistry(new SimpleMeterRegistry(), redisTemplate,
+            mock(RedisMessageListenerContainer.class), Duration.ofMinutes(5));
+    }
+
+    @Test
+    void onSubscribe_FirstLocalSubscriber_ShouldAnnounceDestinationOnce() {
+        // Act
+        registry.onSubscribe(subscribe("s1", "sub-1", THREAD_TOPIC));
+        registry.onSubscribe(subscribe("s2", "sub-1", THREAD_TOPIC));
+
+        // Assert
+        assertTrue(registry.hasSubscribers(THREAD_TOPIC));
+        assertEquals(2, registry.getThreadSubscriberCount(7));
+        verify(zSet).add(anyString(), anyString(), anyDouble());
+        verify(redisTemplate, times(1)).convertAndSend("ws:watched:added", THREAD_TOPIC);
+    }
+
+    @Test
+    void onDisconnect_ShouldReleaseEverySubscriptionOfTheSession() {
+        registry.onSubscribe(subscribe("s1", "sub-1", THREAD_TOPIC));
+        registry.onSubscribe(subscribe("s1", "sub-2", "/topic/forum/threads"));
+
+        registry.onDisconnect(new SessionDisconnectEvent(new Object(),
+            MessageBuilder.createMessage(new byte[0], SimpMessageHeaderAccessor.create().getMessageHeaders()),
+            "s1", CloseStatus.NORMAL));
+
+        assertFalse(registry.hasSubscribers(THREAD_TOPIC));
+        assertFalse(registry.hasSubscribers("/topic/forum/threads"));
+    }
+
+    @Test
+    void isWatchedInCluster_ShouldIncludeDestinationsAnnouncedByOtherNodes() {
+        assertFalse(registry.isWatchedInCluster(THREAD_TOPIC));
+
+        registry.onMessage(new DefaultMessage("ws:watched:added".getBytes(StandardCharsets.UTF_8),
+            THREAD_TOPIC.getBytes(StandardCharsets.UTF_8)), null);
+
+        // Watched elsewhere, so broadcasts go out, but nobody here needs local delivery
+        assertTrue(registry.isWatchedInCluster(THREAD_TOPIC));
+        assertFalse(registry.hasSubscribers(THREAD_TOPIC));
+        verify(redisTemplate, never()).convertAndSend(anyString(), anyString());
+    }
+
+    @Test
+    void retain_ShouldCountNonStompListenersUntilReleased() {
+        registry.retain(THREAD_TOPIC);
+        assertTrue(registry.hasSubscribers(THREAD_TOPIC));
+
+        registry.release(THREAD_TOPIC);
+        assertFalse(registry.hasSubscribers(THREAD_TOPIC));
+    }
+
+    private static SessionSubscribeEvent subscribe(String sessionId, String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return new SessionSubscribeEvent(new Object(),
+            MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+    }
+}
@@ -0,0 +1,143 @@
+package io.xquti.mdb.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TopicReplayBufferTest {
+
+    private static final String TOPIC = "/topic/forum/thread/7";
+
+    private RedisTemplate<String, String> redisTemplate;
+    private ValueOperations<String, String> values;
+    private ZSetOperations<String, String> zSet;
+    private TopicReplayBuffer buffer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        values = mock(ValueOperations.class);
+        zSet = mock(ZSetOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(redisTemplate.opsForZSet()).thenReturn(zSet);
+        buffer = new TopicReplayBuffer(redisTemplate, new ObjectMapper(), 256, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void replay_ShouldReturnFramesAfterSequenceInOrder() {
+        // Arrange
+        stored(12, frame(11), frame(12));
+
+        // Act
+        TopicReplayBuffer.Replay replay = buffer.replay(TOPIC, 10);
+
+        // Assert
+        assertTrue(replay.complete());
+        assertEquals(List.of(11L, 12L), replay.events().stream().map(TopicReplayBuffer.ReplayEvent::seq).toList());
+        assertEquals("{\"id\":11}", replay.events().getFirst().payload());
+        assertEquals("[{\"id\":1}]", replay.events().getFirst().authors());
+        assertEquals(12, replay.latestSeq());
+    }
+
+    @Test
+    void replay_WhenOldestMissedFrameWasTrimmed_ShouldBeIncomplete() {
+        stored(14, frame(13), frame(14));
+
+        TopicReplayBuffer.Replay replay = buffer.replay(TOPIC, 10);
+
+        // 11 and 12 are gone, so the client has to reload rather than skip them
+        assertFalse(replay.complete());
+        assertEquals(14, replay.latestSeq());
+    }
+
+    @Test
+    void replay_WhenUpToDate_ShouldBeCompleteAndEmpty() {
+        stored(10);
+
+        TopicReplayBuffer.Replay replay = buffer.replay(TOPIC, 10);
+
+        assertTrue(replay.complete());
+        assertTrue(replay.events().isEmpty());
+    }
+
+    @Test
+    void replay_WhenHistoryExpiredButCounterMovedOn_ShouldBeIncomplete() {
+        stored(15);
+
+        TopicReplayBuffer.Replay replay = buffer.replay(TOPIC, 10);
+
+        assertFalse(replay.complete());
+        assertEquals(15, replay.latestSeq());
+    }
+
+    @Test
+    void replay_WhenRedisUnavailable_ShouldBeIncompleteFromTheClientsSequence() {
+        when(values.get("ws:seq:" + TOPIC)).thenThrow(new RedisConnectionFailureException("down"));
+
+        TopicReplayBuffer.Replay replay = buffer.replay(TOPIC, 10);
+
+        assertFalse(replay.complete());
+        assertEquals(10, replay.latestSeq());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publish_ShouldReturnSequenceFromScript() {
+        when(redisTemplate.execute(any(RedisScript.class),
+                eq(List.of("ws:seq:" + TOPIC, "ws:replay:" + TOPIC)), any(Object[].class)))
+            .thenReturn(11L);
+
+        assertEquals(11L, buffer.publish(TOPIC, "{\"id\":11}", null, "mdb:ws:broadcast", "{}"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publish_WhenRedisUnavailable_ShouldReturnNull() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+            .thenThrow(new RedisConnectionFailureException("down"));
+
+        assertNull(buffer.publish(TOPIC, "{\"id\":11}", null, "mdb:ws:broadcast", "{}"));
+    }
+
+    @Test
+    void tracks_ShouldCoverThreadTopicsAndGlobalFeedsOnly() {
+        assertTrue(buffer.tracks(TOPIC));
+        assertTrue(buffer.tracks("/topic/forum/posts"));
+        assertFalse(buffer.tracks(TOPIC + "/presence"));
+    }
+
+    private void stored(long counter, String... frames) {
+        when(values.get("ws:seq:" + TOPIC)).thenReturn(Long.toString(counter));
+        Set<String> history = new LinkedHashSet<>(List.of(frames));
+        when(zSet.rangeByScore(eq("ws:replay:" + TOPIC), eq(11.0), eq(Double.POSITIVE_INFINITY)))
+            .thenReturn(history);
+    }
+
+    /**
+     * A history entry as ws-publish.lua writes it.
+     */
+    private static String frame(long seq) {
+        return "{\"seq\":" + seq + ",\"payload\":{\"id\":" + seq + "},\"authors\":[{\"id\":1}]}";
+    }
+}
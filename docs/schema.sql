@@ -10,6 +10,9 @@ CREATE TABLE users (
     avatar_url TEXT,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP,
+    -- Bumped when roles change or the user is deleted; access tokens carrying an older value are rejected.
+    -- Existing databases: ALTER TABLE users ADD COLUMN token_version BIGINT NOT NULL DEFAULT 0;
+    token_version BIGINT NOT NULL DEFAULT 0,
     UNIQUE(provider, provider_id)
 );
 
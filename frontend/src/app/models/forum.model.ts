@@ -32,6 +32,32 @@ export interface CreatePostRequest {
   content: string;
 }
 
+// Public author details, sent once per WebSocket session in the x-authors header
+export interface AuthorProfile {
+  id: number;
+  username: string;
+  avatarUrl?: string;
+}
+
+// Compact real-time post event; authorProfile is filled in client-side
+export interface ForumPostEvent {
+  id: number;
+  threadId: number;
+  authorId: number;
+  author: string;
+  content: string;
+  createdAt: string;
+  updatedAt?: string;
+  authorProfile?: AuthorProfile;
+}
+
+// Real-time frames missed on a thread topic; complete=false means reload the thread
+export interface ThreadReplay {
+  events: { seq: number; payload: ForumPostEvent[]; authors?: AuthorProfile[] }[];
+  complete: boolean;
+  latestSeq: number;
+}
+
 export interface PageResponse<T> {
   content: T[];
   totalElements: number;
@@ -2,7 +2,7 @@ import { Injectable } from '@angular/core';
 import { HttpClient, HttpParams, HttpErrorResponse } from '@angular/common/http';
 import { Observable } from 'rxjs';
 import { catchError, timeout, retry } from 'rxjs/operators';
-import { ForumThread, ForumPost, CreateThreadRequest, CreatePostRequest, PageResponse } from '../models/forum.model';
+import { ForumThread, ForumPost, CreateThreadRequest, CreatePostRequest, PageResponse, ThreadReplay } from '../models/forum.model';
 import { AuthService } from './auth.service';
 
 @Injectable({
@@ -110,6 +110,18 @@ export class ForumService {
     );
   }
 
+  getThreadEvents(threadId: number, after: number): Observable<ThreadReplay> {
+    const params = new HttpParams().set('after', after.toString());
+
+    return this.http.get<ThreadReplay>(`${this.API_URL}/threads/${threadId}/events`, { params }).pipe(
+      timeout(this.REQUEST_TIMEOUT),
+      catchError((error: HttpErrorResponse) => {
+        console.error(`Error fetching missed events for thread ${threadId}:`, error);
+        throw new Error('Could not load missed thread updates.');
+      })
+    );
+  }
+
   createPost(threadId: number, request: CreatePostRequest): Observable<ForumPost> {
     if (!threadId || threadId <= 0) {
       throw new Error('Invalid thread ID');
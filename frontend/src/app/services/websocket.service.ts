@@ -2,11 +2,12 @@ import { Injectable } from '@angular/core';
 import { Client, IMessage } from '@stomp/stompjs';
 import SockJS from 'sockjs-client';
 import { BehaviorSubject, Observable } from 'rxjs';
-import { ForumThread, ForumPost, CreateThreadRequest, CreatePostRequest } from '../models/forum.model';
+import { ForumThread, ForumPostEvent, AuthorProfile, CreateThreadRequest, CreatePostRequest } from '../models/forum.model';
+import { ForumService } from './forum.service';
 
 export interface ForumUpdate {
-  type: 'thread' | 'post' | 'activity';
-  data: ForumThread | ForumPost | ForumActivity;
+  type: 'thread' | 'post' | 'activity' | 'presence' | 'resync';
+  data: ForumThread | ForumPostEvent | ForumActivity | ForumPresence | ForumResync;
   timestamp: number;
 }
 
@@ -16,15 +17,38 @@ export interface ForumActivity {
   timestamp: number;
 }
 
+// Sent at a fixed cadence with only what changed since the previous frame
+export interface ForumPresence {
+  threadId: number;
+  joined: string[];
+  left: string[];
+  typing: string[];
+  online: number;
+}
+
+// Emitted when missed updates could not be replayed and the thread should be reloaded
+export interface ForumResync {
+  threadId: number;
+}
+
 @Injectable({
   providedIn: 'root'
 })
 export class WebSocketService {
+  // How long a frame that arrived ahead of its predecessor waits for it before the gap is replayed
+  private static readonly REORDER_WINDOW_MS = 500;
+
   private client: Client;
   private connected = new BehaviorSubject<boolean>(false);
   private forumUpdates = new BehaviorSubject<ForumUpdate | null>(null);
+  private watchedThreads = new Set<number>();
+  private lastSeq = new Map<number, number>();
+  private pendingFrames = new Map<number, IMessage[]>();
+  private outOfOrder = new Map<number, Map<number, IMessage>>();
+  private reorderTimers = new Map<number, ReturnType<typeof setTimeout>>();
+  private authors = new Map<number, AuthorProfile>();
 
-  constructor() {
+  constructor(private forumService: ForumService) {
     this.client = new Client({
       webSocketFactory: () => new SockJS('http://localhost:8080/ws'),
       connectHeaders: {},
@@ -40,6 +64,7 @@ export class WebSocketService {
       console.log('WebSocket connected');
       this.connected.next(true);
       this.subscribeToForumUpdates();
+      this.watchedThreads.forEach(threadId => this.resumeThread(threadId));
     };
 
     this.client.onDisconnect = () => {
@@ -85,35 +110,181 @@ export class WebSocketService {
 
     // Subscribe to new posts
     this.client.subscribe('/topic/forum/posts', (message: IMessage) => {
-      const post = JSON.parse(message.body);
+      this.emitPosts(message);
+    });
+  }
+
+  subscribeToThread(threadId: number): void {
+    if (this.client.connected && !this.watchedThreads.has(threadId)) {
+      this.watchedThreads.add(threadId);
+      this.subscribeToThreadTopics(threadId);
+    }
+  }
+
+  private subscribeToThreadTopics(threadId: number): void {
+    this.client.subscribe(`/topic/forum/thread/${threadId}`, (message: IMessage) => {
+      this.onThreadFrame(threadId, message);
+    });
+
+    this.client.subscribe(`/topic/forum/thread/${threadId}/presence`, (message: IMessage) => {
+      const presence = JSON.parse(message.body);
       this.forumUpdates.next({
-        type: 'post',
-        data: post,
+        type: 'presence',
+        data: presence,
         timestamp: Date.now()
       });
     });
   }
 
-  subscribeToThread(threadId: number): void {
-    if (this.client.connected) {
-      this.client.subscribe(`/topic/forum/thread/${threadId}`, (message: IMessage) => {
-        const post = JSON.parse(message.body);
-        this.forumUpdates.next({
-          type: 'post',
-          data: post,
-          timestamp: Date.now()
-        });
-      });
+  private onThreadFrame(threadId: number, message: IMessage): void {
+    const pending = this.pendingFrames.get(threadId);
+    if (pending) {
+      pending.push(message); // Applied once the replay has caught up
+      return;
+    }
+    this.handleThreadFrame(threadId, message);
+  }
 
-      this.client.subscribe(`/topic/forum/thread/${threadId}/activity`, (message: IMessage) => {
-        const activity = JSON.parse(message.body);
-        this.forumUpdates.next({
-          type: 'activity',
-          data: activity,
-          timestamp: Date.now()
-        });
-      });
+  private handleThreadFrame(threadId: number, message: IMessage): void {
+    const seq = Number(message.headers['seq']);
+    if (!isNaN(seq)) {
+      const last = this.lastSeq.get(threadId);
+      if (last !== undefined && seq <= last) {
+        return; // Already applied from a replay
+      }
+      if (last !== undefined && seq > last + 1) {
+        // The server's outbound threads may swap frames; wait briefly for the ones in between
+        this.holdOutOfOrder(threadId, seq, message);
+        return;
+      }
+      this.lastSeq.set(threadId, seq);
+      this.emitPosts(message);
+      this.releaseInOrder(threadId);
+      return;
+    }
+    this.emitPosts(message);
+  }
+
+  private holdOutOfOrder(threadId: number, seq: number, message: IMessage): void {
+    let held = this.outOfOrder.get(threadId);
+    if (!held) {
+      held = new Map<number, IMessage>();
+      this.outOfOrder.set(threadId, held);
+    }
+    held.set(seq, message);
+    if (!this.reorderTimers.has(threadId)) {
+      this.reorderTimers.set(threadId,
+        setTimeout(() => this.fillGap(threadId), WebSocketService.REORDER_WINDOW_MS));
+    }
+  }
+
+  // Apply held frames that now follow on from the last one applied
+  private releaseInOrder(threadId: number): void {
+    const held = this.outOfOrder.get(threadId);
+    if (!held) {
+      return;
     }
+    let next = (this.lastSeq.get(threadId) ?? 0) + 1;
+    for (let message = held.get(next); message; message = held.get(next)) {
+      held.delete(next);
+      this.lastSeq.set(threadId, next);
+      this.emitPosts(message);
+      next++;
+    }
+    if (held.size === 0) {
+      this.takeOutOfOrder(threadId);
+    }
+  }
+
+  // The missing frames never arrived; fetch them, then apply the held ones
+  private fillGap(threadId: number): void {
+    const held = this.takeOutOfOrder(threadId);
+    const last = this.lastSeq.get(threadId);
+    if (last === undefined || this.pendingFrames.has(threadId)) {
+      held.forEach(message => this.onThreadFrame(threadId, message));
+      return;
+    }
+    this.pendingFrames.set(threadId, held);
+    this.catchUp(threadId, last);
+  }
+
+  // Held frames in sequence order; stops waiting for the gap to fill
+  private takeOutOfOrder(threadId: number): IMessage[] {
+    clearTimeout(this.reorderTimers.get(threadId));
+    this.reorderTimers.delete(threadId);
+    const held = this.outOfOrder.get(threadId);
+    this.outOfOrder.delete(threadId);
+    return held ? [...held.entries()].sort((a, b) => a[0] - b[0]).map(([, message]) => message) : [];
+  }
+
+  // After a reconnect, fetch only the frames missed since the last sequence seen
+  private resumeThread(threadId: number): void {
+    const after = this.lastSeq.get(threadId);
+    if (after !== undefined) {
+      this.pendingFrames.set(threadId, this.takeOutOfOrder(threadId));
+    }
+    this.subscribeToThreadTopics(threadId);
+    if (after !== undefined) {
+      this.catchUp(threadId, after);
+    }
+  }
+
+  // Apply the replayed frames after `after`, then the live frames held back meanwhile
+  private catchUp(threadId: number, after: number): void {
+    const finish = () => {
+      const queued = this.pendingFrames.get(threadId) ?? [];
+      this.pendingFrames.delete(threadId);
+      queued.forEach(message => this.onThreadFrame(threadId, message));
+    };
+
+    this.forumService.getThreadEvents(threadId, after).subscribe({
+      next: replay => {
+        if (!replay.complete) {
+          this.forumUpdates.next({ type: 'resync', data: { threadId }, timestamp: Date.now() });
+          this.lastSeq.set(threadId, replay.latestSeq);
+        } else {
+          replay.events
+            .filter(event => event.seq > (this.lastSeq.get(threadId) ?? 0))
+            .forEach(event => {
+              this.lastSeq.set(threadId, event.seq);
+              this.rememberAuthors(event.authors);
+              this.publishPosts(event.payload);
+            });
+        }
+        finish();
+      },
+      error: () => {
+        this.forumUpdates.next({ type: 'resync', data: { threadId }, timestamp: Date.now() });
+        // Start over from the next live frame rather than retrying the gap on every frame
+        this.lastSeq.delete(threadId);
+        finish();
+      }
+    });
+  }
+
+  // Post topics are batched server-side, so a frame may carry several posts
+  private emitPosts(message: IMessage): void {
+    const authors = message.headers['x-authors'];
+    if (authors) {
+      this.rememberAuthors(JSON.parse(authors));
+    }
+    const body = JSON.parse(message.body);
+    this.publishPosts(Array.isArray(body) ? body : [body]);
+  }
+
+  private publishPosts(posts: ForumPostEvent[]): void {
+    posts.forEach(post => {
+      this.forumUpdates.next({
+        type: 'post',
+        data: { ...post, authorProfile: this.authors.get(post.authorId) },
+        timestamp: Date.now()
+      });
+    });
+  }
+
+  // Profiles are only sent the first time this session sees an author
+  private rememberAuthors(profiles?: AuthorProfile[]): void {
+    (profiles ?? []).forEach(profile => this.authors.set(profile.id, profile));
   }
 
   sendNewThread(thread: CreateThreadRequest): void {